@@ -0,0 +1,138 @@
+package com.ehrplatform.audit.kafka.normalizer;
+
+import com.ehrplatform.audit.dto.AuditEventMessage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Payload decoding cost per record: the streaming normalizers against the
+ * previous readTree-based normalization (reproduced here as the baseline).
+ * Run with -prof gc to compare allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadNormalizerBenchmark {
+
+    private static final Map<String, String> PAYLOADS = Map.of(
+            "audit-events", "{\"eventType\":\"RECORD_VIEWED\",\"occurredAt\":\"2026-02-07T23:20:00Z\"," +
+                    "\"sourceService\":\"ehr-service\",\"severity\":\"INFO\",\"outcome\":\"SUCCESS\"," +
+                    "\"patientId\":88231,\"actorUserId\":1042,\"role\":\"DOCTOR\"," +
+                    "\"actorEmail\":\"dr.house@example.org\",\"ip\":\"10.12.0.41\"," +
+                    "\"userAgent\":\"Mozilla/5.0 (Windows NT 10.0; Win64; x64)\"," +
+                    "\"details\":{\"fields\":[\"diagnosis\",\"medications\"],\"recordVersion\":3}}",
+            "patient-assign", "{\"patientId\":88231,\"patientName\":\"Jane Doe\",\"doctorId\":1042," +
+                    "\"doctorEmail\":\"dr.house@example.org\",\"occurredAt\":\"2026-02-07T23:20:00Z\"}");
+
+    @Param({"audit-events", "patient-assign"})
+    private String topic;
+
+    private ObjectMapper objectMapper;
+    private AuditPayloadNormalizers normalizers;
+    private ConsumerRecord<String, String> record;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        normalizers = new AuditPayloadNormalizers(
+                List.of(new AuditEventsNormalizer(), new UserRegisteredNormalizer(), new PatientAssignNormalizer()),
+                objectMapper);
+        record = new ConsumerRecord<>(topic, 3, 1882301L, null, PAYLOADS.get(topic));
+    }
+
+    @Benchmark
+    public AuditEventMessage streaming() throws IOException {
+        return normalizers.normalize(record);
+    }
+
+    @Benchmark
+    public AuditEventMessage tree() throws IOException {
+        return treeNormalize(record.topic(), objectMapper.readTree(record.value()));
+    }
+
+    private AuditEventMessage treeNormalize(String topic, JsonNode node) {
+        AuditEventMessage msg = AuditEventMessage.builder()
+                .requestId(getTextOrDefault(node, "requestId", UUID.randomUUID().toString()))
+                .occurredAt(parseInstant(node, "occurredAt"))
+                .sourceService(getTextOrDefault(node, "sourceService", "care-service"))
+                .severity(getTextOrDefault(node, "severity", "INFO"))
+                .outcome(getTextOrDefault(node, "outcome", "SUCCESS"))
+                .build();
+
+        Map<String, Object> details = new HashMap<>();
+        switch (topic) {
+            case "audit-events" -> {
+                msg.setEventType(getTextOrNull(node, "eventType"));
+                msg.setPatientId(getLongOrNull(node, "patientId"));
+                msg.setDoctorUserId(getLongOrNull(node, "doctorUserId"));
+                msg.setRole(getTextOrNull(node, "role"));
+                msg.setActorUserId(getLongOrNull(node, "actorUserId"));
+                msg.setActorEmail(getTextOrNull(node, "actorEmail"));
+                msg.setIp(getTextOrNull(node, "ip"));
+            }
+            case "patient-assign" -> {
+                msg.setEventType("PATIENT_ASSIGNED");
+                msg.setPatientId(getLongOrNull(node, "patientId"));
+                msg.setDoctorUserId(getLongOrNull(node, "doctorId"));
+                details.put("patientId", getLongOrNull(node, "patientId"));
+                details.put("patientName", getTextOrNull(node, "patientName"));
+                details.put("doctorId", getLongOrNull(node, "doctorId"));
+                details.put("doctorEmail", getTextOrNull(node, "doctorEmail"));
+                msg.setDetails(details);
+                msg.setActorEmail(getTextOrNull(node, "doctorEmail"));
+            }
+            default -> {
+                return null;
+            }
+        }
+        msg.setKafkaPartition(record.partition());
+        return msg;
+    }
+
+    private String getTextOrNull(JsonNode node, String field) {
+        return node.has(field) && !node.get(field).isNull() ? node.get(field).asText() : null;
+    }
+
+    private String getTextOrDefault(JsonNode node, String field, String defaultValue) {
+        String value = getTextOrNull(node, field);
+        return value != null ? value : defaultValue;
+    }
+
+    private Long getLongOrNull(JsonNode node, String field) {
+        return node.has(field) && !node.get(field).isNull() ? node.get(field).asLong() : null;
+    }
+
+    private Instant parseInstant(JsonNode node, String field) {
+        if (node.has(field) && !node.get(field).isNull()) {
+            try {
+                return Instant.parse(node.get(field).asText());
+            } catch (Exception e) {
+                // fall through
+            }
+        }
+        return Instant.now();
+    }
+}
@@ -0,0 +1,88 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.entity.AuditEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event hashing and verification cost per hash format version.
+ * Run with -prof gc to compare allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HashChainServiceBenchmark {
+
+    @Param({"1", "2"})
+    private int hashVersion;
+
+    // Number of entries in detailsJson
+    @Param({"0", "8"})
+    private int detailsSize;
+
+    private HashChainService hashChainService;
+    private AuditEvent event;
+    private String prevHash;
+
+    @Setup
+    public void setUp() {
+        hashChainService = new HashChainService("GENESIS_HASH_EHR_PLATFORM_2026", hashVersion);
+        prevHash = hashChainService.getGenesisHash(0);
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        for (int i = detailsSize; i > 0; i--) {
+            details.put("field" + i, "value-" + i);
+        }
+        event = AuditEvent.builder()
+                .id(1L)
+                .occurredAt(Instant.parse("2026-03-01T10:15:30.123Z"))
+                .receivedAt(Instant.parse("2026-03-01T10:15:30.456Z"))
+                .sourceService("ehr-service")
+                .sourceInstance("ehr-service-7c9f")
+                .eventType("RECORD_VIEWED")
+                .outcome("SUCCESS")
+                .severity("INFO")
+                .actorUserId(1042L)
+                .actorRole("DOCTOR")
+                .actorEmail("dr.house@example.org")
+                .ip("10.12.0.41")
+                .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
+                .sessionId("b7f3c2d4-5e6f-4a1b-9c8d-7e6f5a4b3c2d")
+                .patientId(88231L)
+                .recordId(551203L)
+                .requestId("ehr-audit:3:1882301")
+                .traceId("4bf92f3577b34da6a3ce929d0e0e4736")
+                .spanId("00f067aa0ba902b7")
+                .detailsJson(details)
+                .hashVersion(hashVersion)
+                .build();
+        event.setEventHash(hashChainService.computeEventHash(prevHash, event));
+    }
+
+    @Benchmark
+    public String hash() {
+        return hashChainService.computeEventHash(prevHash, event);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hashChainService.verifyEventHash(prevHash, event);
+    }
+}
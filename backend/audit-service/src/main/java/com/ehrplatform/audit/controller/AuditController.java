@@ -2,16 +2,24 @@ package com.ehrplatform.audit.controller;
 
 import com.ehrplatform.audit.dto.*;
 import com.ehrplatform.audit.entity.AuditEvent;
+import com.ehrplatform.audit.kafka.DltReplayService;
 import com.ehrplatform.audit.service.AuditEventStoreService;
+import com.ehrplatform.audit.service.AuditExportService;
+import com.ehrplatform.audit.service.AuditRollupService;
+import com.ehrplatform.audit.service.CheckpointService;
 import com.ehrplatform.audit.service.IntegrityVerificationService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Instant;
 
@@ -28,6 +36,10 @@ public class AuditController {
 
     private final AuditEventStoreService auditEventStoreService;
     private final IntegrityVerificationService integrityVerificationService;
+    private final CheckpointService checkpointService;
+    private final AuditRollupService auditRollupService;
+    private final AuditExportService auditExportService;
+    private final DltReplayService dltReplayService;
 
     /**
      * Query audit events with filters and pagination.
@@ -80,6 +92,128 @@ public class AuditController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Query audit events with filters in cursor mode: no total count, constant cost per page.
+     * 
+     * GET /admin/audit/events?paging=cursor&eventType=...&size=50[&cursor=...]
+     */
+    @GetMapping(value = "/events", params = "paging=cursor")
+    public ResponseEntity<AuditEventCursorPage> queryEventsByCursor(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant toDate,
+            @RequestParam(required = false) String sourceService,
+            @RequestParam(required = false) String eventType,
+            @RequestParam(required = false) String outcome,
+            @RequestParam(required = false) String severity,
+            @RequestParam(required = false) Long actorUserId,
+            @RequestParam(required = false) String actorEmail,
+            @RequestParam(required = false) String actorRole,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) Long recordId,
+            @RequestParam(required = false) Long targetUserId,
+            @RequestParam(required = false) String ip,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "DESC") String sortDirection
+    ) {
+        AuditQueryRequest request = AuditQueryRequest.builder()
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .sourceService(sourceService)
+                .eventType(eventType)
+                .outcome(outcome)
+                .severity(severity)
+                .actorUserId(actorUserId)
+                .actorEmail(actorEmail)
+                .actorRole(actorRole)
+                .patientId(patientId)
+                .recordId(recordId)
+                .targetUserId(targetUserId)
+                .ip(ip)
+                .cursor(cursor)
+                .size(size)
+                .sortDirection(sortDirection)
+                .build();
+
+        return ResponseEntity.ok(auditEventStoreService.queryEventsByCursor(request));
+    }
+
+    /**
+     * Export all audit events matching the filters, in ID order, as NDJSON or CSV.
+     * Streamed from the database in constant memory, with prevHash and eventHash for offline verification.
+     * 
+     * GET /admin/audit/events/export?format=ndjson&gzip=true&fromDate=...&toDate=...
+     */
+    @GetMapping("/events/export")
+    public ResponseEntity<StreamingResponseBody> exportEvents(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant toDate,
+            @RequestParam(required = false) String sourceService,
+            @RequestParam(required = false) String eventType,
+            @RequestParam(required = false) String outcome,
+            @RequestParam(required = false) String severity,
+            @RequestParam(required = false) Long actorUserId,
+            @RequestParam(required = false) String actorEmail,
+            @RequestParam(required = false) String actorRole,
+            @RequestParam(required = false) Long patientId,
+            @RequestParam(required = false) Long recordId,
+            @RequestParam(required = false) Long targetUserId,
+            @RequestParam(required = false) String ip,
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(defaultValue = "false") boolean gzip
+    ) {
+        AuditQueryRequest request = AuditQueryRequest.builder()
+                .fromDate(fromDate)
+                .toDate(toDate)
+                .sourceService(sourceService)
+                .eventType(eventType)
+                .outcome(outcome)
+                .severity(severity)
+                .actorUserId(actorUserId)
+                .actorEmail(actorEmail)
+                .actorRole(actorRole)
+                .patientId(patientId)
+                .recordId(recordId)
+                .targetUserId(targetUserId)
+                .ip(ip)
+                .build();
+        String exportFormat = auditExportService.checkFormat(format);
+
+        String fileName = "audit-events-" + Instant.now().toEpochMilli() + "." + exportFormat + (gzip ? ".gz" : "");
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : AuditExportService.CSV.equals(exportFormat) ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        log.info("Starting audit export: format={}, gzip={}", exportFormat, gzip);
+        StreamingResponseBody body = out -> auditExportService.export(request, exportFormat, gzip, out);
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    /**
+     * Event counts for dashboards, read from the rollup tables.
+     * Defaults to the last 24 hours at the finest granularity that fits.
+     * 
+     * GET /admin/audit/stats?fromDate=...&toDate=...&granularity=HOUR&eventType=...&topActors=10
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<AuditStatsResponse> getStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant toDate,
+            @RequestParam(required = false) String granularity,
+            @RequestParam(required = false) String eventType,
+            @RequestParam(required = false) String outcome,
+            @RequestParam(required = false) String sourceService,
+            @RequestParam(required = false) String severity,
+            @RequestParam(defaultValue = "10") int topActors
+    ) {
+        return ResponseEntity.ok(auditRollupService.getStats(fromDate, toDate, granularity,
+                eventType, outcome, sourceService, severity, topActors));
+    }
+
     /**
      * Get a single audit event by ID.
      * 
@@ -93,6 +227,18 @@ public class AuditController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Get the Merkle inclusion proof of a single audit event against its sealed checkpoint.
+     * 
+     * GET /admin/audit/events/{id}/proof
+     */
+    @GetMapping("/events/{id}/proof")
+    public ResponseEntity<InclusionProofResponse> getInclusionProof(@PathVariable Long id) {
+        return checkpointService.buildInclusionProof(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Verify the integrity of the audit hash chain.
      * 
@@ -114,6 +260,64 @@ public class AuditController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Resume a failed or interrupted verification run from its last verified event.
+     * 
+     * POST /admin/audit/verify/{checkRunId}/resume
+     */
+    @PostMapping("/verify/{checkRunId}/resume")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN0')")
+    public ResponseEntity<IntegrityVerifyResponse> resumeVerification(@PathVariable Long checkRunId) {
+        log.info("Resuming integrity verification run {}", checkRunId);
+        IntegrityVerifyResponse result = integrityVerificationService.resumeRun(checkRunId);
+
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Start replaying the dead-letter topics into the audit log in the background.
+     * Answers 409 with the current status if a replay is running or this instance
+     * is not the chain writer.
+     *
+     * POST /admin/audit/dlt/replay?dryRun=true&batchSize=500&ratePerSecond=1000
+     */
+    @PostMapping("/dlt/replay")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN0')")
+    public ResponseEntity<DltReplayStatus> startDltReplay(
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            @RequestParam(required = false) Integer batchSize,
+            @RequestParam(required = false) Integer ratePerSecond
+    ) {
+        if (!dltReplayService.start(dryRun, batchSize, ratePerSecond)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(dltReplayService.getStatus());
+        }
+        return ResponseEntity.accepted().body(dltReplayService.getStatus());
+    }
+
+    /**
+     * Progress of the current or last dead-letter replay on this instance.
+     *
+     * GET /admin/audit/dlt/replay
+     */
+    @GetMapping("/dlt/replay")
+    public ResponseEntity<DltReplayStatus> getDltReplayStatus() {
+        return ResponseEntity.ok(dltReplayService.getStatus());
+    }
+
+    /**
+     * Stop the running dead-letter replay after its current batch.
+     *
+     * POST /admin/audit/dlt/replay/cancel
+     */
+    @PostMapping("/dlt/replay/cancel")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'ADMIN0')")
+    public ResponseEntity<DltReplayStatus> cancelDltReplay() {
+        if (!dltReplayService.cancel()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(dltReplayService.getStatus());
+        }
+        return ResponseEntity.accepted().body(dltReplayService.getStatus());
+    }
+
     /**
      * Get event types summary.
      * 
@@ -0,0 +1,24 @@
+package com.ehrplatform.audit.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of audit events in cursor mode.
+ * Carries no total count; pass nextCursor back to fetch the following page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditEventCursorPage {
+
+    private List<AuditEventResponse> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;  // null on the last page
+}
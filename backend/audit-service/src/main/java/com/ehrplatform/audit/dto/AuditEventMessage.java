@@ -2,6 +2,7 @@ package com.ehrplatform.audit.dto;
 
 import com.fasterxml.jackson.annotation.JsonAlias;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -154,6 +155,13 @@ public class AuditEventMessage {
      */
     private Map<String, Object> details;
 
+    /**
+     * Kafka partition the message was consumed from (set by the consumer, never by producers).
+     * Used to pick the hash chain when audit.chain.strategy=partition.
+     */
+    @JsonIgnore
+    private Integer kafkaPartition;
+
     // ========== Helper Methods for Normalization ==========
 
     /**
@@ -54,4 +54,5 @@ public class AuditEventResponse {
 
     private String prevHash;
     private String eventHash;
+    private Integer hashVersion;
 }
@@ -45,4 +45,7 @@ public class AuditQueryRequest {
 
     @Builder.Default
     private String sortDirection = "DESC";
+
+    // Cursor mode only: opaque position returned as nextCursor by the previous page
+    private String cursor;
 }
@@ -0,0 +1,60 @@
+package com.ehrplatform.audit.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Event counts from the rollup tables for dashboards.
+ * The range is widened to whole buckets of the chosen granularity.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditStatsResponse {
+
+    private String granularity;  // MINUTE, HOUR or DAY
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Instant fromDate;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Instant toDate;
+
+    private long totalEvents;
+
+    private List<Bucket> buckets;
+
+    // Most active actors over the whole range
+    private List<ActorActivity> topActors;
+
+    /**
+     * Count of one eventType x outcome x sourceService x severity combination in one bucket.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Bucket {
+        @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+        private Instant bucketStart;
+        private String eventType;
+        private String outcome;
+        private String sourceService;
+        private String severity;
+        private long count;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ActorActivity {
+        private Long actorUserId;
+        private long count;
+    }
+}
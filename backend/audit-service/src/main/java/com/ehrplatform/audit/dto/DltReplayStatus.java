@@ -0,0 +1,41 @@
+package com.ehrplatform.audit.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of the current or last dead-letter replay.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DltReplayStatus {
+
+    private String state;  // IDLE | RUNNING | COMPLETED | CANCELLED | FAILED
+
+    private boolean leader;  // replays only start on the chain writer
+    private boolean dryRun;
+    private Integer batchSize;
+    private Integer ratePerSecond;
+
+    private Long totalRecords;  // in the DLT topics when the replay started
+    private Long processedRecords;
+    private Long storedRecords;
+    private Long duplicateRecords;  // already stored; in a dry run, would be skipped
+    private Long invalidRecords;    // cannot be decoded or have no eventType
+    private Double recordsPerSecond;
+
+    private String error;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Instant startedAt;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Instant finishedAt;
+}
@@ -0,0 +1,57 @@
+package com.ehrplatform.audit.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Merkle inclusion proof for a single audit event against its sealed checkpoint.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InclusionProofResponse {
+
+    private Long eventId;
+    private Integer chainId;
+
+    private String status;  // VALID, INVALID, NOT_SEALED or PARTIALLY_ARCHIVED
+
+    // Stored hash and the hash recomputed from the event's content
+    private String eventHash;
+    private String recomputedHash;
+
+    private Long checkpointId;
+    private Long blockFromEventId;
+    private Long blockToEventId;
+    private Integer leafIndex;
+
+    // Sealed root, and the root recomputed from the proof path
+    private String merkleRoot;
+    private String proofRoot;
+    private String blockLastEventHash;
+
+    private List<ProofStep> proof;
+
+    private String failReason;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Instant sealedAt;
+
+    /**
+     * One level of the proof path: the sibling hash and which side it sits on.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProofStep {
+        private String hash;
+        private String position;  // LEFT or RIGHT
+    }
+}
@@ -0,0 +1,13 @@
+package com.ehrplatform.audit.dto;
+
+/**
+ * Bucket sizes of the audit rollup tables.
+ */
+public final class RollupGranularity {
+
+    private RollupGranularity() {}
+
+    public static final String MINUTE = "MINUTE";
+    public static final String HOUR = "HOUR";
+    public static final String DAY = "DAY";
+}
@@ -0,0 +1,85 @@
+package com.ehrplatform.audit.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * JPA entity for audit_archive_segment table.
+ * Index entry of one compressed segment file of archived audit events,
+ * with the min/max values used to prune segments at query time.
+ */
+@Entity
+@Table(name = "audit_archive_segment")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "partition_name", nullable = false, length = 64)
+    private String partitionName;
+
+    @Column(name = "chain_id", nullable = false)
+    private Integer chainId;
+
+    // Relative to audit.archive.directory
+    @Column(name = "file_name", nullable = false, length = 255)
+    private String fileName;
+
+    // Absolute location the file was written to; null for segments archived before V12
+    @Column(name = "storage_uri", length = 512)
+    private String storageUri;
+
+    @Column(name = "file_sha256", nullable = false, length = 64)
+    private String fileSha256;
+
+    @Column(name = "event_count", nullable = false)
+    private Integer eventCount;
+
+    @Column(name = "from_event_id", nullable = false)
+    private Long fromEventId;
+
+    @Column(name = "to_event_id", nullable = false)
+    private Long toEventId;
+
+    @Column(name = "min_occurred_at", nullable = false)
+    private Instant minOccurredAt;
+
+    @Column(name = "max_occurred_at", nullable = false)
+    private Instant maxOccurredAt;
+
+    @Column(name = "min_actor_user_id")
+    private Long minActorUserId;
+
+    @Column(name = "max_actor_user_id")
+    private Long maxActorUserId;
+
+    @Column(name = "min_patient_id")
+    private Long minPatientId;
+
+    @Column(name = "max_patient_id")
+    private Long maxPatientId;
+
+    @Column(name = "first_prev_hash", nullable = false, length = 64)
+    private String firstPrevHash;
+
+    @Column(name = "last_event_hash", nullable = false, length = 64)
+    private String lastEventHash;
+
+    // Set once the source partition is dropped; only sealed segments are queried
+    @Column(name = "sealed", nullable = false)
+    @Builder.Default
+    private Boolean sealed = false;
+}
@@ -0,0 +1,48 @@
+package com.ehrplatform.audit.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * JPA entity for audit_checkpoint table.
+ * A sealed block of consecutive events of one chain: the Merkle root over
+ * their event hashes plus the hash of the last event in the block.
+ */
+@Entity
+@Table(name = "audit_checkpoint")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "chain_id", nullable = false)
+    private Integer chainId;
+
+    @Column(name = "from_event_id", nullable = false)
+    private Long fromEventId;
+
+    @Column(name = "to_event_id", nullable = false)
+    private Long toEventId;
+
+    @Column(name = "event_count", nullable = false)
+    private Integer eventCount;
+
+    @Column(name = "merkle_root", nullable = false, length = 64)
+    private String merkleRoot;
+
+    @Column(name = "last_event_hash", nullable = false, length = 64)
+    private String lastEventHash;
+}
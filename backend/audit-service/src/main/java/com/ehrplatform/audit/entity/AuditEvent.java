@@ -99,9 +99,18 @@ public class AuditEvent {
     private Map<String, Object> detailsJson;
 
     // Tamper-evident chain
+    @Column(name = "chain_id", nullable = false)
+    @Builder.Default
+    private Integer chainId = 0;
+
     @Column(name = "prev_hash", nullable = false, length = 64)
     private String prevHash;
 
     @Column(name = "event_hash", nullable = false, length = 64)
     private String eventHash;
+
+    // Hash format the event was chained with (see HashChainService)
+    @Column(name = "hash_version", nullable = false)
+    @Builder.Default
+    private Integer hashVersion = 1;
 }
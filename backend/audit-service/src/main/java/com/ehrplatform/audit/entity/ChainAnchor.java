@@ -0,0 +1,45 @@
+package com.ehrplatform.audit.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * JPA entity for audit_chain_anchor table.
+ * Hash of an event removed by partition retention that a retained event
+ * of the same chain links to, so the chain stays verifiable after the drop.
+ */
+@Entity
+@Table(name = "audit_chain_anchor")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChainAnchor {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "chain_id", nullable = false)
+    private Integer chainId;
+
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "event_hash", nullable = false, length = 64)
+    private String eventHash;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    @Column(name = "pruned_at", nullable = false)
+    private Instant prunedAt;
+
+    @Column(name = "partition_name", nullable = false, length = 64)
+    private String partitionName;
+}
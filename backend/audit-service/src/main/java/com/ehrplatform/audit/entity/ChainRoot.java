@@ -0,0 +1,48 @@
+package com.ehrplatform.audit.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * JPA entity for audit_chain_root table.
+ * Periodic combined root over the heads of all hash chains, so that
+ * independent chains stay tied together for tamper evidence.
+ */
+@Entity
+@Table(name = "audit_chain_root")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChainRoot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Highest audit_event.id covered by this root
+    @Column(name = "last_event_id", nullable = false)
+    private Long lastEventId;
+
+    // chainId -> head event hash at sealing time
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "chain_heads_json", columnDefinition = "JSON", nullable = false)
+    private Map<String, String> chainHeadsJson;
+
+    @Column(name = "prev_root_hash", nullable = false, length = 64)
+    private String prevRootHash;
+
+    @Column(name = "root_hash", nullable = false, length = 64)
+    private String rootHash;
+}
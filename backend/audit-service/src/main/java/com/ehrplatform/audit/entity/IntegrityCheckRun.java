@@ -36,12 +36,19 @@ public class IntegrityCheckRun {
     @Column(name = "to_event_id", nullable = false)
     private Long toEventId;
 
+    @Column(name = "run_type", nullable = false, length = 16)
+    @Builder.Default
+    private String runType = "MANUAL";  // MANUAL or INCREMENTAL
+
     @Column(name = "status", nullable = false, length = 16)
     private String status;  // OK or FAIL
 
     @Column(name = "last_verified_event_id")
     private Long lastVerifiedEventId;
 
+    @Column(name = "last_verified_hash", length = 64)
+    private String lastVerifiedHash;
+
     @Column(name = "expected_hash", length = 64)
     private String expectedHash;
 
@@ -2,31 +2,111 @@ package com.ehrplatform.audit.kafka;
 
 import com.ehrplatform.audit.dto.AlertMessage;
 import com.ehrplatform.audit.entity.Alert;
-import lombok.RequiredArgsConstructor;
+import com.ehrplatform.audit.repository.AlertOutboxJdbcRepository;
+import com.ehrplatform.audit.repository.AlertOutboxJdbcRepository.Entry;
+import com.ehrplatform.audit.repository.AlertRepository;
+import com.ehrplatform.audit.service.ChainWriterLeadership;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.concurrent.CompletableFuture;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for publishing alerts to Kafka.
  * Notification-service consumes these alerts to send notifications.
+ *
+ * Each alert is written to alert_outbox in the transaction that saves it and sent
+ * after commit, so the detection transaction never waits on Kafka. At most
+ * max-in-flight sends are outstanding; when the window is full, or a send fails,
+ * the alert stays in the outbox and the relay sends it later. Delivery is
+ * at-least-once: a slow acknowledgement can race a relay re-send.
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class AlertPublisher {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final AlertOutboxJdbcRepository alertOutboxJdbcRepository;
+    private final AlertRepository alertRepository;
+    private final ChainWriterLeadership chainWriterLeadership;
+    private final String alertsTopic;
+    private final Duration relayDelay;
+    private final Duration maxRelayBackoff;
+    private final int relayBatchSize;
+    private final long syncTimeoutMillis;
+    private final Semaphore inFlight;
 
-    @Value("${audit.alerts.kafka.topic:alerts}")
-    private String alertsTopic;
+    // Alerts acknowledged by Kafka, deleted from the outbox in batches by the relay
+    private final Queue<Long> delivered = new ConcurrentLinkedQueue<>();
+    private final AtomicLong outboxPending = new AtomicLong();
+
+    private final Timer sendLatency;
+    private final Counter sent;
+    private final Counter failed;
+    private final Counter deferred;
+
+    public AlertPublisher(KafkaTemplate<String, Object> kafkaTemplate,
+                          AlertOutboxJdbcRepository alertOutboxJdbcRepository,
+                          AlertRepository alertRepository,
+                          ChainWriterLeadership chainWriterLeadership,
+                          MeterRegistry meterRegistry,
+                          @Value("${audit.alerts.kafka.topic:alerts}") String alertsTopic,
+                          @Value("${audit.alerts.kafka.max-in-flight:256}") int maxInFlight,
+                          @Value("${audit.alerts.kafka.sync-timeout-ms:5000}") long syncTimeoutMillis,
+                          @Value("${audit.alerts.kafka.outbox.relay-delay-seconds:60}") int relayDelaySeconds,
+                          @Value("${audit.alerts.kafka.outbox.max-backoff-seconds:600}") int maxBackoffSeconds,
+                          @Value("${audit.alerts.kafka.outbox.batch-size:500}") int relayBatchSize) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.alertOutboxJdbcRepository = alertOutboxJdbcRepository;
+        this.alertRepository = alertRepository;
+        this.chainWriterLeadership = chainWriterLeadership;
+        this.alertsTopic = alertsTopic;
+        this.syncTimeoutMillis = syncTimeoutMillis;
+        this.relayDelay = Duration.ofSeconds(relayDelaySeconds);
+        this.maxRelayBackoff = Duration.ofSeconds(maxBackoffSeconds);
+        this.relayBatchSize = relayBatchSize;
+        this.inFlight = new Semaphore(maxInFlight);
+
+        this.sendLatency = Timer.builder("audit.alerts.publish.latency")
+                .description("Time from send to Kafka acknowledgement")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.sent = publishCounter(meterRegistry, "sent");
+        this.failed = publishCounter(meterRegistry, "failed");
+        this.deferred = publishCounter(meterRegistry, "deferred");
+        Gauge.builder("audit.alerts.publish.in-flight", () -> maxInFlight - inFlight.availablePermits())
+                .description("Alert sends awaiting acknowledgement")
+                .register(meterRegistry);
+        Gauge.builder("audit.alerts.outbox.pending", outboxPending::get)
+                .description("Alerts in the outbox at the last relay run")
+                .register(meterRegistry);
+    }
 
     /**
      * Publish an alert to Kafka for notification-service to consume.
+     * Call in the transaction that saves the alert: the outbox row commits with it,
+     * and the send starts only after commit.
      *
      * @param alert The alert entity to publish
      */
@@ -36,37 +116,24 @@ public class AlertPublisher {
             return;
         }
 
-        AlertMessage message = AlertMessage.fromAlert(alert);
-        String key = alert.getAlertType() + "-" + alert.getId();
-
-        try {
-            CompletableFuture<SendResult<String, Object>> future = 
-                    kafkaTemplate.send(alertsTopic, key, message);
-
-            future.whenComplete((result, ex) -> {
-                if (ex != null) {
-                    log.error("Failed to publish alert to Kafka: alertId={}, alertType={}, error={}",
-                            alert.getId(), alert.getAlertType(), ex.getMessage());
-                } else {
-                    log.info("Published alert to Kafka: alertId={}, alertType={}, severity={}, topic={}, partition={}, offset={}",
-                            alert.getId(),
-                            alert.getAlertType(),
-                            alert.getSeverity(),
-                            result.getRecordMetadata().topic(),
-                            result.getRecordMetadata().partition(),
-                            result.getRecordMetadata().offset());
-                }
-            });
+        Instant now = Instant.now();
+        alertOutboxJdbcRepository.insert(alert.getId(), now, now.plus(relayDelay));
 
-        } catch (Exception e) {
-            log.error("Error publishing alert to Kafka: alertId={}, alertType={}",
-                    alert.getId(), alert.getAlertType(), e);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            trySend(alert);
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                trySend(alert);
+            }
+        });
     }
 
     /**
      * Publish an alert synchronously (blocks until acknowledged or timeout).
-     * Use this when you need to ensure the alert was published before proceeding.
+     * Does not use the outbox; for callers that handle the failure themselves.
      *
      * @param alert The alert entity to publish
      * @return true if published successfully, false otherwise
@@ -77,11 +144,12 @@ public class AlertPublisher {
             return false;
         }
 
-        AlertMessage message = AlertMessage.fromAlert(alert);
-        String key = alert.getAlertType() + "-" + alert.getId();
-
+        long started = System.nanoTime();
         try {
-            SendResult<String, Object> result = kafkaTemplate.send(alertsTopic, key, message).get();
+            SendResult<String, Object> result = kafkaTemplate.send(alertsTopic, key(alert), AlertMessage.fromAlert(alert))
+                    .get(syncTimeoutMillis, TimeUnit.MILLISECONDS);
+            sendLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            sent.increment();
             log.info("Published alert synchronously to Kafka: alertId={}, alertType={}, severity={}, offset={}",
                     alert.getId(),
                     alert.getAlertType(),
@@ -90,9 +158,109 @@ public class AlertPublisher {
             return true;
 
         } catch (Exception e) {
+            failed.increment();
             log.error("Error publishing alert synchronously to Kafka: alertId={}, alertType={}",
                     alert.getId(), alert.getAlertType(), e);
             return false;
         }
     }
+
+    /**
+     * Scheduled job to clear delivered alerts from the outbox and re-send the ones
+     * still unconfirmed after relay-delay, backing off on repeated failures
+     */
+    @Scheduled(fixedDelayString = "${audit.alerts.kafka.outbox.relay-interval:5000}")
+    public void relayOutbox() {
+        try {
+            List<Long> confirmed = new ArrayList<>();
+            for (Long alertId = delivered.poll(); alertId != null; alertId = delivered.poll()) {
+                confirmed.add(alertId);
+            }
+            alertOutboxJdbcRepository.deleteAll(confirmed);
+
+            // Only the leader raises alerts, so only it re-sends them
+            if (!chainWriterLeadership.isLeader()) {
+                return;
+            }
+
+            Instant now = Instant.now();
+            List<Entry> due = alertOutboxJdbcRepository.findDue(now, relayBatchSize);
+            if (!due.isEmpty()) {
+                Map<Long, Alert> alerts = alertRepository.findAllById(due.stream().map(Entry::alertId).toList())
+                        .stream()
+                        .collect(Collectors.toMap(Alert::getId, Function.identity()));
+
+                List<Entry> attempted = new ArrayList<>(due.size());
+                for (Entry entry : due) {
+                    Alert alert = alerts.get(entry.alertId());
+                    if (alert == null || !trySend(alert)) {
+                        break;
+                    }
+                    attempted.add(entry);
+                }
+                alertOutboxJdbcRepository.reschedule(attempted, entry -> now.plus(backoff(entry.attempts())));
+                log.info("Relayed {} of {} due alerts from the outbox", attempted.size(), due.size());
+            }
+            outboxPending.set(alertOutboxJdbcRepository.countPending());
+        } catch (Exception e) {
+            log.error("Error relaying the alert outbox", e);
+        }
+    }
+
+    /**
+     * Start an asynchronous send if the in-flight window has room.
+     *
+     * @return false if the window was full and the alert was left to the relay
+     */
+    private boolean trySend(Alert alert) {
+        if (!inFlight.tryAcquire()) {
+            deferred.increment();
+            log.debug("Alert send window full, leaving alertId={} to the outbox relay", alert.getId());
+            return false;
+        }
+
+        long started = System.nanoTime();
+        try {
+            kafkaTemplate.send(alertsTopic, key(alert), AlertMessage.fromAlert(alert)).whenComplete((result, ex) -> {
+                inFlight.release();
+                sendLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                if (ex != null) {
+                    failed.increment();
+                    log.warn("Failed to publish alert to Kafka, the outbox relay will retry: alertId={}, alertType={}, error={}",
+                            alert.getId(), alert.getAlertType(), ex.getMessage());
+                } else {
+                    sent.increment();
+                    delivered.add(alert.getId());
+                    log.debug("Published alert to Kafka: alertId={}, alertType={}, partition={}, offset={}",
+                            alert.getId(),
+                            alert.getAlertType(),
+                            result.getRecordMetadata().partition(),
+                            result.getRecordMetadata().offset());
+                }
+            });
+            return true;
+        } catch (Exception e) {
+            inFlight.release();
+            failed.increment();
+            log.warn("Error publishing alert to Kafka, the outbox relay will retry: alertId={}, alertType={}, error={}",
+                    alert.getId(), alert.getAlertType(), e.getMessage());
+            return true;
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = relayDelay.multipliedBy(1L << Math.min(attempts, 16));
+        return delay.compareTo(maxRelayBackoff) < 0 ? delay : maxRelayBackoff;
+    }
+
+    private static String key(Alert alert) {
+        return alert.getAlertType() + "-" + alert.getId();
+    }
+
+    private static Counter publishCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("audit.alerts.publish")
+                .description("Alert sends by outcome; deferred sends are left to the outbox relay")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
 }
@@ -2,40 +2,59 @@ package com.ehrplatform.audit.kafka;
 
 import com.ehrplatform.audit.dto.AuditEventMessage;
 import com.ehrplatform.audit.entity.AuditEvent;
+import com.ehrplatform.audit.kafka.normalizer.AuditPayloadNormalizers;
 import com.ehrplatform.audit.service.AlertDetectionService;
 import com.ehrplatform.audit.service.AuditEventStoreService;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ehrplatform.audit.service.ChainWriterLeadership.LeaseLostException;
+import com.ehrplatform.audit.service.IngestMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Kafka consumer for multiple topics from care-service.
- * Consumes from 'audit-events', 'user-registered', 'patient-assign' topics.
- * Normalizes different payload formats to AuditEventMessage before storing.
+ * Consumes every topic with a registered payload normalizer ('audit-events',
+ * 'user-registered', 'patient-assign') and decodes each payload with it before storing.
+ * Runs in batch mode by default (audit.kafka.consumer.batch-enabled); the
+ * per-record listener is kept for troubleshooting.
+ *
+ * Neither listener starts with the context: ChainWriterLeadership starts the
+ * configured one on the elected instance only. Records reaching an instance
+ * that has just lost the lease are nacked and redelivered to the new leader.
  */
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class AuditEventConsumer {
 
+    public static final String RECORD_LISTENER_ID = "audit-events-record";
+    public static final String BATCH_LISTENER_ID = "audit-events-batch";
+
+    private static final Duration LEASE_LOST_NACK_SLEEP = Duration.ofSeconds(1);
+
     private final AuditEventStoreService auditEventStoreService;
     private final AlertDetectionService alertDetectionService;
-    private final ObjectMapper objectMapper;
+    private final AuditPayloadNormalizers payloadNormalizers;
+    private final IngestMetrics ingestMetrics;
 
+    /**
+     * Per-record listener, used when batch ingestion is disabled.
+     */
     @KafkaListener(
-            topics = {"audit-events", "user-registered", "patient-assign"},
+            id = RECORD_LISTENER_ID,
+            idIsGroup = false,
+            topics = "#{@auditPayloadNormalizers.topics()}",
             groupId = "${spring.kafka.consumer.group-id}",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "false"
     )
     public void consume(ConsumerRecord<String, String> record, Acknowledgment ack) {
         String topic = record.topic();
@@ -45,12 +64,11 @@ public class AuditEventConsumer {
                 topic, record.offset(), record.key(), payload);
 
         try {
-            // Parse JSON payload
-            JsonNode jsonNode = objectMapper.readTree(payload);
-            
-            // Normalize payload based on topic
-            AuditEventMessage message = normalizePayload(topic, jsonNode);
-            
+            // Decode with the topic's normalizer
+            long started = System.nanoTime();
+            AuditEventMessage message = payloadNormalizers.normalize(record);
+            ingestMetrics.recordStage(IngestMetrics.NORMALIZE, started);
+
             if (message == null || message.getEventType() == null || message.getEventType().isEmpty()) {
                 log.warn("Skipping message with no eventType: topic={}, offset={}", topic, record.offset());
                 ack.acknowledge();
@@ -59,16 +77,26 @@ public class AuditEventConsumer {
 
             // Store the event with hash chaining
             AuditEvent storedEvent = auditEventStoreService.storeEvent(message);
+            if (storedEvent == null) {
+                log.debug("Skipping duplicate of an archived event: topic={}, offset={}", topic, record.offset());
+                ack.acknowledge();
+                return;
+            }
             
             // Check for immediate alerts
+            started = System.nanoTime();
             alertDetectionService.checkImmediateAlerts(storedEvent);
+            ingestMetrics.recordStage(IngestMetrics.ALERT_CHECK, started);
 
             // Acknowledge successful processing
             ack.acknowledge();
             
-            log.info("Successfully processed: topic={}, id={}, eventType={}, patientId={}",
+            log.debug("Successfully processed: topic={}, id={}, eventType={}, patientId={}",
                     topic, storedEvent.getId(), storedEvent.getEventType(), storedEvent.getPatientId());
 
+        } catch (LeaseLostException e) {
+            log.warn("Not the chain writer anymore, handing back offset {}: {}", record.offset(), e.getMessage());
+            ack.nack(LEASE_LOST_NACK_SLEEP);
         } catch (Exception e) {
             log.error("Error processing message: topic={}, offset={}, error={}", 
                     topic, record.offset(), e.getMessage(), e);
@@ -78,90 +106,64 @@ public class AuditEventConsumer {
     }
 
     /**
-     * Normalize different topic payloads to AuditEventMessage format.
+     * Batch listener: receives a whole poll, stores it with one deduplication query and
+     * one JDBC batch insert, then runs the immediate alert checks for the new events.
      */
-    private AuditEventMessage normalizePayload(String topic, JsonNode node) {
-        AuditEventMessage msg = AuditEventMessage.builder()
-                .requestId(getTextOrDefault(node, "requestId", UUID.randomUUID().toString()))
-                .occurredAt(parseInstant(node, "occurredAt"))
-                .sourceService(getTextOrDefault(node, "sourceService", "care-service"))
-                .severity(getTextOrDefault(node, "severity", "INFO"))
-                .outcome(getTextOrDefault(node, "outcome", "SUCCESS"))
-                .build();
-
-        Map<String, Object> details = new HashMap<>();
-
-        switch (topic) {
-            case "audit-events":
-                // Direct mapping for audit-events topic
-                msg.setEventType(getTextOrNull(node, "eventType"));
-                msg.setPatientId(getLongOrNull(node, "patientId"));
-                msg.setDoctorUserId(getLongOrNull(node, "doctorUserId"));
-                msg.setRole(getTextOrNull(node, "role"));
-                msg.setActorUserId(getLongOrNull(node, "actorUserId"));
-                msg.setActorEmail(getTextOrNull(node, "actorEmail"));
-                msg.setIp(getTextOrNull(node, "ip"));
-                break;
-
-            case "user-registered":
-                // Normalize user-registered payload
-                msg.setEventType("USER_REGISTERED");
-                msg.setActorEmail(getTextOrNull(node, "userEmail"));
-                msg.setRole(getTextOrNull(node, "role"));
-                
-                // Store original payload as details
-                details.put("userName", getTextOrNull(node, "userName"));
-                details.put("userEmail", getTextOrNull(node, "userEmail"));
-                details.put("role", getTextOrNull(node, "role"));
-                msg.setDetails(details);
-                break;
-
-            case "patient-assign":
-                // Normalize patient-assign payload
-                msg.setEventType("PATIENT_ASSIGNED");
-                msg.setPatientId(getLongOrNull(node, "patientId"));
-                msg.setDoctorUserId(getLongOrNull(node, "doctorId"));
-                
-                // Store original payload as details
-                details.put("patientId", getLongOrNull(node, "patientId"));
-                details.put("patientName", getTextOrNull(node, "patientName"));
-                details.put("doctorId", getLongOrNull(node, "doctorId"));
-                details.put("doctorEmail", getTextOrNull(node, "doctorEmail"));
-                msg.setDetails(details);
-                
-                // Set actor as doctor
-                msg.setActorEmail(getTextOrNull(node, "doctorEmail"));
-                break;
-
-            default:
-                log.warn("Unknown topic: {}", topic);
-                return null;
-        }
+    @KafkaListener(
+            id = BATCH_LISTENER_ID,
+            idIsGroup = false,
+            topics = "#{@auditPayloadNormalizers.topics()}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "false"
+    )
+    public void consumeBatch(List<ConsumerRecord<String, String>> records, Acknowledgment ack) {
+        log.debug("Received batch: size={}", records.size());
+        ingestMetrics.recordBatchSize(records.size());
 
-        return msg;
+        try {
+            storeBatch(records);
+        } catch (LeaseLostException e) {
+            log.warn("Not the chain writer anymore, handing back {} records: {}", records.size(), e.getMessage());
+            ack.nack(0, LEASE_LOST_NACK_SLEEP);
+            return;
+        }
+        ack.acknowledge();
     }
 
-    private String getTextOrNull(JsonNode node, String field) {
-        return node.has(field) && !node.get(field).isNull() ? node.get(field).asText() : null;
-    }
+    private void storeBatch(List<ConsumerRecord<String, String>> records) {
+        long started = System.nanoTime();
+        List<AuditEventMessage> messages = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, String> record = records.get(i);
+            try {
+                AuditEventMessage message = payloadNormalizers.normalize(record);
+                if (message == null || message.getEventType() == null || message.getEventType().isEmpty()) {
+                    log.warn("Skipping message with no eventType: topic={}, offset={}", record.topic(), record.offset());
+                    continue;
+                }
+                messages.add(message);
+            } catch (Exception e) {
+                log.error("Error parsing message: topic={}, offset={}, error={}",
+                        record.topic(), record.offset(), e.getMessage(), e);
+                // Store what precedes the bad record - the error handler commits those offsets
+                storeAndCheckAlerts(messages);
+                throw new BatchListenerFailedException("Failed to parse record", e, i);
+            }
+        }
 
-    private String getTextOrDefault(JsonNode node, String field, String defaultValue) {
-        String value = getTextOrNull(node, field);
-        return value != null ? value : defaultValue;
-    }
+        ingestMetrics.recordStage(IngestMetrics.NORMALIZE, started);
+        storeAndCheckAlerts(messages);
 
-    private Long getLongOrNull(JsonNode node, String field) {
-        return node.has(field) && !node.get(field).isNull() ? node.get(field).asLong() : null;
+        log.debug("Successfully processed batch: records={}, stored={}", records.size(), messages.size());
     }
 
-    private Instant parseInstant(JsonNode node, String field) {
-        if (node.has(field) && !node.get(field).isNull()) {
-            try {
-                return Instant.parse(node.get(field).asText());
-            } catch (Exception e) {
-                log.warn("Failed to parse instant from field {}: {}", field, node.get(field).asText());
-            }
+    private void storeAndCheckAlerts(List<AuditEventMessage> messages) {
+        List<AuditEvent> storedEvents = auditEventStoreService.storeBatch(messages);
+        long started = System.nanoTime();
+        for (AuditEvent storedEvent : storedEvents) {
+            alertDetectionService.checkImmediateAlerts(storedEvent);
         }
-        return Instant.now();
+        ingestMetrics.recordStage(IngestMetrics.ALERT_CHECK, started);
     }
 }
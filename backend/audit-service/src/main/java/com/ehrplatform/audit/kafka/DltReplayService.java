@@ -0,0 +1,458 @@
+package com.ehrplatform.audit.kafka;
+
+import com.ehrplatform.audit.dto.AuditEventMessage;
+import com.ehrplatform.audit.dto.DltReplayStatus;
+import com.ehrplatform.audit.entity.AuditEvent;
+import com.ehrplatform.audit.kafka.normalizer.AuditPayloadNormalizers;
+import com.ehrplatform.audit.repository.RequestIdJdbcRepository;
+import com.ehrplatform.audit.service.AlertDetectionService;
+import com.ehrplatform.audit.service.AuditEventStoreService;
+import com.ehrplatform.audit.service.ChainWriterLeadership;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admin-triggered replay of the dead-letter topics (&lt;topic&gt;.DLT) through the normal
+ * normalize-and-store pipeline.
+ *
+ * A replay drains what the DLT topics hold when it starts, in batches, paced to
+ * ratePerSecond. Each record is decoded as if it came from its original topic,
+ * partition and offset (from the DLT headers), so records without a requestId get
+ * the same fallback ID as on first delivery and a replay stays idempotent. Offsets
+ * are committed to a separate consumer group after each stored batch: a replay that
+ * fails or is cancelled resumes where it stopped. Undecodable records are counted
+ * and skipped, and so are records the store rejects again (constraint violations,
+ * invalid values) when a failed batch is retried record by record; any other store
+ * failure fails the run before its batch is committed.
+ *
+ * A dry run decodes and checks for duplicates without storing or committing.
+ * Only the chain writer can replay; one replay runs at a time, on its own thread.
+ */
+@Service
+@Slf4j
+public class DltReplayService {
+
+    public static final String DLT_SUFFIX = ".DLT";
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    // Empty polls in a row before a partition still short of its end offset is given up on
+    private static final int MAX_EMPTY_POLLS = 10;
+
+    private final ConsumerFactory<String, String> consumerFactory;
+    private final AuditPayloadNormalizers payloadNormalizers;
+    private final AuditEventStoreService auditEventStoreService;
+    private final RequestIdJdbcRepository requestIdJdbcRepository;
+    private final AlertDetectionService alertDetectionService;
+    private final ChainWriterLeadership chainWriterLeadership;
+    private final String groupId;
+    private final int defaultBatchSize;
+    private final int defaultRatePerSecond;
+    private final int maxRatePerSecond;
+    private final ExecutorService executor;
+
+    private final Timer batchTimer;
+    private final Counter storedCounter;
+    private final Counter duplicateCounter;
+    private final Counter invalidCounter;
+    private final Counter dryRunCounter;
+    private final AtomicLong remaining = new AtomicLong();
+
+    private volatile Run current;
+
+    /**
+     * Mutable progress of one replay, read by getStatus() from other threads.
+     */
+    private static final class Run {
+        final boolean dryRun;
+        final int batchSize;
+        final int ratePerSecond;
+        final Instant startedAt = Instant.now();
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong stored = new AtomicLong();
+        final AtomicLong duplicates = new AtomicLong();
+        final AtomicLong invalid = new AtomicLong();
+        volatile long total;
+        volatile String state = "RUNNING";
+        volatile String error;
+        volatile Instant finishedAt;
+        volatile boolean cancelled;
+
+        Run(boolean dryRun, int batchSize, int ratePerSecond) {
+            this.dryRun = dryRun;
+            this.batchSize = batchSize;
+            this.ratePerSecond = ratePerSecond;
+        }
+    }
+
+    public DltReplayService(ConsumerFactory<String, String> consumerFactory,
+                            AuditPayloadNormalizers payloadNormalizers,
+                            AuditEventStoreService auditEventStoreService,
+                            RequestIdJdbcRepository requestIdJdbcRepository,
+                            AlertDetectionService alertDetectionService,
+                            ChainWriterLeadership chainWriterLeadership,
+                            MeterRegistry meterRegistry,
+                            @Value("${audit.dlt-replay.group-id:audit-service-dlt-replay}") String groupId,
+                            @Value("${audit.dlt-replay.batch-size:500}") int defaultBatchSize,
+                            @Value("${audit.dlt-replay.rate-per-second:1000}") int defaultRatePerSecond,
+                            @Value("${audit.dlt-replay.max-rate-per-second:10000}") int maxRatePerSecond) {
+        this.consumerFactory = consumerFactory;
+        this.payloadNormalizers = payloadNormalizers;
+        this.auditEventStoreService = auditEventStoreService;
+        this.requestIdJdbcRepository = requestIdJdbcRepository;
+        this.alertDetectionService = alertDetectionService;
+        this.chainWriterLeadership = chainWriterLeadership;
+        this.groupId = groupId;
+        this.defaultBatchSize = defaultBatchSize;
+        this.defaultRatePerSecond = defaultRatePerSecond;
+        this.maxRatePerSecond = maxRatePerSecond;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dlt-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.batchTimer = Timer.builder("audit.dlt.replay.batch")
+                .description("Time to decode and store one replay batch")
+                .register(meterRegistry);
+        this.storedCounter = replayCounter(meterRegistry, "stored");
+        this.duplicateCounter = replayCounter(meterRegistry, "duplicate");
+        this.invalidCounter = replayCounter(meterRegistry, "invalid");
+        this.dryRunCounter = replayCounter(meterRegistry, "dry-run");
+        Gauge.builder("audit.dlt.replay.remaining", remaining::get)
+                .description("DLT records left in the running replay")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start a replay in the background.
+     *
+     * @param batchSize Records per poll and per store transaction; null for the default
+     * @param ratePerSecond Upper bound on records processed per second; null for the default
+     * @return false if a replay is already running or this instance is not the chain writer
+     */
+    public synchronized boolean start(boolean dryRun, Integer batchSize, Integer ratePerSecond) {
+        int size = batchSize != null ? batchSize : defaultBatchSize;
+        int rate = ratePerSecond != null ? ratePerSecond : defaultRatePerSecond;
+        if (size < 1 || size > 5000) {
+            throw new IllegalArgumentException("batchSize must be between 1 and 5000");
+        }
+        if (rate < 1 || rate > maxRatePerSecond) {
+            throw new IllegalArgumentException("ratePerSecond must be between 1 and " + maxRatePerSecond);
+        }
+        if ((current != null && current.finishedAt == null) || !chainWriterLeadership.isLeader()) {
+            return false;
+        }
+
+        Run run = new Run(dryRun, size, rate);
+        current = run;
+        executor.execute(() -> replay(run));
+        log.info("Started DLT replay: dryRun={}, batchSize={}, ratePerSecond={}", dryRun, size, rate);
+        return true;
+    }
+
+    /**
+     * Ask the running replay to stop after its current batch.
+     *
+     * @return false if no replay is running
+     */
+    public boolean cancel() {
+        Run run = current;
+        if (run == null || run.finishedAt != null) {
+            return false;
+        }
+        run.cancelled = true;
+        return true;
+    }
+
+    public DltReplayStatus getStatus() {
+        Run run = current;
+        if (run == null) {
+            return DltReplayStatus.builder()
+                    .state("IDLE")
+                    .leader(chainWriterLeadership.isLeader())
+                    .build();
+        }
+
+        Instant end = run.finishedAt != null ? run.finishedAt : Instant.now();
+        double seconds = Math.max(0.001, Duration.between(run.startedAt, end).toMillis() / 1000.0);
+        return DltReplayStatus.builder()
+                .state(run.state)
+                .leader(chainWriterLeadership.isLeader())
+                .dryRun(run.dryRun)
+                .batchSize(run.batchSize)
+                .ratePerSecond(run.ratePerSecond)
+                .totalRecords(run.total)
+                .processedRecords(run.processed.get())
+                .storedRecords(run.stored.get())
+                .duplicateRecords(run.duplicates.get())
+                .invalidRecords(run.invalid.get())
+                .recordsPerSecond(Math.round(run.processed.get() / seconds * 10) / 10.0)
+                .error(run.error)
+                .startedAt(run.startedAt)
+                .finishedAt(run.finishedAt)
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        Run run = current;
+        if (run != null) {
+            run.cancelled = true;
+        }
+        executor.shutdown();
+    }
+
+    private void replay(Run run) {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(run.batchSize));
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+
+        try (Consumer<String, String> consumer = consumerFactory.createConsumer(groupId, null, "-dlt-replay", overrides)) {
+            Map<TopicPartition, Long> endOffsets = assignDltPartitions(consumer);
+            Set<TopicPartition> pending = new HashSet<>();
+            long total = 0;
+            for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+                long position = consumer.position(end.getKey());
+                if (position < end.getValue()) {
+                    pending.add(end.getKey());
+                    total += end.getValue() - position;
+                }
+            }
+            run.total = total;
+            remaining.set(total);
+            consumer.pause(difference(endOffsets.keySet(), pending));
+
+            long nanosPerRecord = TimeUnit.SECONDS.toNanos(1) / run.ratePerSecond;
+            long paceStart = System.nanoTime();
+            int emptyPolls = 0;
+            while (!pending.isEmpty() && !run.cancelled) {
+                ConsumerRecords<String, String> polled = consumer.poll(POLL_TIMEOUT);
+                if (polled.isEmpty()) {
+                    if (++emptyPolls >= MAX_EMPTY_POLLS) {
+                        // End offsets include transaction markers and compacted gaps that are never returned
+                        break;
+                    }
+                    continue;
+                }
+                emptyPolls = 0;
+
+                List<ConsumerRecord<String, String>> batch = new ArrayList<>(polled.count());
+                Map<TopicPartition, OffsetAndMetadata> nextOffsets = new HashMap<>();
+                for (TopicPartition partition : polled.partitions()) {
+                    long end = endOffsets.get(partition);
+                    for (ConsumerRecord<String, String> record : polled.records(partition)) {
+                        if (record.offset() < end) {
+                            batch.add(record);
+                        }
+                    }
+                    long next = consumer.position(partition);
+                    nextOffsets.put(partition, new OffsetAndMetadata(Math.min(next, end)));
+                    if (next >= end) {
+                        pending.remove(partition);
+                        consumer.pause(List.of(partition));
+                    }
+                }
+
+                batchTimer.record(() -> processBatch(run, batch));
+                if (!run.dryRun) {
+                    consumer.commitSync(nextOffsets);
+                }
+                remaining.addAndGet(-batch.size());
+
+                // Pace to ratePerSecond over the whole replay
+                long dueAt = paceStart + run.processed.get() * nanosPerRecord;
+                long sleepNanos = dueAt - System.nanoTime();
+                if (sleepNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                }
+            }
+
+            run.state = run.cancelled ? "CANCELLED" : "COMPLETED";
+            log.info("DLT replay {}: processed={}, stored={}, duplicates={}, invalid={}",
+                    run.state.toLowerCase(), run.processed.get(), run.stored.get(),
+                    run.duplicates.get(), run.invalid.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.state = "CANCELLED";
+        } catch (Exception e) {
+            log.error("DLT replay failed after {} records", run.processed.get(), e);
+            run.state = "FAILED";
+            run.error = e.getMessage();
+        } finally {
+            remaining.set(0);
+            run.finishedAt = Instant.now();
+        }
+    }
+
+    /**
+     * Assign every partition of the DLT topics, starting from the committed offsets.
+     *
+     * @return End offset of each partition when the replay started
+     */
+    private Map<TopicPartition, Long> assignDltPartitions(Consumer<String, String> consumer) {
+        List<TopicPartition> partitions = new ArrayList<>();
+        for (String topic : payloadNormalizers.topics()) {
+            List<PartitionInfo> infos = consumer.partitionsFor(topic + DLT_SUFFIX);
+            if (infos != null) {
+                infos.forEach(info -> partitions.add(new TopicPartition(info.topic(), info.partition())));
+            }
+        }
+        consumer.assign(partitions);
+        return consumer.endOffsets(partitions);
+    }
+
+    private void processBatch(Run run, List<ConsumerRecord<String, String>> batch) {
+        List<AuditEventMessage> messages = new ArrayList<>(batch.size());
+        for (ConsumerRecord<String, String> record : batch) {
+            try {
+                AuditEventMessage message = payloadNormalizers.normalize(asOriginal(record));
+                if (message == null || message.getEventType() == null || message.getEventType().isEmpty()) {
+                    run.invalid.incrementAndGet();
+                    invalidCounter.increment();
+                    continue;
+                }
+                messages.add(message);
+            } catch (Exception e) {
+                log.warn("Skipping undecodable DLT record: topic={}, partition={}, offset={}, error={}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+                run.invalid.incrementAndGet();
+                invalidCounter.increment();
+            }
+        }
+
+        if (run.dryRun) {
+            List<String> requestIds = messages.stream().map(AuditEventMessage::getEffectiveRequestId).toList();
+            int duplicates = requestIds.isEmpty() ? 0 : requestIdJdbcRepository.findExisting(requestIds).size();
+            run.duplicates.addAndGet(duplicates);
+            dryRunCounter.increment(batch.size());
+        } else {
+            List<AuditEvent> storedEvents;
+            try {
+                storedEvents = auditEventStoreService.storeBatch(messages);
+                run.duplicates.addAndGet(messages.size() - storedEvents.size());
+                duplicateCounter.increment(messages.size() - storedEvents.size());
+            } catch (RuntimeException e) {
+                if (!isPoison(e)) {
+                    throw e;
+                }
+                log.warn("DLT replay batch failed, storing its {} records one by one: {}", messages.size(), e.getMessage());
+                storedEvents = storeOneByOne(run, messages);
+            }
+            for (AuditEvent storedEvent : storedEvents) {
+                alertDetectionService.checkImmediateAlerts(storedEvent);
+            }
+            run.stored.addAndGet(storedEvents.size());
+            storedCounter.increment(storedEvents.size());
+        }
+        run.processed.addAndGet(batch.size());
+    }
+
+    /**
+     * Store each message in its own transaction, so a record that is rejected again is
+     * counted as invalid and committed past instead of failing every resume. Any other
+     * failure ends the run without committing the batch.
+     *
+     * @return The newly stored events
+     */
+    private List<AuditEvent> storeOneByOne(Run run, List<AuditEventMessage> messages) {
+        List<AuditEvent> stored = new ArrayList<>(messages.size());
+        for (AuditEventMessage message : messages) {
+            String requestId = message.getEffectiveRequestId();
+            try {
+                if (!requestIdJdbcRepository.findExisting(List.of(requestId)).isEmpty()) {
+                    run.duplicates.incrementAndGet();
+                    duplicateCounter.increment();
+                    continue;
+                }
+                AuditEvent event = auditEventStoreService.storeEvent(message);
+                if (event != null) {
+                    stored.add(event);
+                }
+            } catch (RuntimeException e) {
+                if (!isPoison(e)) {
+                    throw e;
+                }
+                log.warn("Skipping DLT record that cannot be stored: requestId={}, eventType={}, error={}",
+                        requestId, message.getEventType(), e.getMessage());
+                run.invalid.incrementAndGet();
+                invalidCounter.increment();
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Whether a store failure is the record's own fault and will recur on every attempt:
+     * a constraint the row violates or a value the store rejects. Lost connections, lock
+     * timeouts, deadlocks and a lost lease are not; the run fails and resumes from the
+     * last committed batch.
+     */
+    private static boolean isPoison(RuntimeException e) {
+        return e instanceof DataIntegrityViolationException || e instanceof IllegalArgumentException;
+    }
+
+    /**
+     * The record as first delivered: topic, partition and offset from the DLT headers.
+     */
+    private static ConsumerRecord<String, String> asOriginal(ConsumerRecord<String, String> record) {
+        Header topic = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_TOPIC);
+        Header partition = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_PARTITION);
+        Header offset = record.headers().lastHeader(KafkaHeaders.DLT_ORIGINAL_OFFSET);
+        if (topic == null || partition == null || offset == null) {
+            String name = record.topic().endsWith(DLT_SUFFIX)
+                    ? record.topic().substring(0, record.topic().length() - DLT_SUFFIX.length())
+                    : record.topic();
+            return new ConsumerRecord<>(name, record.partition(), record.offset(), record.key(), record.value());
+        }
+        return new ConsumerRecord<>(new String(topic.value(), StandardCharsets.UTF_8),
+                ByteBuffer.wrap(partition.value()).getInt(),
+                ByteBuffer.wrap(offset.value()).getLong(),
+                record.key(), record.value());
+    }
+
+    private static Set<TopicPartition> difference(Set<TopicPartition> all, Set<TopicPartition> excluded) {
+        Set<TopicPartition> result = new HashSet<>(all);
+        result.removeAll(excluded);
+        return result;
+    }
+
+    private static Counter replayCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("audit.dlt.replay.records")
+                .description("Replayed DLT records by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -1,7 +1,14 @@
 package com.ehrplatform.audit.kafka;
 
+import com.ehrplatform.audit.service.ChainHeadCache;
+import com.ehrplatform.audit.service.ChainRouter;
+import com.ehrplatform.audit.service.RequestIdFilter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.RangeAssignor;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -11,11 +18,14 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.util.backoff.FixedBackOff;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -34,17 +44,35 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${spring.kafka.consumer.max-poll-records:100}")
+    private int maxPollRecords;
+
+    @Value("${audit.kafka.consumer.concurrency:1}")
+    private int concurrency;
+
+    @Value("${audit.chain.strategy:single}")
+    private String chainStrategy;
+
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
+    public ConsumerFactory<String, String> consumerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+
+        // Chain-per-partition relies on partition N of every topic landing on the same consumer
+        if (ChainRouter.STRATEGY_PARTITION.equals(chainStrategy)) {
+            props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, RangeAssignor.class.getName());
+        }
 
         // Use String deserializer to handle multiple payload formats
-        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new StringDeserializer());
+        DefaultKafkaConsumerFactory<String, String> factory =
+                new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), new StringDeserializer());
+        // Kafka client metrics, including records-lag per assigned partition
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     /**
@@ -52,7 +80,7 @@ public class KafkaConsumerConfig {
      */
     @Bean
     public DefaultErrorHandler errorHandler(KafkaTemplate<String, Object> kafkaTemplate) {
-        // Publish failed messages to DLT (dead letter topic): <topic>.DLT
+        // Publish failed messages to DLT (dead letter topic): <topic>.DLT, replayed on demand by DltReplayService
         DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(kafkaTemplate);
         
         // Retry 3 times with 1 second interval before sending to DLT
@@ -69,20 +97,63 @@ public class KafkaConsumerConfig {
 
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory(
-            DefaultErrorHandler errorHandler) {
+            ConsumerFactory<String, String> consumerFactory, DefaultErrorHandler errorHandler,
+            RequestIdFilter requestIdFilter) {
         ConcurrentKafkaListenerContainerFactory<String, String> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(consumerFactory);
         
         // Manual acknowledgment mode
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
         
         // Single concurrency for hash chain ordering (important!)
         factory.setConcurrency(1);
+
+        // Another consumer may have stored request IDs while it owned the partitions
+        factory.getContainerProperties().setConsumerRebalanceListener(new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                requestIdFilter.catchUp();
+            }
+        });
         
         // Add error handler with retry and DLT
         factory.setCommonErrorHandler(errorHandler);
         
         return factory;
     }
+
+    /**
+     * Batch listener factory: hands the whole poll (up to max-poll-records) to the listener
+     * so it can be deduplicated, chained and inserted in one transaction.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchKafkaListenerContainerFactory(
+            ConsumerFactory<String, String> consumerFactory, DefaultErrorHandler errorHandler,
+            ChainHeadCache chainHeadCache, RequestIdFilter requestIdFilter) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+
+        // Manual acknowledgment mode - the whole batch is acknowledged at once
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        // Appends are serialized per chain, so more threads only help with audit.chain.strategy != single
+        factory.setConcurrency(concurrency);
+
+        // Another consumer may have appended to our chains, and stored request IDs, while it owned the partitions
+        factory.getContainerProperties().setConsumerRebalanceListener(new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                chainHeadCache.invalidate();
+                requestIdFilter.catchUp();
+            }
+        });
+
+        // BatchListenerFailedException pinpoints the failing record; anything else retries the whole batch
+        factory.setCommonErrorHandler(errorHandler);
+
+        return factory;
+    }
 }
@@ -0,0 +1,43 @@
+package com.ehrplatform.audit.kafka.normalizer;
+
+import com.ehrplatform.audit.dto.AuditEventMessage;
+import com.fasterxml.jackson.core.JsonParser;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 'audit-events': producers send the event fields directly.
+ */
+@Component
+public class AuditEventsNormalizer extends StreamingPayloadNormalizer {
+
+    @Override
+    public String topic() {
+        return "audit-events";
+    }
+
+    @Override
+    protected boolean readField(String field, JsonParser parser, AuditEventMessage msg,
+                                Map<String, Object> details) throws IOException {
+        switch (field) {
+            case "eventType" -> msg.setEventType(readText(parser));
+            case "patientId" -> msg.setPatientId(readLong(parser));
+            case "doctorUserId" -> msg.setDoctorUserId(readLong(parser));
+            case "role" -> msg.setRole(readText(parser));
+            case "actorUserId" -> msg.setActorUserId(readLong(parser));
+            case "actorEmail" -> msg.setActorEmail(readText(parser));
+            case "ip" -> msg.setIp(readText(parser));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void complete(AuditEventMessage msg, Map<String, Object> details) {
+        // eventType comes from the payload
+    }
+}
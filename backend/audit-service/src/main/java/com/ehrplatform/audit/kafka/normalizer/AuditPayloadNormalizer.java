@@ -0,0 +1,25 @@
+package com.ehrplatform.audit.kafka.normalizer;
+
+import com.ehrplatform.audit.dto.AuditEventMessage;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Decodes the payloads of one topic into AuditEventMessage.
+ * Implementations are Spring beans; the consumer subscribes to every registered topic.
+ */
+public interface AuditPayloadNormalizer {
+
+    /**
+     * Topic whose payloads this normalizer decodes
+     */
+    String topic();
+
+    /**
+     * Decode one payload in a single pass over the parser.
+     *
+     * @return The message; events without an eventType are skipped by the consumer
+     */
+    AuditEventMessage normalize(JsonParser parser) throws IOException;
+}
@@ -0,0 +1,66 @@
+package com.ehrplatform.audit.kafka.normalizer;
+
+import com.ehrplatform.audit.dto.AuditEventMessage;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the per-topic payload normalizers.
+ */
+@Component
+@Slf4j
+public class AuditPayloadNormalizers {
+
+    private final Map<String, AuditPayloadNormalizer> byTopic = new HashMap<>();
+    private final JsonFactory jsonFactory;
+
+    public AuditPayloadNormalizers(List<AuditPayloadNormalizer> normalizers, ObjectMapper objectMapper) {
+        for (AuditPayloadNormalizer normalizer : normalizers) {
+            AuditPayloadNormalizer previous = byTopic.put(normalizer.topic(), normalizer);
+            if (previous != null) {
+                throw new IllegalStateException("Two payload normalizers for topic " + normalizer.topic());
+            }
+        }
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Topics with a registered normalizer; the consumer subscribes to all of them
+     */
+    public String[] topics() {
+        return byTopic.keySet().stream().sorted().toArray(String[]::new);
+    }
+
+    /**
+     * Decode a record with its topic's normalizer.
+     * A payload without requestId gets topic:partition:offset, so a redelivered record stays idempotent.
+     *
+     * @return The message, or null for a topic without a normalizer
+     */
+    public AuditEventMessage normalize(ConsumerRecord<String, String> record) throws IOException {
+        AuditPayloadNormalizer normalizer = byTopic.get(record.topic());
+        if (normalizer == null) {
+            log.warn("Unknown topic: {}", record.topic());
+            return null;
+        }
+
+        AuditEventMessage message;
+        try (JsonParser parser = jsonFactory.createParser(record.value())) {
+            message = normalizer.normalize(parser);
+        }
+        if (message.getRequestId() == null) {
+            message.setRequestId(record.topic() + ":" + record.partition() + ":" + record.offset());
+        }
+        message.setKafkaPartition(record.partition());
+        return message;
+    }
+}
@@ -0,0 +1,57 @@
+package com.ehrplatform.audit.kafka.normalizer;
+
+import com.ehrplatform.audit.dto.AuditEventMessage;
+import com.fasterxml.jackson.core.JsonParser;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 'patient-assign': becomes PATIENT_ASSIGNED with the doctor as actor and the assignment as details.
+ */
+@Component
+public class PatientAssignNormalizer extends StreamingPayloadNormalizer {
+
+    @Override
+    public String topic() {
+        return "patient-assign";
+    }
+
+    @Override
+    protected boolean readField(String field, JsonParser parser, AuditEventMessage msg,
+                                Map<String, Object> details) throws IOException {
+        switch (field) {
+            case "patientId" -> {
+                Long patientId = readLong(parser);
+                msg.setPatientId(patientId);
+                details.put("patientId", patientId);
+            }
+            case "patientName" -> details.put("patientName", readText(parser));
+            case "doctorId" -> {
+                Long doctorId = readLong(parser);
+                msg.setDoctorUserId(doctorId);
+                details.put("doctorId", doctorId);
+            }
+            case "doctorEmail" -> {
+                String doctorEmail = readText(parser);
+                msg.setActorEmail(doctorEmail);
+                details.put("doctorEmail", doctorEmail);
+            }
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void complete(AuditEventMessage msg, Map<String, Object> details) {
+        msg.setEventType("PATIENT_ASSIGNED");
+        details.putIfAbsent("patientId", null);
+        details.putIfAbsent("patientName", null);
+        details.putIfAbsent("doctorId", null);
+        details.putIfAbsent("doctorEmail", null);
+        msg.setDetails(details);
+    }
+}
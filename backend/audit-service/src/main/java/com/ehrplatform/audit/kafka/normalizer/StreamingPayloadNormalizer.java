@@ -0,0 +1,121 @@
+package com.ehrplatform.audit.kafka.normalizer;
+
+import com.ehrplatform.audit.dto.AuditEventMessage;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base for normalizers that walk the top-level fields of a JSON object once with
+ * the streaming parser. The fields shared by every topic (requestId, occurredAt,
+ * sourceService, severity, outcome) are read here; subclasses map the rest.
+ * A missing occurredAt stays null, so the request ID filter knows to look the event
+ * up; it is stored with the time it is received.
+ *
+ * Values convert like JsonNode.asText()/asLong() did: numbers read as text and
+ * numeric strings as longs, nested objects and arrays are skipped.
+ */
+@Slf4j
+public abstract class StreamingPayloadNormalizer implements AuditPayloadNormalizer {
+
+    @Override
+    public final AuditEventMessage normalize(JsonParser parser) throws IOException {
+        AuditEventMessage msg = new AuditEventMessage();
+        msg.setSeverity(null);
+        Map<String, Object> details = new HashMap<>();
+
+        if (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (!readCommonField(field, parser, msg) && !readField(field, parser, msg, details)) {
+                    parser.skipChildren();
+                }
+            }
+        } else {
+            parser.skipChildren();
+        }
+
+        if (msg.getSourceService() == null) {
+            msg.setSourceService("care-service");
+        }
+        if (msg.getSeverity() == null) {
+            msg.setSeverity("INFO");
+        }
+        if (msg.getOutcome() == null) {
+            msg.setOutcome("SUCCESS");
+        }
+        complete(msg, details);
+        return msg;
+    }
+
+    /**
+     * Map a topic-specific field. The parser is on the field's value; return false to skip it.
+     *
+     * @param details Scratch map for values that only go into the event details
+     */
+    protected abstract boolean readField(String field, JsonParser parser, AuditEventMessage msg,
+                                         Map<String, Object> details) throws IOException;
+
+    /**
+     * Set the event type and details once all fields are read.
+     */
+    protected abstract void complete(AuditEventMessage msg, Map<String, Object> details);
+
+    private boolean readCommonField(String field, JsonParser parser, AuditEventMessage msg) throws IOException {
+        switch (field) {
+            case "requestId" -> msg.setRequestId(readText(parser));
+            case "occurredAt" -> msg.setOccurredAt(readInstant(parser, field));
+            case "sourceService" -> msg.setSourceService(readText(parser));
+            case "severity" -> msg.setSeverity(readText(parser));
+            case "outcome" -> msg.setOutcome(readText(parser));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected static String readText(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return "";
+        }
+        return parser.getValueAsString();
+    }
+
+    protected static Long readLong(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return 0L;
+        }
+        return parser.getValueAsLong(0L);
+    }
+
+    private static Instant readInstant(JsonParser parser, String field) throws IOException {
+        String value = readText(parser);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            log.warn("Failed to parse instant from field {}: {}", field, value);
+            return null;
+        }
+    }
+}
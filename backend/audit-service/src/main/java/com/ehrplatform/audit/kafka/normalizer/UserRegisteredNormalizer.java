@@ -0,0 +1,51 @@
+package com.ehrplatform.audit.kafka.normalizer;
+
+import com.ehrplatform.audit.dto.AuditEventMessage;
+import com.fasterxml.jackson.core.JsonParser;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * 'user-registered': becomes USER_REGISTERED with the registration fields as details.
+ */
+@Component
+public class UserRegisteredNormalizer extends StreamingPayloadNormalizer {
+
+    @Override
+    public String topic() {
+        return "user-registered";
+    }
+
+    @Override
+    protected boolean readField(String field, JsonParser parser, AuditEventMessage msg,
+                                Map<String, Object> details) throws IOException {
+        switch (field) {
+            case "userName" -> details.put("userName", readText(parser));
+            case "userEmail" -> {
+                String userEmail = readText(parser);
+                msg.setActorEmail(userEmail);
+                details.put("userEmail", userEmail);
+            }
+            case "role" -> {
+                String role = readText(parser);
+                msg.setRole(role);
+                details.put("role", role);
+            }
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void complete(AuditEventMessage msg, Map<String, Object> details) {
+        msg.setEventType("USER_REGISTERED");
+        details.putIfAbsent("userName", null);
+        details.putIfAbsent("userEmail", null);
+        details.putIfAbsent("role", null);
+        msg.setDetails(details);
+    }
+}
@@ -0,0 +1,39 @@
+package com.ehrplatform.audit.repository;
+
+import com.ehrplatform.audit.entity.AlertDedupKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Plain JDBC writes to alert_dedup_key for the write-behind dedup cache.
+ * Upserts, so a key flushed twice (or written by another instance) does not fail the batch.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AlertDedupKeyJdbcRepository {
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO alert_dedup_key (dedup_key, alert_id, expires_at) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE alert_id = VALUES(alert_id), expires_at = VALUES(expires_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert or refresh dedup keys in one JDBC batch.
+     */
+    public void batchUpsert(List<AlertDedupKey> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, keys, keys.size(), (ps, key) -> {
+            ps.setString(1, key.getDedupKey());
+            ps.setLong(2, key.getAlertId());
+            ps.setTimestamp(3, Timestamp.from(key.getExpiresAt()));
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package com.ehrplatform.audit.repository;
 
 import com.ehrplatform.audit.entity.AlertDedupKey;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -8,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.List;
 
 @Repository
 public interface AlertDedupKeyRepository extends JpaRepository<AlertDedupKey, String> {
@@ -17,6 +19,11 @@ public interface AlertDedupKeyRepository extends JpaRepository<AlertDedupKey, St
      */
     boolean existsByDedupKeyAndExpiresAtAfter(String dedupKey, Instant now);
 
+    /**
+     * Find live dedup keys, latest expiry first
+     */
+    List<AlertDedupKey> findByExpiresAtAfterOrderByExpiresAtDesc(Instant now, Pageable pageable);
+
     /**
      * Delete expired dedup keys
      */
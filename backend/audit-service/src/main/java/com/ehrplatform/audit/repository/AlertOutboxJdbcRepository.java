@@ -0,0 +1,81 @@
+package com.ehrplatform.audit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Plain JDBC access to alert_outbox, the alerts still to be confirmed by Kafka.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AlertOutboxJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * An outbox row; attempts counts the relay's sends, not the first one.
+     */
+    public record Entry(long alertId, int attempts) {
+    }
+
+    /**
+     * Add an alert in the current transaction.
+     *
+     * @param nextAttemptAt When the relay may send it if the direct send has not been confirmed
+     */
+    public void insert(long alertId, Instant createdAt, Instant nextAttemptAt) {
+        jdbcTemplate.update(
+                "INSERT INTO alert_outbox (alert_id, created_at, next_attempt_at, attempts) VALUES (?, ?, ?, 0)",
+                alertId, Timestamp.from(createdAt), Timestamp.from(nextAttemptAt));
+    }
+
+    /**
+     * Find rows due for a send, oldest first.
+     */
+    public List<Entry> findDue(Instant now, int limit) {
+        return jdbcTemplate.query(
+                "SELECT alert_id, attempts FROM alert_outbox WHERE next_attempt_at <= ? " +
+                "ORDER BY next_attempt_at LIMIT ?",
+                (rs, rowNum) -> new Entry(rs.getLong(1), rs.getInt(2)),
+                Timestamp.from(now), limit);
+    }
+
+    /**
+     * Count an attempt for each entry and push its next attempt back.
+     */
+    public void reschedule(List<Entry> entries, Function<Entry, Instant> nextAttemptAt) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(
+                "UPDATE alert_outbox SET attempts = attempts + 1, next_attempt_at = ? WHERE alert_id = ?",
+                entries, entries.size(), (ps, entry) -> {
+                    ps.setTimestamp(1, Timestamp.from(nextAttemptAt.apply(entry)));
+                    ps.setLong(2, entry.alertId());
+                });
+    }
+
+    /**
+     * Remove alerts Kafka has acknowledged, in one JDBC batch.
+     */
+    public void deleteAll(List<Long> alertIds) {
+        if (alertIds.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate("DELETE FROM alert_outbox WHERE alert_id = ?",
+                alertIds, alertIds.size(), (ps, alertId) -> ps.setLong(1, alertId));
+    }
+
+    public long countPending() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM alert_outbox", Long.class);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.ehrplatform.audit.repository;
+
+import com.ehrplatform.audit.entity.ArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchiveSegmentRepository extends JpaRepository<ArchiveSegment, Long> {
+
+    /**
+     * Get the last segment already written for a chain of a partition (resume point)
+     */
+    Optional<ArchiveSegment> findTopByPartitionNameAndChainIdOrderByToEventIdDesc(String partitionName, Integer chainId);
+
+    /**
+     * Get the most recently written sealed segment
+     */
+    Optional<ArchiveSegment> findTopBySealedTrueOrderByIdDesc();
+
+    /**
+     * Find sealed segments whose ID range contains the event
+     */
+    @Query("SELECT s FROM ArchiveSegment s WHERE s.sealed = true " +
+           "AND s.fromEventId <= :eventId AND s.toEventId >= :eventId")
+    List<ArchiveSegment> findSealedContaining(@Param("eventId") Long eventId);
+
+    /**
+     * Find sealed segments whose min/max index overlaps the query filters (null filters match all)
+     */
+    @Query("SELECT s FROM ArchiveSegment s WHERE s.sealed = true " +
+           "AND (:fromDate IS NULL OR s.maxOccurredAt >= :fromDate) " +
+           "AND (:toDate IS NULL OR s.minOccurredAt <= :toDate) " +
+           "AND (:actorUserId IS NULL OR (s.minActorUserId <= :actorUserId AND s.maxActorUserId >= :actorUserId)) " +
+           "AND (:patientId IS NULL OR (s.minPatientId <= :patientId AND s.maxPatientId >= :patientId))")
+    List<ArchiveSegment> findSealedCandidates(@Param("fromDate") Instant fromDate,
+                                              @Param("toDate") Instant toDate,
+                                              @Param("actorUserId") Long actorUserId,
+                                              @Param("patientId") Long patientId);
+
+    /**
+     * Get the partitions with segments not yet sealed
+     */
+    @Query("SELECT DISTINCT s.partitionName FROM ArchiveSegment s WHERE s.sealed = false")
+    List<String> findUnsealedPartitionNames();
+
+    /**
+     * Mark the segments of a dropped partition as queryable
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ArchiveSegment s SET s.sealed = true WHERE s.partitionName = :partitionName")
+    int sealPartition(@Param("partitionName") String partitionName);
+}
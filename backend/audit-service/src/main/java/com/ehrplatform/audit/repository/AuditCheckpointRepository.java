@@ -0,0 +1,31 @@
+package com.ehrplatform.audit.repository;
+
+import com.ehrplatform.audit.entity.AuditCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AuditCheckpointRepository extends JpaRepository<AuditCheckpoint, Long> {
+
+    /**
+     * Get the latest sealed checkpoint of a chain
+     */
+    Optional<AuditCheckpoint> findTopByChainIdOrderByToEventIdDesc(Integer chainId);
+
+    /**
+     * Find checkpoints ending inside an ID range (segment boundaries for verification)
+     */
+    List<AuditCheckpoint> findByToEventIdBetweenOrderByToEventIdAsc(Long fromId, Long toId);
+
+    /**
+     * Find the checkpoint whose block contains the given event
+     */
+    @Query("SELECT c FROM AuditCheckpoint c WHERE c.chainId = :chainId " +
+           "AND c.fromEventId <= :eventId AND c.toEventId >= :eventId")
+    Optional<AuditCheckpoint> findContaining(@Param("chainId") Integer chainId, @Param("eventId") Long eventId);
+}
@@ -0,0 +1,186 @@
+package com.ehrplatform.audit.repository;
+
+import com.ehrplatform.audit.dto.AuditQueryRequest;
+import com.ehrplatform.audit.entity.AuditEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access to audit_event for the batched ingest path and exports.
+ * JPA cannot batch inserts on IDENTITY ids, so batches are written here
+ * with a single multi-row JDBC batch that joins the surrounding transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AuditEventJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO audit_event (occurred_at, received_at, source_service, source_instance, " +
+            "event_type, outcome, severity, actor_user_id, actor_role, actor_email, ip, user_agent, " +
+            "device_id, session_id, patient_id, record_id, target_user_id, request_id, trace_id, " +
+            "span_id, details_json, chain_id, prev_hash, event_hash, hash_version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Insert events in one JDBC batch and assign the generated IDs back onto the entities.
+     */
+    public void batchInsert(List<AuditEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (AuditEvent event : events) {
+                    bind(ps, event);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < events.size()) {
+                        events.get(i++).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Stream the rows matching the query filters (sorting and paging are ignored) in ID order.
+     * The result set is forward-only with MySQL row streaming, so the driver holds one row
+     * at a time however many rows match; the connection stays busy until the handler returns.
+     */
+    public void streamMatching(AuditQueryRequest request, RowCallbackHandler handler) {
+        StringBuilder sql = new StringBuilder("SELECT " + AuditEventRowMapper.COLUMNS + " FROM audit_event WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (request.getFromDate() != null) {
+            sql.append(" AND occurred_at >= ?");
+            args.add(Timestamp.from(request.getFromDate()));
+        }
+        if (request.getToDate() != null) {
+            sql.append(" AND occurred_at <= ?");
+            args.add(Timestamp.from(request.getToDate()));
+        }
+        appendFilter(sql, args, "source_service", request.getSourceService());
+        appendFilter(sql, args, "event_type", request.getEventType());
+        appendFilter(sql, args, "outcome", request.getOutcome());
+        appendFilter(sql, args, "severity", request.getSeverity());
+        appendFilter(sql, args, "actor_user_id", request.getActorUserId());
+        appendFilter(sql, args, "actor_email", request.getActorEmail());
+        appendFilter(sql, args, "actor_role", request.getActorRole());
+        appendFilter(sql, args, "patient_id", request.getPatientId());
+        appendFilter(sql, args, "record_id", request.getRecordId());
+        appendFilter(sql, args, "target_user_id", request.getTargetUserId());
+        appendFilter(sql, args, "ip", request.getIp());
+        sql.append(" ORDER BY id");
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE); // Connector/J: stream rows instead of buffering the result
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+
+    /**
+     * Stream the request IDs of events that occurred since occurredSince and, if given,
+     * were received since receivedSince (seeding the request ID Bloom filter).
+     */
+    public void streamRequestIds(Instant occurredSince, Instant receivedSince, Consumer<String> consumer) {
+        String sql = "SELECT request_id FROM audit_event WHERE occurred_at >= ? AND request_id IS NOT NULL"
+                + (receivedSince != null ? " AND received_at >= ?" : "");
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setTimestamp(1, Timestamp.from(occurredSince));
+            if (receivedSince != null) {
+                ps.setTimestamp(2, Timestamp.from(receivedSince));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(rs.getString(1)));
+    }
+
+    private void appendFilter(StringBuilder sql, List<Object> args, String column, Object value) {
+        if (value != null) {
+            sql.append(" AND ").append(column).append(" = ?");
+            args.add(value);
+        }
+    }
+
+    private void bind(PreparedStatement ps, AuditEvent event) throws SQLException {
+        int i = 1;
+        ps.setTimestamp(i++, toTimestamp(event.getOccurredAt()));
+        ps.setTimestamp(i++, toTimestamp(event.getReceivedAt()));
+        ps.setString(i++, event.getSourceService());
+        ps.setString(i++, event.getSourceInstance());
+        ps.setString(i++, event.getEventType());
+        ps.setString(i++, event.getOutcome());
+        ps.setString(i++, event.getSeverity());
+        setLong(ps, i++, event.getActorUserId());
+        ps.setString(i++, event.getActorRole());
+        ps.setString(i++, event.getActorEmail());
+        ps.setString(i++, event.getIp());
+        ps.setString(i++, event.getUserAgent());
+        ps.setString(i++, event.getDeviceId());
+        ps.setString(i++, event.getSessionId());
+        setLong(ps, i++, event.getPatientId());
+        setLong(ps, i++, event.getRecordId());
+        setLong(ps, i++, event.getTargetUserId());
+        ps.setString(i++, event.getRequestId());
+        ps.setString(i++, event.getTraceId());
+        ps.setString(i++, event.getSpanId());
+        ps.setString(i++, toJson(event));
+        ps.setInt(i++, event.getChainId());
+        ps.setString(i++, event.getPrevHash());
+        ps.setString(i++, event.getEventHash());
+        ps.setInt(i, event.getHashVersion());
+    }
+
+    private Timestamp toTimestamp(Instant instant) {
+        return instant != null ? Timestamp.from(instant) : null;
+    }
+
+    private void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private String toJson(AuditEvent event) {
+        if (event.getDetailsJson() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(event.getDetailsJson());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize details for requestId " + event.getRequestId(), e);
+        }
+    }
+}
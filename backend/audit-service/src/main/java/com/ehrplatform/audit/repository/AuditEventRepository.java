@@ -32,6 +32,45 @@ public interface AuditEventRepository extends JpaRepository<AuditEvent, Long>, J
     @Query("SELECT ae.eventHash FROM AuditEvent ae ORDER BY ae.id DESC LIMIT 1")
     Optional<String> findLatestEventHash();
 
+    /**
+     * Get the latest event hash of one chain
+     */
+    @Query("SELECT ae.eventHash FROM AuditEvent ae WHERE ae.chainId = :chainId ORDER BY ae.id DESC LIMIT 1")
+    Optional<String> findLatestEventHashInChain(@Param("chainId") int chainId);
+
+    /**
+     * Get the latest event of every chain (the chain heads)
+     */
+    @Query("SELECT ae FROM AuditEvent ae WHERE ae.id IN " +
+           "(SELECT MAX(a2.id) FROM AuditEvent a2 GROUP BY a2.chainId)")
+    List<AuditEvent> findChainHeads();
+
+    /**
+     * Get the IDs of all chains that have events
+     */
+    @Query("SELECT DISTINCT ae.chainId FROM AuditEvent ae")
+    List<Integer> findChainIds();
+
+    /**
+     * Find the next events of one chain after the given ID (for checkpoint sealing)
+     */
+    List<AuditEvent> findByChainIdAndIdGreaterThanOrderByIdAsc(Integer chainId, Long afterId, Pageable pageable);
+
+    /**
+     * Get (id, eventHash) of one chain's events in an ID range, in chain order (Merkle leaves)
+     */
+    @Query("SELECT ae.id, ae.eventHash FROM AuditEvent ae " +
+           "WHERE ae.chainId = :chainId AND ae.id BETWEEN :fromId AND :toId ORDER BY ae.id ASC")
+    List<Object[]> findEventHashesInChainBetween(@Param("chainId") Integer chainId,
+                                               @Param("fromId") Long fromId,
+                                               @Param("toId") Long toId);
+
+    /**
+     * Get the highest event ID
+     */
+    @Query("SELECT MAX(ae.id) FROM AuditEvent ae")
+    Optional<Long> findMaxId();
+
     /**
      * Get the latest event for hash chaining
      */
@@ -43,12 +82,23 @@ public interface AuditEventRepository extends JpaRepository<AuditEvent, Long>, J
      */
     List<AuditEvent> findByIdBetweenOrderByIdAsc(Long fromId, Long toId);
 
+    /**
+     * Fetch the next page of events after a given ID (keyset paging for streaming verification)
+     */
+    List<AuditEvent> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long afterId, Long toId, Pageable pageable);
+
     /**
      * Find event just before the given ID (for integrity verification)
      */
     @Query("SELECT ae FROM AuditEvent ae WHERE ae.id < :id ORDER BY ae.id DESC LIMIT 1")
     Optional<AuditEvent> findEventBeforeId(@Param("id") Long id);
 
+    /**
+     * Find the event of the given chain just before the given ID (for integrity verification)
+     */
+    @Query("SELECT ae FROM AuditEvent ae WHERE ae.chainId = :chainId AND ae.id < :id ORDER BY ae.id DESC LIMIT 1")
+    Optional<AuditEvent> findEventBeforeIdInChain(@Param("chainId") int chainId, @Param("id") Long id);
+
     /**
      * Count login failures by email and IP within time window
      */
@@ -83,6 +133,15 @@ public interface AuditEventRepository extends JpaRepository<AuditEvent, Long>, J
            "HAVING COUNT(ae) > :threshold")
     List<Object[]> findExportSpikes(@Param("since") Instant since, @Param("threshold") long threshold);
 
+    /**
+     * Events feeding the windowed threshold alerts, used to rebuild counters on startup
+     */
+    @Query("SELECT ae FROM AuditEvent ae " +
+           "WHERE ae.occurredAt >= :since " +
+           "AND (ae.eventType IN ('LOGIN_FAILURE', 'EXPORT_REQUESTED') OR ae.outcome = 'DENIED') " +
+           "ORDER BY ae.id")
+    List<AuditEvent> findWindowedAlertCandidatesSince(@Param("since") Instant since);
+
     /**
      * Count unique patients accessed by actor within time window
      * Includes ASSIGNMENT_CREATED events from care-service
@@ -97,6 +156,28 @@ public interface AuditEventRepository extends JpaRepository<AuditEvent, Long>, J
            "HAVING COUNT(DISTINCT ae.patientId) > :threshold")
     List<Object[]> findBulkPatientAccess(@Param("since") Instant since, @Param("threshold") long threshold);
 
+    /**
+     * Exact count of unique patients accessed by one actor within time window
+     */
+    @Query("SELECT COUNT(DISTINCT ae.patientId) " +
+           "FROM AuditEvent ae " +
+           "WHERE ae.eventType IN ('RECORD_VIEWED', 'PATIENT_ACCESSED', 'ASSIGNMENT_CREATED') " +
+           "AND ae.patientId IS NOT NULL " +
+           "AND ae.actorUserId = :actorUserId " +
+           "AND ae.occurredAt >= :since")
+    long countDistinctPatientsAccessedSince(@Param("actorUserId") Long actorUserId, @Param("since") Instant since);
+
+    /**
+     * Actor, patient and time of patient accesses, used to rebuild distinct-patient sketches on startup
+     */
+    @Query("SELECT ae.actorUserId, ae.patientId, ae.occurredAt " +
+           "FROM AuditEvent ae " +
+           "WHERE ae.eventType IN ('RECORD_VIEWED', 'PATIENT_ACCESSED', 'ASSIGNMENT_CREATED') " +
+           "AND ae.patientId IS NOT NULL " +
+           "AND ae.actorUserId IS NOT NULL " +
+           "AND ae.occurredAt >= :since")
+    List<Object[]> findPatientAccessesSince(@Param("since") Instant since);
+
     /**
      * Find recent policy change events
      */
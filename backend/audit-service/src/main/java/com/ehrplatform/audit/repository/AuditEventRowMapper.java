@@ -0,0 +1,83 @@
+package com.ehrplatform.audit.repository;
+
+import com.ehrplatform.audit.entity.AuditEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Maps plain JDBC audit_event rows (selected with {@link #COLUMNS}) onto the entity.
+ */
+@RequiredArgsConstructor
+public class AuditEventRowMapper implements RowMapper<AuditEvent> {
+
+    public static final String COLUMNS =
+            "id, occurred_at, received_at, source_service, source_instance, event_type, outcome, severity, " +
+            "actor_user_id, actor_role, actor_email, ip, user_agent, device_id, session_id, patient_id, " +
+            "record_id, target_user_id, request_id, trace_id, span_id, details_json, chain_id, prev_hash, event_hash, " +
+            "hash_version";
+
+    private static final TypeReference<Map<String, Object>> DETAILS_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public AuditEvent mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return AuditEvent.builder()
+                .id(rs.getLong("id"))
+                .occurredAt(toInstant(rs.getTimestamp("occurred_at")))
+                .receivedAt(toInstant(rs.getTimestamp("received_at")))
+                .sourceService(rs.getString("source_service"))
+                .sourceInstance(rs.getString("source_instance"))
+                .eventType(rs.getString("event_type"))
+                .outcome(rs.getString("outcome"))
+                .severity(rs.getString("severity"))
+                .actorUserId(getLong(rs, "actor_user_id"))
+                .actorRole(rs.getString("actor_role"))
+                .actorEmail(rs.getString("actor_email"))
+                .ip(rs.getString("ip"))
+                .userAgent(rs.getString("user_agent"))
+                .deviceId(rs.getString("device_id"))
+                .sessionId(rs.getString("session_id"))
+                .patientId(getLong(rs, "patient_id"))
+                .recordId(getLong(rs, "record_id"))
+                .targetUserId(getLong(rs, "target_user_id"))
+                .requestId(rs.getString("request_id"))
+                .traceId(rs.getString("trace_id"))
+                .spanId(rs.getString("span_id"))
+                .detailsJson(parseDetails(rs.getString("details_json")))
+                .chainId(rs.getInt("chain_id"))
+                .prevHash(rs.getString("prev_hash"))
+                .eventHash(rs.getString("event_hash"))
+                .hashVersion(rs.getInt("hash_version"))
+                .build();
+    }
+
+    private Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    private Long getLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private Map<String, Object> parseDetails(String json) throws SQLException {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, DETAILS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Cannot parse details_json", e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.ehrplatform.audit.repository;
+
+import com.ehrplatform.audit.entity.AuditEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Partition metadata and DDL for the monthly RANGE partitions of audit_event.
+ * Partition names are generated by the maintenance service and checked against
+ * a strict pattern before being spliced into DDL.
+ */
+@Repository
+public class AuditPartitionJdbcRepository {
+
+    public static final String MAX_PARTITION = "pmax";
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("p_history|p\\d{6}|pmax");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditEventRowMapper rowMapper;
+
+    public AuditPartitionJdbcRepository(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rowMapper = new AuditEventRowMapper(objectMapper);
+    }
+
+    /**
+     * A RANGE partition; upperBound is null for the MAXVALUE partition.
+     */
+    public record Partition(String name, LocalDate upperBound) {
+    }
+
+    /**
+     * List the partitions of audit_event in range order; empty if the table is not partitioned.
+     */
+    public List<Partition> findPartitions() {
+        return jdbcTemplate.query(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_event' AND PARTITION_NAME IS NOT NULL " +
+                "ORDER BY PARTITION_ORDINAL_POSITION",
+                (rs, rowNum) -> new Partition(rs.getString(1), parseUpperBound(rs.getString(2))));
+    }
+
+    /**
+     * List the chains with events in a partition.
+     */
+    public List<Integer> findChainIdsInPartition(String name) {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT chain_id FROM audit_event PARTITION (" + checked(name) + ") ORDER BY chain_id",
+                Integer.class);
+    }
+
+    /**
+     * Read the next page of a chain's events in a partition, in ID order.
+     */
+    public List<AuditEvent> findPartitionEvents(String name, int chainId, long afterId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT " + AuditEventRowMapper.COLUMNS + " FROM audit_event PARTITION (" + checked(name) + ") " +
+                "WHERE chain_id = ? AND id > ? ORDER BY id LIMIT ?",
+                rowMapper, chainId, afterId, limit);
+    }
+
+    /**
+     * Split the empty MAXVALUE partition to add a month ending at upperBound.
+     */
+    public void addPartition(String name, LocalDate upperBound) {
+        jdbcTemplate.execute("ALTER TABLE audit_event REORGANIZE PARTITION " + MAX_PARTITION + " INTO (" +
+                "PARTITION " + checked(name) + " VALUES LESS THAN ('" + upperBound + " 00:00:00'), " +
+                "PARTITION " + MAX_PARTITION + " VALUES LESS THAN (MAXVALUE))");
+    }
+
+    /**
+     * Record the pruned events of a partition that retained events of the same chain link to:
+     * the last one below the chain's first retained event, and any later (late-arriving) ones.
+     *
+     * @return Number of anchors written
+     */
+    public int insertAnchors(String partitionName, LocalDate upperBound, int chainId) {
+        String partition = checked(partitionName);
+        Long firstRetainedId = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM audit_event WHERE chain_id = ? AND occurred_at >= ?",
+                Long.class, chainId, upperBound.atStartOfDay());
+        Long floorId = jdbcTemplate.queryForObject(
+                "SELECT MAX(id) FROM audit_event PARTITION (" + partition + ") WHERE chain_id = ? AND id < ?",
+                Long.class, chainId, firstRetainedId != null ? firstRetainedId : Long.MAX_VALUE);
+        if (floorId == null) {
+            floorId = firstRetainedId;
+        }
+        if (floorId == null) {
+            return 0;
+        }
+
+        return jdbcTemplate.update(
+                "INSERT IGNORE INTO audit_chain_anchor " +
+                "(chain_id, event_id, event_hash, occurred_at, pruned_at, partition_name) " +
+                "SELECT chain_id, id, event_hash, occurred_at, UTC_TIMESTAMP(3), ? " +
+                "FROM audit_event PARTITION (" + partition + ") WHERE chain_id = ? AND id >= ?",
+                partition, chainId, floorId);
+    }
+
+    /**
+     * Move a partition's rows into a standalone archive table (metadata-only swap).
+     *
+     * @return The archive table name
+     */
+    public String archivePartition(String name) {
+        String archiveTable = "audit_event_archive_" + checked(name);
+        jdbcTemplate.execute("CREATE TABLE " + archiveTable + " LIKE audit_event");
+        jdbcTemplate.execute("ALTER TABLE " + archiveTable + " REMOVE PARTITIONING");
+        jdbcTemplate.execute("ALTER TABLE audit_event EXCHANGE PARTITION " + name + " WITH TABLE " + archiveTable);
+        return archiveTable;
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE audit_event DROP PARTITION " + checked(name));
+    }
+
+    private String checked(String name) {
+        if (!PARTITION_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Unexpected partition name: " + name);
+        }
+        return name;
+    }
+
+    /**
+     * PARTITION_DESCRIPTION is MAXVALUE or a quoted datetime literal such as '2026-02-01 00:00:00'
+     */
+    private LocalDate parseUpperBound(String description) {
+        if (description == null || description.equalsIgnoreCase("MAXVALUE")) {
+            return null;
+        }
+        return LocalDate.parse(description.replace("'", "").substring(0, 10));
+    }
+}
@@ -0,0 +1,134 @@
+package com.ehrplatform.audit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain JDBC access to the audit_rollup and audit_actor_rollup count tables.
+ * Increments are upserts that join the surrounding ingest transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AuditRollupJdbcRepository {
+
+    private static final String INCREMENT_SQL =
+            "INSERT INTO audit_rollup (granularity, bucket_start, event_type, outcome, source_service, severity, event_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count)";
+
+    private static final String INCREMENT_ACTOR_SQL =
+            "INSERT INTO audit_actor_rollup (granularity, bucket_start, actor_user_id, event_count) " +
+            "VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record EventCount(String granularity, Instant bucketStart, String eventType, String outcome,
+                             String sourceService, String severity, long count) {
+    }
+
+    public record ActorCount(String granularity, Instant bucketStart, long actorUserId, long count) {
+    }
+
+    public record ActorTotal(long actorUserId, long count) {
+    }
+
+    /**
+     * Add counts in one JDBC batch. Callers pass rows in a stable order so that
+     * concurrent transactions lock shared rows in the same order.
+     */
+    public void batchIncrement(List<EventCount> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, counts, counts.size(), (ps, c) -> {
+            ps.setString(1, c.granularity());
+            ps.setTimestamp(2, Timestamp.from(c.bucketStart()));
+            ps.setString(3, c.eventType());
+            ps.setString(4, c.outcome());
+            ps.setString(5, c.sourceService());
+            ps.setString(6, c.severity());
+            ps.setLong(7, c.count());
+        });
+    }
+
+    /**
+     * Add per-actor counts in one JDBC batch.
+     */
+    public void batchIncrementActors(List<ActorCount> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(INCREMENT_ACTOR_SQL, counts, counts.size(), (ps, c) -> {
+            ps.setString(1, c.granularity());
+            ps.setTimestamp(2, Timestamp.from(c.bucketStart()));
+            ps.setLong(3, c.actorUserId());
+            ps.setLong(4, c.count());
+        });
+    }
+
+    /**
+     * Read the counts of buckets starting in [from, to), optionally filtered on the dimensions.
+     */
+    public List<EventCount> findCounts(String granularity, Instant from, Instant to,
+                                       String eventType, String outcome, String sourceService, String severity) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT bucket_start, event_type, outcome, source_service, severity, event_count FROM audit_rollup " +
+                "WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?");
+        List<Object> args = new ArrayList<>(List.of(granularity, Timestamp.from(from), Timestamp.from(to)));
+        appendFilter(sql, args, "event_type", eventType);
+        appendFilter(sql, args, "outcome", outcome);
+        appendFilter(sql, args, "source_service", sourceService);
+        appendFilter(sql, args, "severity", severity);
+        sql.append(" ORDER BY bucket_start, event_type, outcome, source_service, severity");
+
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> new EventCount(
+                granularity,
+                rs.getTimestamp("bucket_start").toInstant(),
+                rs.getString("event_type"),
+                rs.getString("outcome"),
+                rs.getString("source_service"),
+                rs.getString("severity"),
+                rs.getLong("event_count")), args.toArray());
+    }
+
+    /**
+     * Find the most active actors over buckets starting in [from, to)
+     */
+    public List<ActorTotal> findTopActors(String granularity, Instant from, Instant to, int limit) {
+        return jdbcTemplate.query(
+                "SELECT actor_user_id, SUM(event_count) AS total FROM audit_actor_rollup " +
+                "WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ? " +
+                "GROUP BY actor_user_id ORDER BY total DESC, actor_user_id LIMIT ?",
+                (rs, rowNum) -> new ActorTotal(rs.getLong("actor_user_id"), rs.getLong("total")),
+                granularity, Timestamp.from(from), Timestamp.from(to), limit);
+    }
+
+    /**
+     * Delete buckets of a granularity older than the cutoff.
+     *
+     * @return Number of rows deleted from both tables
+     */
+    public int deleteBefore(String granularity, Instant cutoff) {
+        Timestamp before = Timestamp.from(cutoff);
+        return jdbcTemplate.update("DELETE FROM audit_rollup WHERE granularity = ? AND bucket_start < ?",
+                granularity, before)
+                + jdbcTemplate.update("DELETE FROM audit_actor_rollup WHERE granularity = ? AND bucket_start < ?",
+                granularity, before);
+    }
+
+    private void appendFilter(StringBuilder sql, List<Object> args, String column, String value) {
+        if (value != null) {
+            sql.append(" AND ").append(column).append(" = ?");
+            args.add(value);
+        }
+    }
+}
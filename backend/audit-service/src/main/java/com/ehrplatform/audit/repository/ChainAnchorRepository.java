@@ -0,0 +1,27 @@
+package com.ehrplatform.audit.repository;
+
+import com.ehrplatform.audit.entity.ChainAnchor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ChainAnchorRepository extends JpaRepository<ChainAnchor, Long> {
+
+    /**
+     * Find the latest pruned event of a chain below an event ID
+     */
+    Optional<ChainAnchor> findTopByChainIdAndEventIdLessThanOrderByEventIdDesc(Integer chainId, Long eventId);
+
+    /**
+     * Find the pruned events of a chain in an ID range, in chain order
+     */
+    List<ChainAnchor> findByChainIdAndEventIdBetweenOrderByEventIdAsc(Integer chainId, Long fromId, Long toId);
+
+    /**
+     * Find the latest pruned event of a chain
+     */
+    Optional<ChainAnchor> findTopByChainIdOrderByEventIdDesc(Integer chainId);
+}
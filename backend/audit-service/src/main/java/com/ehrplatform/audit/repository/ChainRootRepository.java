@@ -0,0 +1,23 @@
+package com.ehrplatform.audit.repository;
+
+import com.ehrplatform.audit.entity.ChainRoot;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ChainRootRepository extends JpaRepository<ChainRoot, Long> {
+
+    /**
+     * Get the most recent combined root
+     */
+    Optional<ChainRoot> findTopByOrderByIdDesc();
+
+    /**
+     * Find latest roots
+     */
+    Page<ChainRoot> findAllByOrderByIdDesc(Pageable pageable);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface IntegrityCheckRunRepository extends JpaRepository<IntegrityCheckRun, Long> {
@@ -25,4 +26,14 @@ public interface IntegrityCheckRunRepository extends JpaRepository<IntegrityChec
      * Find latest check runs
      */
     Page<IntegrityCheckRun> findAllByOrderByStartedAtDesc(Pageable pageable);
+
+    /**
+     * Find the most recent run of a type
+     */
+    Optional<IntegrityCheckRun> findTopByRunTypeOrderByIdDesc(String runType);
+
+    /**
+     * Find the run of a type and status that verified furthest
+     */
+    Optional<IntegrityCheckRun> findTopByRunTypeAndStatusOrderByLastVerifiedEventIdDesc(String runType, String status);
 }
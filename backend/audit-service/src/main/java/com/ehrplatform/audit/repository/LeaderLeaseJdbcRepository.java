@@ -0,0 +1,65 @@
+package com.ehrplatform.audit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Plain JDBC access to audit_leader_lease. Lease times are compared on the database
+ * clock, so replicas with drifting clocks still agree on when a lease has expired.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LeaderLeaseJdbcRepository {
+
+    // MySQL applies SET assignments left to right: the IFs must see the old owner_id
+    private static final String ACQUIRE_SQL =
+            "UPDATE audit_leader_lease SET " +
+            "fencing_token = IF(owner_id <=> ?, fencing_token, fencing_token + 1), " +
+            "acquired_at = IF(owner_id <=> ?, acquired_at, UTC_TIMESTAMP(3)), " +
+            "owner_id = ?, " +
+            "lease_until = UTC_TIMESTAMP(3) + INTERVAL ? MICROSECOND " +
+            "WHERE name = ? AND (owner_id = ? OR lease_until < UTC_TIMESTAMP(3))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Take or renew a lease. Succeeds if the owner already holds it or it has expired.
+     *
+     * @return The lease's fencing token, or null if another owner holds it
+     */
+    public Long tryAcquire(String name, String ownerId, long leaseMillis) {
+        int updated = jdbcTemplate.update(ACQUIRE_SQL,
+                ownerId, ownerId, ownerId, leaseMillis * 1000, name, ownerId);
+        if (updated == 0) {
+            return null;
+        }
+        List<Long> tokens = jdbcTemplate.queryForList(
+                "SELECT fencing_token FROM audit_leader_lease WHERE name = ? AND owner_id = ?",
+                Long.class, name, ownerId);
+        return tokens.isEmpty() ? null : tokens.get(0);
+    }
+
+    /**
+     * Give up a lease so another owner can take it without waiting for expiry.
+     */
+    public void release(String name, String ownerId) {
+        jdbcTemplate.update(
+                "UPDATE audit_leader_lease SET owner_id = NULL, lease_until = '1970-01-01 00:00:01' " +
+                "WHERE name = ? AND owner_id = ?",
+                name, ownerId);
+    }
+
+    /**
+     * Check inside a transaction that the lease is still held with this fencing token.
+     * The shared lock keeps a new owner from taking the lease until the transaction ends.
+     */
+    public boolean holdsLease(String name, String ownerId, long fencingToken) {
+        List<Long> tokens = jdbcTemplate.queryForList(
+                "SELECT fencing_token FROM audit_leader_lease WHERE name = ? AND owner_id = ? FOR SHARE",
+                Long.class, name, ownerId);
+        return !tokens.isEmpty() && tokens.get(0) == fencingToken;
+    }
+}
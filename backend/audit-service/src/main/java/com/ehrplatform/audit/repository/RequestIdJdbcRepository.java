@@ -0,0 +1,100 @@
+package com.ehrplatform.audit.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plain JDBC access to audit_request_id, the database-enforced request ID idempotency key.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RequestIdJdbcRepository {
+
+    private static final int CLAIM_CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Find which of the given request IDs are already stored, including those of
+     * archived events.
+     */
+    public List<String> findExisting(Collection<String> requestIds) {
+        if (requestIds.isEmpty()) {
+            return List.of();
+        }
+        return namedParameterJdbcTemplate.queryForList(
+                "SELECT request_id FROM audit_request_id WHERE request_id IN (:requestIds)",
+                Map.of("requestIds", requestIds), String.class);
+    }
+
+    public boolean exists(String requestId) {
+        return !findExisting(List.of(requestId)).isEmpty();
+    }
+
+    /**
+     * Claim request IDs with INSERT IGNORE in the current transaction. An ID is not
+     * claimed when it is already stored: a duplicate that got past the lookup, because
+     * another transaction (e.g. the DLT replay) stored it meanwhile. One multi-row
+     * statement claims them all when none is taken; otherwise it is rolled back to a
+     * savepoint and the IDs are claimed one by one to learn which were taken.
+     *
+     * @param occurredAtByRequestId Request IDs with the occurred_at of their events
+     * @return The request IDs claimed
+     */
+    public Set<String> claim(Map<String, Instant> occurredAtByRequestId) {
+        if (occurredAtByRequestId.isEmpty()) {
+            return Set.of();
+        }
+        jdbcTemplate.execute("SAVEPOINT claim_request_ids");
+        List<Map.Entry<String, Instant>> rows = new ArrayList<>(occurredAtByRequestId.entrySet());
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += CLAIM_CHUNK_SIZE) {
+            inserted += insertIgnore(rows.subList(from, Math.min(from + CLAIM_CHUNK_SIZE, rows.size())));
+        }
+        if (inserted == rows.size()) {
+            return occurredAtByRequestId.keySet();
+        }
+
+        jdbcTemplate.execute("ROLLBACK TO SAVEPOINT claim_request_ids");
+        Set<String> claimed = new HashSet<>();
+        for (Map.Entry<String, Instant> row : rows) {
+            if (insertIgnore(List.of(row)) == 1) {
+                claimed.add(row.getKey());
+            }
+        }
+        return claimed;
+    }
+
+    private int insertIgnore(List<Map.Entry<String, Instant>> rows) {
+        StringBuilder sql = new StringBuilder("INSERT IGNORE INTO audit_request_id (request_id, occurred_at) VALUES ");
+        Object[] args = new Object[rows.size() * 2];
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "(?, ?)" : ", (?, ?)");
+            args[2 * i] = rows.get(i).getKey();
+            args[2 * i + 1] = Timestamp.from(rows.get(i).getValue());
+        }
+        return jdbcTemplate.update(sql.toString(), args);
+    }
+
+    /**
+     * Delete up to limit request IDs of events that occurred before the given time.
+     *
+     * @return The number of rows deleted
+     */
+    public int deleteOccurredBefore(Instant before, int limit) {
+        return jdbcTemplate.update("DELETE FROM audit_request_id WHERE occurred_at < ? LIMIT ?",
+                Timestamp.from(before), limit);
+    }
+}
@@ -0,0 +1,185 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.entity.AlertDedupKey;
+import com.ehrplatform.audit.repository.AlertDedupKeyJdbcRepository;
+import com.ehrplatform.audit.repository.AlertDedupKeyRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-process cache of live alert dedup keys in front of alert_dedup_key.
+ *
+ * Loaded from the table when this instance is elected chain writer (the only
+ * instance raising alerts), so duplicate checks are answered from memory.
+ * New keys are visible immediately, dropped again if the alert's transaction rolls
+ * back, and persisted in batches after commit (write-behind). The cache is bounded;
+ * once a live key has had to be evicted, misses fall back to the table.
+ */
+@Component
+@Slf4j
+public class AlertDedupCache {
+
+    private final AlertDedupKeyRepository alertDedupKeyRepository;
+    private final AlertDedupKeyJdbcRepository alertDedupKeyJdbcRepository;
+    private final int maxSize;
+
+    private final Map<String, AlertDedupKey> entries = new ConcurrentHashMap<>();
+    private final Queue<AlertDedupKey> pendingWrites = new ConcurrentLinkedQueue<>();
+    // False once a live key was evicted; a miss is then no longer proof of absence
+    private volatile boolean complete = true;
+
+    public AlertDedupCache(AlertDedupKeyRepository alertDedupKeyRepository,
+                           AlertDedupKeyJdbcRepository alertDedupKeyJdbcRepository,
+                           @Value("${audit.alerts.dedup-cache.max-size:10000}") int maxSize) {
+        this.alertDedupKeyRepository = alertDedupKeyRepository;
+        this.alertDedupKeyJdbcRepository = alertDedupKeyJdbcRepository;
+        this.maxSize = maxSize;
+    }
+
+    @EventListener(ChainWriterElectedEvent.class)
+    public void load() {
+        // Keys still waiting for write-behind must be in the table before it is reread
+        flush();
+        entries.clear();
+        List<AlertDedupKey> live = alertDedupKeyRepository.findByExpiresAtAfterOrderByExpiresAtDesc(
+                Instant.now(), PageRequest.of(0, maxSize));
+        live.forEach(key -> entries.put(key.getDedupKey(), key));
+        complete = live.size() < maxSize;
+        log.info("Loaded {} live alert dedup keys (complete={})", live.size(), complete);
+    }
+
+    /**
+     * Check whether an alert with this dedup key was raised and has not expired.
+     */
+    public boolean isDuplicate(String dedupKey) {
+        Instant now = Instant.now();
+        AlertDedupKey cached = entries.get(dedupKey);
+        if (cached != null) {
+            if (cached.getExpiresAt().isAfter(now)) {
+                return true;
+            }
+            entries.remove(dedupKey, cached);
+        }
+        if (complete) {
+            return false;
+        }
+
+        // Cache has evicted live keys: consult the table
+        return alertDedupKeyRepository.findById(dedupKey)
+                .filter(key -> key.getExpiresAt().isAfter(now))
+                .map(key -> {
+                    put(key);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Record a dedup key for an alert created in the current transaction.
+     */
+    public void record(String dedupKey, Long alertId, Instant expiresAt) {
+        AlertDedupKey key = AlertDedupKey.builder()
+                .dedupKey(dedupKey)
+                .alertId(alertId)
+                .expiresAt(expiresAt)
+                .build();
+        put(key);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingWrites.add(key);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    pendingWrites.add(key);
+                } else {
+                    entries.remove(dedupKey, key);
+                }
+            }
+        });
+    }
+
+    /**
+     * Scheduled job to persist recorded keys and drop expired ones from memory
+     */
+    @Scheduled(fixedDelayString = "${audit.alerts.dedup-cache.flush-interval:5000}")
+    public void flush() {
+        List<AlertDedupKey> batch = new ArrayList<>();
+        for (AlertDedupKey key = pendingWrites.poll(); key != null; key = pendingWrites.poll()) {
+            batch.add(key);
+        }
+        if (!batch.isEmpty()) {
+            try {
+                alertDedupKeyJdbcRepository.batchUpsert(batch);
+                log.debug("Flushed {} alert dedup keys", batch.size());
+            } catch (Exception e) {
+                log.error("Failed to flush {} alert dedup keys, will retry", batch.size(), e);
+                pendingWrites.addAll(batch);
+            }
+        }
+
+        Instant now = Instant.now();
+        entries.values().removeIf(key -> !key.getExpiresAt().isAfter(now));
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Scheduled job to delete expired keys from the table
+     */
+    @Scheduled(fixedRateString = "${audit.alerts.dedup-cache.cleanup-fixed-rate:3600000}")
+    @Transactional
+    public void cleanupExpiredKeys() {
+        int deleted = alertDedupKeyRepository.deleteExpiredKeys(Instant.now());
+        if (deleted > 0) {
+            log.debug("Cleaned up {} expired dedup keys", deleted);
+        }
+    }
+
+    private void put(AlertDedupKey key) {
+        if (entries.size() >= maxSize && !entries.containsKey(key.getDedupKey())) {
+            makeRoom();
+        }
+        entries.put(key.getDedupKey(), key);
+    }
+
+    /**
+     * Drop expired keys, or failing that the key closest to expiry.
+     */
+    private void makeRoom() {
+        Instant now = Instant.now();
+        entries.values().removeIf(key -> !key.getExpiresAt().isAfter(now));
+        if (entries.size() < maxSize) {
+            return;
+        }
+
+        entries.values().stream()
+                .min(Comparator.comparing(AlertDedupKey::getExpiresAt))
+                .ifPresent(oldest -> {
+                    entries.remove(oldest.getDedupKey(), oldest);
+                    complete = false;
+                });
+    }
+}
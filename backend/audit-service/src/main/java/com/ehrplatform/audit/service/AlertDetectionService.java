@@ -1,10 +1,8 @@
 package com.ehrplatform.audit.service;
 
 import com.ehrplatform.audit.entity.Alert;
-import com.ehrplatform.audit.entity.AlertDedupKey;
 import com.ehrplatform.audit.entity.AuditEvent;
 import com.ehrplatform.audit.kafka.AlertPublisher;
-import com.ehrplatform.audit.repository.AlertDedupKeyRepository;
 import com.ehrplatform.audit.repository.AlertRepository;
 import com.ehrplatform.audit.repository.AuditEventRepository;
 import lombok.RequiredArgsConstructor;
@@ -33,9 +31,11 @@ import java.util.*;
 public class AlertDetectionService {
 
     private final AlertRepository alertRepository;
-    private final AlertDedupKeyRepository alertDedupKeyRepository;
+    private final AlertDedupCache alertDedupCache;
     private final AuditEventRepository auditEventRepository;
     private final AlertPublisher alertPublisher;
+    private final WindowedAlertCounters windowedAlertCounters;
+    private final ChainWriterLeadership chainWriterLeadership;
 
     @Value("${audit.alerts.enabled:true}")
     private boolean alertsEnabled;
@@ -89,6 +89,19 @@ public class AlertDetectionService {
             return;
         }
 
+        // Threshold alerts fire as soon as this event pushes a windowed count past its limit
+        for (WindowedAlertCounters.Crossing crossing : windowedAlertCounters.record(event)) {
+            switch (crossing.alertType()) {
+                case "REPEATED_FAILED_LOGIN" ->
+                        raiseRepeatedFailedLogin(crossing.email(), crossing.ip(), crossing.count());
+                case "DENIED_ACCESS_BURST" ->
+                        raiseDeniedAccessBurst(crossing.userId(), crossing.ip(), crossing.count());
+                case "EXPORT_SPIKE" -> raiseExportSpike(crossing.userId(), crossing.count());
+                case "BULK_ACCESS" -> raiseBulkAccess(crossing.userId(), crossing.count());
+                default -> log.warn("Unknown windowed alert type: {}", crossing.alertType());
+            }
+        }
+
         // Log care-service events for tracking (no alert, just audit)
         if (CARE_EVENTS.contains(event.getEventType())) {
             log.info("Care event recorded: eventType={}, patientId={}, actorUserId={}",
@@ -97,12 +110,14 @@ public class AlertDetectionService {
     }
 
     /**
-     * Scheduled job to detect pattern-based alerts
+     * Scheduled job to detect pattern-based alerts.
+     * With streaming detection enabled this is a reconciliation pass that catches
+     * thresholds spread across instances or missed while the service was down.
      */
     @Scheduled(fixedRateString = "${audit.alerts.schedule.fixed-rate:60000}")
     @Transactional
     public void runScheduledAlertDetection() {
-        if (!alertsEnabled) {
+        if (!alertsEnabled || !chainWriterLeadership.isLeader()) {
             return;
         }
 
@@ -113,7 +128,6 @@ public class AlertDetectionService {
             detectDeniedAccessBursts();
             detectExportSpikes();
             detectBulkPatientAccess();
-            cleanupExpiredDedupKeys();
         } catch (Exception e) {
             log.error("Error during scheduled alert detection", e);
         }
@@ -170,42 +184,42 @@ public class AlertDetectionService {
                 since, failedLoginThreshold);
 
         for (Object[] row : results) {
-            String email = (String) row[0];
-            String ip = (String) row[1];
-            Long count = (Long) row[2];
-
-            String dedupKey = buildDedupKey("REPEATED_FAILED_LOGIN", 
-                    email != null ? email : "unknown",
-                    ip != null ? ip : "unknown",
-                    Instant.now().truncatedTo(ChronoUnit.HOURS).toString());
+            raiseRepeatedFailedLogin((String) row[0], (String) row[1], (Long) row[2]);
+        }
+    }
 
-            if (isDuplicate(dedupKey)) {
-                continue;
-            }
+    private void raiseRepeatedFailedLogin(String email, String ip, long count) {
+        String dedupKey = buildDedupKey("REPEATED_FAILED_LOGIN", 
+                email != null ? email : "unknown",
+                ip != null ? ip : "unknown",
+                Instant.now().truncatedTo(ChronoUnit.HOURS).toString());
 
-            Alert alert = Alert.builder()
-                    .alertType("REPEATED_FAILED_LOGIN")
-                    .severity("HIGH")
-                    .title("Repeated Failed Login Attempts")
-                    .message(String.format("%d failed login attempts from email %s, IP %s in last %d minutes",
-                            count, email, ip, failedLoginWindowMinutes))
-                    .actorEmail(email)
-                    .ip(ip)
-                    .evidenceJson(Map.of(
-                            "failedCount", count,
-                            "email", email != null ? email : "unknown",
-                            "ip", ip != null ? ip : "unknown",
-                            "windowMinutes", failedLoginWindowMinutes
-                    ))
-                    .build();
-
-            Alert saved = alertRepository.save(alert);
-            saveDedupKey(dedupKey, saved.getId(), 60);
-            alertPublisher.publishAlert(saved);
-            
-            log.warn("ALERT: {} - {} attempts from {}/{}", 
-                    alert.getAlertType(), count, email, ip);
+        if (isDuplicate(dedupKey)) {
+            return;
         }
+
+        Alert alert = Alert.builder()
+                .alertType("REPEATED_FAILED_LOGIN")
+                .severity("HIGH")
+                .title("Repeated Failed Login Attempts")
+                .message(String.format("%d failed login attempts from email %s, IP %s in last %d minutes",
+                        count, email, ip, failedLoginWindowMinutes))
+                .actorEmail(email)
+                .ip(ip)
+                .evidenceJson(Map.of(
+                        "failedCount", count,
+                        "email", email != null ? email : "unknown",
+                        "ip", ip != null ? ip : "unknown",
+                        "windowMinutes", failedLoginWindowMinutes
+                ))
+                .build();
+
+        Alert saved = alertRepository.save(alert);
+        saveDedupKey(dedupKey, saved.getId(), 60);
+        alertPublisher.publishAlert(saved);
+        
+        log.warn("ALERT: {} - {} attempts from {}/{}", 
+                alert.getAlertType(), count, email, ip);
     }
 
     /**
@@ -218,42 +232,42 @@ public class AlertDetectionService {
                 since, deniedAccessThreshold);
 
         for (Object[] row : results) {
-            Long userId = (Long) row[0];
-            String ip = (String) row[1];
-            Long count = (Long) row[2];
-
-            String dedupKey = buildDedupKey("DENIED_ACCESS_BURST",
-                    String.valueOf(userId),
-                    ip != null ? ip : "unknown",
-                    Instant.now().truncatedTo(ChronoUnit.HOURS).toString());
+            raiseDeniedAccessBurst((Long) row[0], (String) row[1], (Long) row[2]);
+        }
+    }
 
-            if (isDuplicate(dedupKey)) {
-                continue;
-            }
+    private void raiseDeniedAccessBurst(Long userId, String ip, long count) {
+        String dedupKey = buildDedupKey("DENIED_ACCESS_BURST",
+                String.valueOf(userId),
+                ip != null ? ip : "unknown",
+                Instant.now().truncatedTo(ChronoUnit.HOURS).toString());
 
-            Alert alert = Alert.builder()
-                    .alertType("DENIED_ACCESS_BURST")
-                    .severity("HIGH")
-                    .title("Denied Access Burst Detected")
-                    .message(String.format("%d access denials for user %d from IP %s in last %d minutes",
-                            count, userId, ip, deniedAccessWindowMinutes))
-                    .actorUserId(userId)
-                    .ip(ip)
-                    .evidenceJson(Map.of(
-                            "deniedCount", count,
-                            "userId", userId,
-                            "ip", ip != null ? ip : "unknown",
-                            "windowMinutes", deniedAccessWindowMinutes
-                    ))
-                    .build();
-
-            Alert saved = alertRepository.save(alert);
-            saveDedupKey(dedupKey, saved.getId(), 60);
-            alertPublisher.publishAlert(saved);
-            
-            log.warn("ALERT: {} - {} denials for user {}", 
-                    alert.getAlertType(), count, userId);
+        if (isDuplicate(dedupKey)) {
+            return;
         }
+
+        Alert alert = Alert.builder()
+                .alertType("DENIED_ACCESS_BURST")
+                .severity("HIGH")
+                .title("Denied Access Burst Detected")
+                .message(String.format("%d access denials for user %d from IP %s in last %d minutes",
+                        count, userId, ip, deniedAccessWindowMinutes))
+                .actorUserId(userId)
+                .ip(ip)
+                .evidenceJson(Map.of(
+                        "deniedCount", count,
+                        "userId", userId,
+                        "ip", ip != null ? ip : "unknown",
+                        "windowMinutes", deniedAccessWindowMinutes
+                ))
+                .build();
+
+        Alert saved = alertRepository.save(alert);
+        saveDedupKey(dedupKey, saved.getId(), 60);
+        alertPublisher.publishAlert(saved);
+        
+        log.warn("ALERT: {} - {} denials for user {}", 
+                alert.getAlertType(), count, userId);
     }
 
     /**
@@ -266,38 +280,39 @@ public class AlertDetectionService {
                 since, exportSpikeThreshold);
 
         for (Object[] row : results) {
-            Long userId = (Long) row[0];
-            Long count = (Long) row[1];
-
-            String dedupKey = buildDedupKey("EXPORT_SPIKE",
-                    String.valueOf(userId),
-                    Instant.now().truncatedTo(ChronoUnit.HOURS).toString());
+            raiseExportSpike((Long) row[0], (Long) row[1]);
+        }
+    }
 
-            if (isDuplicate(dedupKey)) {
-                continue;
-            }
+    private void raiseExportSpike(Long userId, long count) {
+        String dedupKey = buildDedupKey("EXPORT_SPIKE",
+                String.valueOf(userId),
+                Instant.now().truncatedTo(ChronoUnit.HOURS).toString());
 
-            Alert alert = Alert.builder()
-                    .alertType("EXPORT_SPIKE")
-                    .severity("HIGH")
-                    .title("Unusual Export Activity")
-                    .message(String.format("User %d requested %d exports in last %d minutes",
-                            userId, count, exportSpikeWindowMinutes))
-                    .actorUserId(userId)
-                    .evidenceJson(Map.of(
-                            "exportCount", count,
-                            "userId", userId,
-                            "windowMinutes", exportSpikeWindowMinutes
-                    ))
-                    .build();
-
-            Alert saved = alertRepository.save(alert);
-            saveDedupKey(dedupKey, saved.getId(), 60);
-            alertPublisher.publishAlert(saved);
-            
-            log.warn("ALERT: {} - {} exports by user {}", 
-                    alert.getAlertType(), count, userId);
+        if (isDuplicate(dedupKey)) {
+            return;
         }
+
+        Alert alert = Alert.builder()
+                .alertType("EXPORT_SPIKE")
+                .severity("HIGH")
+                .title("Unusual Export Activity")
+                .message(String.format("User %d requested %d exports in last %d minutes",
+                        userId, count, exportSpikeWindowMinutes))
+                .actorUserId(userId)
+                .evidenceJson(Map.of(
+                        "exportCount", count,
+                        "userId", userId,
+                        "windowMinutes", exportSpikeWindowMinutes
+                ))
+                .build();
+
+        Alert saved = alertRepository.save(alert);
+        saveDedupKey(dedupKey, saved.getId(), 60);
+        alertPublisher.publishAlert(saved);
+        
+        log.warn("ALERT: {} - {} exports by user {}", 
+                alert.getAlertType(), count, userId);
     }
 
     /**
@@ -310,38 +325,39 @@ public class AlertDetectionService {
                 since, bulkAccessPatientThreshold);
 
         for (Object[] row : results) {
-            Long userId = (Long) row[0];
-            Long patientCount = (Long) row[1];
-
-            String dedupKey = buildDedupKey("BULK_ACCESS",
-                    String.valueOf(userId),
-                    Instant.now().truncatedTo(ChronoUnit.HOURS).toString());
+            raiseBulkAccess((Long) row[0], (Long) row[1]);
+        }
+    }
 
-            if (isDuplicate(dedupKey)) {
-                continue;
-            }
+    private void raiseBulkAccess(Long userId, long patientCount) {
+        String dedupKey = buildDedupKey("BULK_ACCESS",
+                String.valueOf(userId),
+                Instant.now().truncatedTo(ChronoUnit.HOURS).toString());
 
-            Alert alert = Alert.builder()
-                    .alertType("BULK_ACCESS")
-                    .severity("CRITICAL")
-                    .title("Bulk Patient Access Detected")
-                    .message(String.format("User %d accessed %d unique patient records in last %d minutes",
-                            userId, patientCount, bulkAccessWindowMinutes))
-                    .actorUserId(userId)
-                    .evidenceJson(Map.of(
-                            "uniquePatientCount", patientCount,
-                            "userId", userId,
-                            "windowMinutes", bulkAccessWindowMinutes
-                    ))
-                    .build();
-
-            Alert saved = alertRepository.save(alert);
-            saveDedupKey(dedupKey, saved.getId(), 120); // 2 hour expiry for critical
-            alertPublisher.publishAlert(saved);
-            
-            log.warn("ALERT: {} - {} patients accessed by user {}", 
-                    alert.getAlertType(), patientCount, userId);
+        if (isDuplicate(dedupKey)) {
+            return;
         }
+
+        Alert alert = Alert.builder()
+                .alertType("BULK_ACCESS")
+                .severity("CRITICAL")
+                .title("Bulk Patient Access Detected")
+                .message(String.format("User %d accessed %d unique patient records in last %d minutes",
+                        userId, patientCount, bulkAccessWindowMinutes))
+                .actorUserId(userId)
+                .evidenceJson(Map.of(
+                        "uniquePatientCount", patientCount,
+                        "userId", userId,
+                        "windowMinutes", bulkAccessWindowMinutes
+                ))
+                .build();
+
+        Alert saved = alertRepository.save(alert);
+        saveDedupKey(dedupKey, saved.getId(), 120); // 2 hour expiry for critical
+        alertPublisher.publishAlert(saved);
+        
+        log.warn("ALERT: {} - {} patients accessed by user {}", 
+                alert.getAlertType(), patientCount, userId);
     }
 
     /**
@@ -388,22 +404,10 @@ public class AlertDetectionService {
     }
 
     private boolean isDuplicate(String dedupKey) {
-        return alertDedupKeyRepository.existsByDedupKeyAndExpiresAtAfter(dedupKey, Instant.now());
+        return alertDedupCache.isDuplicate(dedupKey);
     }
 
     private void saveDedupKey(String dedupKey, Long alertId, int expiryMinutes) {
-        AlertDedupKey key = AlertDedupKey.builder()
-                .dedupKey(dedupKey)
-                .alertId(alertId)
-                .expiresAt(Instant.now().plus(expiryMinutes, ChronoUnit.MINUTES))
-                .build();
-        alertDedupKeyRepository.save(key);
-    }
-
-    private void cleanupExpiredDedupKeys() {
-        int deleted = alertDedupKeyRepository.deleteExpiredKeys(Instant.now());
-        if (deleted > 0) {
-            log.debug("Cleaned up {} expired dedup keys", deleted);
-        }
+        alertDedupCache.record(dedupKey, alertId, Instant.now().plus(expiryMinutes, ChronoUnit.MINUTES));
     }
 }
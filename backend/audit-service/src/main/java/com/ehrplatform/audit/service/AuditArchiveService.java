@@ -0,0 +1,376 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.dto.AuditQueryRequest;
+import com.ehrplatform.audit.entity.ArchiveSegment;
+import com.ehrplatform.audit.entity.AuditEvent;
+import com.ehrplatform.audit.repository.ArchiveSegmentRepository;
+import com.ehrplatform.audit.repository.AuditPartitionJdbcRepository;
+import com.ehrplatform.audit.repository.AuditPartitionJdbcRepository.Partition;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold archive tier for audit events.
+ *
+ * Monthly partitions older than min-age-months are written, chain by chain, to
+ * immutable gzip-compressed column-oriented segment files and indexed in
+ * audit_archive_segment with min/max values of occurred_at, actor and patient
+ * plus the first prev_hash and last event_hash. Chain anchors are saved and the
+ * partition is then dropped. Archived events stay readable through findById and
+ * findMatching, which prune segments on the index before opening any file.
+ *
+ * Any replica may serve archive reads and any later leader may archive, so the
+ * directory must be storage shared by all of them. Each segment also records the
+ * URI it was written to; a leader that cannot reach the previous segments does not
+ * archive, so events never end up in files only one node can read.
+ */
+@Service
+@Slf4j
+public class AuditArchiveService {
+
+    private final AuditPartitionJdbcRepository auditPartitionJdbcRepository;
+    private final ArchiveSegmentRepository archiveSegmentRepository;
+    private final ObjectMapper objectMapper;
+    private final ChainWriterLeadership chainWriterLeadership;
+    private final boolean archiveEnabled;
+    private final Path directory;
+    private final int minAgeMonths;
+    private final int segmentMaxEvents;
+    private final int maxQuerySegments;
+
+    public AuditArchiveService(AuditPartitionJdbcRepository auditPartitionJdbcRepository,
+                               ArchiveSegmentRepository archiveSegmentRepository,
+                               ObjectMapper objectMapper,
+                               ChainWriterLeadership chainWriterLeadership,
+                               @Value("${audit.archive.enabled:false}") boolean archiveEnabled,
+                               @Value("${audit.archive.directory:./data/audit-archive}") String directory,
+                               @Value("${audit.archive.min-age-months:12}") int minAgeMonths,
+                               @Value("${audit.archive.segment-max-events:100000}") int segmentMaxEvents,
+                               @Value("${audit.archive.max-query-segments:64}") int maxQuerySegments) {
+        this.auditPartitionJdbcRepository = auditPartitionJdbcRepository;
+        this.archiveSegmentRepository = archiveSegmentRepository;
+        this.objectMapper = objectMapper;
+        this.chainWriterLeadership = chainWriterLeadership;
+        this.archiveEnabled = archiveEnabled;
+        this.directory = Paths.get(directory);
+        this.minAgeMonths = minAgeMonths;
+        this.segmentMaxEvents = segmentMaxEvents;
+        this.maxQuerySegments = maxQuerySegments;
+    }
+
+    /**
+     * Scheduled job to archive partitions older than min-age-months
+     */
+    @Scheduled(cron = "${audit.archive.cron:0 45 3 * * *}", zone = "UTC")
+    public void runArchiving() {
+        if (!archiveEnabled || !chainWriterLeadership.isLeader()) {
+            return;
+        }
+
+        try {
+            if (!storageShared()) {
+                return;
+            }
+            sealDroppedPartitions();
+            LocalDate cutoff = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1).minusMonths(minAgeMonths);
+            for (Partition partition : auditPartitionJdbcRepository.findPartitions()) {
+                if (partition.upperBound() != null && !partition.upperBound().isAfter(cutoff)) {
+                    archivePartition(partition);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error during audit archiving", e);
+        }
+    }
+
+    /**
+     * Write a partition to segment files, then drop it. Resumes after the last
+     * segment already written if an earlier run was interrupted.
+     */
+    public void archivePartition(Partition partition) throws IOException {
+        String name = partition.name();
+        int segments = 0;
+        long events = 0;
+
+        for (Integer chainId : auditPartitionJdbcRepository.findChainIdsInPartition(name)) {
+            long afterId = archiveSegmentRepository.findTopByPartitionNameAndChainIdOrderByToEventIdDesc(name, chainId)
+                    .map(ArchiveSegment::getToEventId)
+                    .orElse(0L);
+            while (true) {
+                List<AuditEvent> page = auditPartitionJdbcRepository.findPartitionEvents(
+                        name, chainId, afterId, segmentMaxEvents);
+                if (page.isEmpty()) {
+                    break;
+                }
+                writeSegment(name, chainId, page);
+                segments++;
+                events += page.size();
+                afterId = page.get(page.size() - 1).getId();
+            }
+            auditPartitionJdbcRepository.insertAnchors(name, partition.upperBound(), chainId);
+        }
+
+        auditPartitionJdbcRepository.dropPartition(name);
+        archiveSegmentRepository.sealPartition(name);
+        log.info("Archived audit_event partition {}: {} events in {} segment file(s)", name, events, segments);
+    }
+
+    /**
+     * Seal the segments of partitions that were dropped but never sealed: dropping is
+     * DDL and commits on its own, so a crash between the drop and the seal leaves the
+     * segments invisible, and the partition is no longer listed to be archived again.
+     */
+    private void sealDroppedPartitions() {
+        Set<String> existing = auditPartitionJdbcRepository.findPartitions().stream()
+                .map(Partition::name)
+                .collect(Collectors.toSet());
+        if (existing.isEmpty()) {
+            return;  // not partitioned
+        }
+        for (String name : archiveSegmentRepository.findUnsealedPartitionNames()) {
+            if (!existing.contains(name)) {
+                int sealed = archiveSegmentRepository.sealPartition(name);
+                log.warn("Sealed {} archive segment(s) of already dropped partition {}", sealed, name);
+            }
+        }
+    }
+
+    /**
+     * Find an archived event by ID.
+     */
+    public Optional<AuditEvent> findById(Long id) {
+        for (ArchiveSegment segment : archiveSegmentRepository.findSealedContaining(id)) {
+            List<AuditEvent> events = readSegment(segment, e -> e.getId().equals(id));
+            if (!events.isEmpty()) {
+                return Optional.of(events.get(0));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Find the first limit archived events matching a query, in the query's sort order,
+     * and count all matches.
+     * Only queries filtering on an indexed column (date range, actor or patient) reach
+     * the archive; no file is opened when no segment's index overlaps the filters.
+     * Segments are decoded one at a time and only their matches kept, in a heap
+     * bounded to limit events.
+     */
+    public ArchivedMatches findMatching(AuditQueryRequest request, int limit) {
+        if (request.getFromDate() == null && request.getToDate() == null
+                && request.getActorUserId() == null && request.getPatientId() == null) {
+            return ArchivedMatches.NONE;
+        }
+        List<ArchiveSegment> candidates = archiveSegmentRepository.findSealedCandidates(
+                request.getFromDate(), request.getToDate(), request.getActorUserId(), request.getPatientId());
+        if (candidates.isEmpty()) {
+            return ArchivedMatches.NONE;
+        }
+        if (candidates.size() > maxQuerySegments) {
+            throw new IllegalArgumentException("Query spans " + candidates.size()
+                    + " archive segments; narrow the date range or filter by actor or patient");
+        }
+
+        Comparator<AuditEvent> order = comparator(request);
+        // Head is the last of the kept events, the first to give way to a better match
+        PriorityQueue<AuditEvent> top = new PriorityQueue<>(order.reversed());
+        long total = 0;
+        for (ArchiveSegment segment : candidates) {
+            for (AuditEvent event : readSegment(segment, e -> matches(e, request))) {
+                total++;
+                if (top.size() < limit) {
+                    top.add(event);
+                } else if (limit > 0 && order.compare(event, top.peek()) < 0) {
+                    top.poll();
+                    top.add(event);
+                }
+            }
+        }
+        List<AuditEvent> events = new ArrayList<>(top);
+        events.sort(order);
+        return new ArchivedMatches(events, total);
+    }
+
+    /**
+     * The first archived matches of a query in its sort order, and the number of all matches
+     */
+    public record ArchivedMatches(List<AuditEvent> events, long total) {
+        static final ArchivedMatches NONE = new ArchivedMatches(List.of(), 0);
+    }
+
+    /**
+     * Sort order of a query, matching the database ORDER BY of the live path
+     */
+    public Comparator<AuditEvent> comparator(AuditQueryRequest request) {
+        Comparator<AuditEvent> comparator = switch (request.getSortBy()) {
+            case "occurredAt" -> Comparator.comparing(AuditEvent::getOccurredAt);
+            case "receivedAt" -> Comparator.comparing(AuditEvent::getReceivedAt);
+            case "id" -> Comparator.comparing(AuditEvent::getId);
+            default -> throw new IllegalArgumentException(
+                    "Sorting by " + request.getSortBy() + " is not supported for archived events");
+        };
+        return request.getSortDirection().equalsIgnoreCase("ASC") ? comparator : comparator.reversed();
+    }
+
+    private void writeSegment(String partitionName, int chainId, List<AuditEvent> events) throws IOException {
+        AuditEvent first = events.get(0);
+        AuditEvent last = events.get(events.size() - 1);
+        String fileName = "chain-" + chainId + "/" + partitionName + "-" + first.getId() + "-" + last.getId() + ".seg.gz";
+        Path file = directory.resolve(fileName);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectories(file.getParent());
+
+        MessageDigest digest = sha256();
+        try (OutputStream fileOut = new DigestOutputStream(Files.newOutputStream(tmp), digest);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(fileOut)))) {
+            SegmentFileCodec.write(events, out, objectMapper);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        file.toFile().setReadOnly();
+
+        archiveSegmentRepository.save(ArchiveSegment.builder()
+                .createdAt(Instant.now())
+                .partitionName(partitionName)
+                .chainId(chainId)
+                .fileName(fileName)
+                .storageUri(file.toAbsolutePath().normalize().toUri().toString())
+                .fileSha256(HexFormat.of().formatHex(digest.digest()))
+                .eventCount(events.size())
+                .fromEventId(first.getId())
+                .toEventId(last.getId())
+                .minOccurredAt(min(events, AuditEvent::getOccurredAt))
+                .maxOccurredAt(max(events, AuditEvent::getOccurredAt))
+                .minActorUserId(min(events, AuditEvent::getActorUserId))
+                .maxActorUserId(max(events, AuditEvent::getActorUserId))
+                .minPatientId(min(events, AuditEvent::getPatientId))
+                .maxPatientId(max(events, AuditEvent::getPatientId))
+                .firstPrevHash(first.getPrevHash())
+                .lastEventHash(last.getEventHash())
+                .build());
+    }
+
+    /**
+     * Read the events of a segment file accepted by filter, checking the file against the
+     * SHA-256 recorded when it was written.
+     */
+    private List<AuditEvent> readSegment(ArchiveSegment segment, Predicate<AuditEvent> filter) {
+        Path file = segmentFile(segment);
+        MessageDigest digest = sha256();
+        try (InputStream fileIn = new DigestInputStream(Files.newInputStream(file), digest);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(fileIn)))) {
+            List<AuditEvent> events = SegmentFileCodec.read(in, objectMapper, filter);
+            fileIn.transferTo(OutputStream.nullOutputStream()); // digest any trailing bytes
+            if (!HexFormat.of().formatHex(digest.digest()).equals(segment.getFileSha256())) {
+                throw new IllegalStateException("Archive segment " + segment.getFileName() + " failed its checksum");
+            }
+            return events;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read archive segment " + segment.getFileName(), e);
+        }
+    }
+
+    /**
+     * Locate a segment file: under this node's directory, else where it was written.
+     */
+    private Path segmentFile(ArchiveSegment segment) {
+        Path file = directory.resolve(segment.getFileName());
+        if (Files.exists(file)) {
+            return file;
+        }
+        if (segment.getStorageUri() != null) {
+            Path written = Paths.get(URI.create(segment.getStorageUri()));
+            if (Files.exists(written)) {
+                return written;
+            }
+        }
+        throw new IllegalStateException("Archive segment " + segment.getFileName() + " (written to "
+                + segment.getStorageUri() + ") is not in " + directory.toAbsolutePath()
+                + "; audit.archive.directory must be storage shared by every replica");
+    }
+
+    /**
+     * Whether this node sees the segments written so far, possibly by another leader.
+     */
+    private boolean storageShared() {
+        Optional<ArchiveSegment> latest = archiveSegmentRepository.findTopBySealedTrueOrderByIdDesc();
+        try {
+            latest.ifPresent(this::segmentFile);
+            return true;
+        } catch (IllegalStateException e) {
+            log.error("Skipping audit archiving: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Same filters as the live query specification
+     */
+    private boolean matches(AuditEvent e, AuditQueryRequest r) {
+        return (r.getFromDate() == null || !e.getOccurredAt().isBefore(r.getFromDate()))
+                && (r.getToDate() == null || !e.getOccurredAt().isAfter(r.getToDate()))
+                && (r.getSourceService() == null || r.getSourceService().equals(e.getSourceService()))
+                && (r.getEventType() == null || r.getEventType().equals(e.getEventType()))
+                && (r.getOutcome() == null || r.getOutcome().equals(e.getOutcome()))
+                && (r.getSeverity() == null || r.getSeverity().equals(e.getSeverity()))
+                && (r.getActorUserId() == null || r.getActorUserId().equals(e.getActorUserId()))
+                && (r.getActorEmail() == null || r.getActorEmail().equals(e.getActorEmail()))
+                && (r.getActorRole() == null || r.getActorRole().equals(e.getActorRole()))
+                && (r.getPatientId() == null || r.getPatientId().equals(e.getPatientId()))
+                && (r.getRecordId() == null || r.getRecordId().equals(e.getRecordId()))
+                && (r.getTargetUserId() == null || r.getTargetUserId().equals(e.getTargetUserId()))
+                && (r.getIp() == null || r.getIp().equals(e.getIp()));
+    }
+
+    private static <T extends Comparable<T>> T min(List<AuditEvent> events, Function<AuditEvent, T> column) {
+        return events.stream().map(column).filter(Objects::nonNull).min(Comparator.naturalOrder()).orElse(null);
+    }
+
+    private static <T extends Comparable<T>> T max(List<AuditEvent> events, Function<AuditEvent, T> column) {
+        return events.stream().map(column).filter(Objects::nonNull).max(Comparator.naturalOrder()).orElse(null);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
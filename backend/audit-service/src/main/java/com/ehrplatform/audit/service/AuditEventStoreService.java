@@ -1,14 +1,21 @@
 package com.ehrplatform.audit.service;
 
+import com.ehrplatform.audit.dto.AuditEventCursorPage;
 import com.ehrplatform.audit.dto.AuditEventMessage;
 import com.ehrplatform.audit.dto.AuditEventResponse;
 import com.ehrplatform.audit.dto.AuditQueryRequest;
 import com.ehrplatform.audit.entity.AuditEvent;
+import com.ehrplatform.audit.entity.ChainAnchor;
+import com.ehrplatform.audit.repository.AuditEventJdbcRepository;
 import com.ehrplatform.audit.repository.AuditEventRepository;
+import com.ehrplatform.audit.repository.ChainAnchorRepository;
+import com.ehrplatform.audit.repository.RequestIdJdbcRepository;
+import com.ehrplatform.audit.service.AuditArchiveService.ArchivedMatches;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -16,10 +23,18 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Service for storing and querying audit events with hash chain integrity.
@@ -30,35 +45,211 @@ import java.util.Optional;
 public class AuditEventStoreService {
 
     private final AuditEventRepository auditEventRepository;
+    private final AuditEventJdbcRepository auditEventJdbcRepository;
+    private final ChainAnchorRepository chainAnchorRepository;
+    private final RequestIdJdbcRepository requestIdJdbcRepository;
     private final HashChainService hashChainService;
+    private final ChainHeadCache chainHeadCache;
+    private final ChainRouter chainRouter;
+    private final AuditArchiveService auditArchiveService;
+    private final AuditRollupService auditRollupService;
+    private final RequestIdFilter requestIdFilter;
+    private final ChainWriterLeadership chainWriterLeadership;
+    private final IngestMetrics ingestMetrics;
 
     /**
      * Store a new audit event with hash chain.
-     * Handles idempotency via request_id unique constraint.
+     * Handles idempotency via the audit_request_id primary key.
      * Normalizes minimal events from care-service by filling defaults.
      *
      * @param message The audit event message from Kafka
-     * @return The stored audit event, or existing one if duplicate
+     * @return The stored audit event, the existing one if duplicate, or null if the
+     *         duplicate's event is no longer in audit_event (archived or dropped) or
+     *         was stored by a concurrent transaction
+     * @throws ChainWriterLeadership.LeaseLostException If this instance is no longer the chain writer
      */
     @Transactional
     public AuditEvent storeEvent(AuditEventMessage message) {
+        // Only the elected chain writer may append; holds off a takeover until commit
+        chainWriterLeadership.checkFence();
+
         // Normalize the message - generate requestId if missing
         String effectiveRequestId = message.getEffectiveRequestId();
         
-        // Idempotency check
-        Optional<AuditEvent> existing = auditEventRepository.findByRequestId(effectiveRequestId);
-        if (existing.isPresent()) {
-            log.info("Duplicate event detected, requestId={}", effectiveRequestId);
-            return existing.get();
+        // Idempotency check - only when the request ID filter cannot rule a duplicate out
+        long started = System.nanoTime();
+        if (requestIdFilter.mightBeStored(effectiveRequestId, message.getOccurredAt())) {
+            Optional<AuditEvent> existing = auditEventRepository.findByRequestId(effectiveRequestId);
+            if (existing.isPresent()) {
+                log.debug("Duplicate event detected, requestId={}", effectiveRequestId);
+                return existing.get();
+            }
+            if (requestIdJdbcRepository.exists(effectiveRequestId)) {
+                log.debug("Duplicate of an archived event, requestId={}", effectiveRequestId);
+                return null;
+            }
         }
+        Instant occurredAt = occurredAt(message);
+        if (requestIdJdbcRepository.claim(Map.of(effectiveRequestId, occurredAt)).isEmpty()) {
+            log.debug("Duplicate event stored concurrently, requestId={}", effectiveRequestId);
+            return auditEventRepository.findByRequestId(effectiveRequestId).orElse(null);
+        }
+        ingestMetrics.recordStage(IngestMetrics.DEDUP, started);
 
         // Get previous hash for chain
-        String prevHash = auditEventRepository.findLatestEventHash()
-                .orElse(hashChainService.getGenesisHash());
+        started = System.nanoTime();
+        int chainId = chainRouter.resolveChainId(message);
+        chainHeadCache.lock(chainId);
+        String prevHash = chainHeadCache.get(chainId, this::loadChainHead);
+        ingestMetrics.recordStage(IngestMetrics.CHAIN_HEAD, started);
+
+        AuditEvent event = buildEvent(message, effectiveRequestId, occurredAt, chainId, prevHash);
+
+        // Compute hash for this event
+        started = System.nanoTime();
+        String eventHash = hashChainService.computeEventHash(prevHash, event);
+        event.setEventHash(eventHash);
+        ingestMetrics.recordStage(IngestMetrics.HASH, started);
+
+        // Save
+        started = System.nanoTime();
+        requestIdFilter.record(List.of(effectiveRequestId));
+        AuditEvent saved = auditEventRepository.save(event);
+        chainHeadCache.advance(chainId, saved.getEventHash());
+        auditRollupService.record(List.of(saved));
+        ingestMetrics.recordStage(IngestMetrics.INSERT, started);
+        ingestMetrics.recordStored(List.of(saved));
+        log.debug("Stored audit event: id={}, requestId={}, eventType={}", 
+                saved.getId(), saved.getRequestId(), saved.getEventType());
+
+        return saved;
+    }
+
+    /**
+     * Store a batch of audit events in a single transaction.
+     * Request IDs are deduplicated in bulk (against the table and within the batch)
+     * and claimed in audit_request_id, which drops duplicates stored concurrently;
+     * hashes are chained in memory from the cached head of each target chain, and the
+     * new rows are written with one JDBC batch insert.
+     *
+     * @param messages The audit event messages from one Kafka poll, in offset order
+     * @return The newly stored audit events; duplicates are not returned
+     * @throws ChainWriterLeadership.LeaseLostException If this instance is no longer the chain writer
+     */
+    @Transactional
+    public List<AuditEvent> storeBatch(List<AuditEventMessage> messages) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+        chainWriterLeadership.checkFence();
+
+        // Resolve request IDs once - getEffectiveRequestId() generates a new UUID per call when missing
+        Map<String, AuditEventMessage> byRequestId = new LinkedHashMap<>();
+        for (AuditEventMessage message : messages) {
+            String requestId = message.getEffectiveRequestId();
+            if (byRequestId.putIfAbsent(requestId, message) != null) {
+                log.debug("Duplicate event within batch, requestId={}", requestId);
+            }
+        }
+
+        // Bulk idempotency check, for the IDs the request ID filter cannot rule out
+        long started = System.nanoTime();
+        List<String> candidates = byRequestId.entrySet().stream()
+                .filter(e -> requestIdFilter.mightBeStored(e.getKey(), e.getValue().getOccurredAt()))
+                .map(Map.Entry::getKey)
+                .toList();
+        List<String> existing = candidates.isEmpty() ? List.of()
+                : requestIdJdbcRepository.findExisting(candidates);
+        if (!existing.isEmpty()) {
+            log.info("Skipping {} duplicate events already stored", existing.size());
+            existing.forEach(byRequestId::remove);
+        }
+        if (byRequestId.isEmpty()) {
+            ingestMetrics.recordStage(IngestMetrics.DEDUP, started);
+            return List.of();
+        }
+
+        // Claim the request IDs before chaining; a duplicate that got past the lookup is
+        // dropped here instead of failing the whole batch on the primary key
+        Map<String, Instant> occurredAt = new HashMap<>();
+        byRequestId.forEach((requestId, message) -> occurredAt.put(requestId, occurredAt(message)));
+        Set<String> claimed = requestIdJdbcRepository.claim(occurredAt);
+        if (claimed.size() < byRequestId.size()) {
+            log.info("Skipping {} duplicate events stored concurrently", byRequestId.size() - claimed.size());
+            byRequestId.keySet().retainAll(claimed);
+        }
+        ingestMetrics.recordStage(IngestMetrics.DEDUP, started);
+        if (byRequestId.isEmpty()) {
+            return List.of();
+        }
+
+        // Group by chain, keeping offset order within each chain
+        Map<Integer, List<Map.Entry<String, AuditEventMessage>>> byChain = new TreeMap<>();
+        for (Map.Entry<String, AuditEventMessage> entry : byRequestId.entrySet()) {
+            byChain.computeIfAbsent(chainRouter.resolveChainId(entry.getValue()), id -> new ArrayList<>())
+                    .add(entry);
+        }
+
+        // Chain hashes in memory; chains are locked in ascending ID order (TreeMap)
+        List<AuditEvent> events = new ArrayList<>(byRequestId.size());
+        Map<Integer, String> newHeads = new HashMap<>();
+        long chainHeadNanos = 0;
+        long hashNanos = 0;
+        for (Map.Entry<Integer, List<Map.Entry<String, AuditEventMessage>>> chain : byChain.entrySet()) {
+            int chainId = chain.getKey();
+            started = System.nanoTime();
+            chainHeadCache.lock(chainId);
+            String prevHash = chainHeadCache.get(chainId, this::loadChainHead);
+            chainHeadNanos += System.nanoTime() - started;
+            for (Map.Entry<String, AuditEventMessage> entry : chain.getValue()) {
+                AuditEvent event = buildEvent(entry.getValue(), entry.getKey(), occurredAt.get(entry.getKey()),
+                        chainId, prevHash);
+                started = System.nanoTime();
+                event.setEventHash(hashChainService.computeEventHash(prevHash, event));
+                hashNanos += System.nanoTime() - started;
+                events.add(event);
+                prevHash = event.getEventHash();
+            }
+            newHeads.put(chainId, prevHash);
+        }
+        ingestMetrics.recordStageNanos(IngestMetrics.CHAIN_HEAD, chainHeadNanos);
+        ingestMetrics.recordStageNanos(IngestMetrics.HASH, hashNanos);
+
+        started = System.nanoTime();
+        requestIdFilter.record(byRequestId.keySet());
+        auditEventJdbcRepository.batchInsert(events);
+        newHeads.forEach(chainHeadCache::advance);
+        auditRollupService.record(events);
+        ingestMetrics.recordStage(IngestMetrics.INSERT, started);
+        ingestMetrics.recordStored(events);
+
+        log.debug("Stored batch of {} audit events: firstId={}, lastId={}",
+                events.size(), events.get(0).getId(), events.get(events.size() - 1).getId());
+
+        return events;
+    }
+
+    private String loadChainHead(int chainId) {
+        return auditEventRepository.findLatestEventHashInChain(chainId)
+                .or(() -> chainAnchorRepository.findTopByChainIdOrderByEventIdDesc(chainId)
+                        .map(ChainAnchor::getEventHash))
+                .orElse(hashChainService.getGenesisHash(chainId));
+    }
+
+    /**
+     * occurred_at of a message's event; DATETIME(3), so hash exactly the value that is stored
+     */
+    private static Instant occurredAt(AuditEventMessage message) {
+        return message.getEffectiveOccurredAt().truncatedTo(ChronoUnit.MILLIS);
+    }
 
-        // Build entity with normalized/default values for missing fields
-        AuditEvent event = AuditEvent.builder()
-                .occurredAt(message.getEffectiveOccurredAt())
+    /**
+     * Build entity with normalized/default values for missing fields
+     */
+    private AuditEvent buildEvent(AuditEventMessage message, String requestId, Instant occurredAt,
+                                  int chainId, String prevHash) {
+        return AuditEvent.builder()
+                .occurredAt(occurredAt)
                 .receivedAt(Instant.now())
                 .sourceService(message.getEffectiveSourceService())
                 .sourceInstance(message.getSourceInstance())
@@ -75,34 +266,28 @@ public class AuditEventStoreService {
                 .patientId(message.getPatientId())
                 .recordId(message.getRecordId())
                 .targetUserId(message.getTargetUserId())
-                .requestId(effectiveRequestId)
+                .requestId(requestId)
                 .traceId(message.getTraceId())
                 .spanId(message.getSpanId())
                 .detailsJson(message.getDetails())
+                .chainId(chainId)
                 .prevHash(prevHash)
+                .hashVersion(hashChainService.getCurrentVersion())
                 .build();
-
-        // Compute hash for this event
-        String eventHash = hashChainService.computeEventHash(prevHash, event);
-        event.setEventHash(eventHash);
-
-        // Save
-        AuditEvent saved = auditEventRepository.save(event);
-        log.debug("Stored audit event: id={}, requestId={}, eventType={}", 
-                saved.getId(), saved.getRequestId(), saved.getEventType());
-
-        return saved;
     }
 
     /**
      * Get audit event by ID
      */
     public Optional<AuditEvent> findById(Long id) {
-        return auditEventRepository.findById(id);
+        Optional<AuditEvent> event = auditEventRepository.findById(id);
+        return event.isPresent() ? event : auditArchiveService.findById(id);
     }
 
     /**
-     * Query audit events with filters and pagination
+     * Query audit events with filters and pagination.
+     * Archived events matching the filters are merged in; the database query is
+     * unchanged when the archive index rules them out.
      */
     public Page<AuditEvent> queryEvents(AuditQueryRequest request) {
         Specification<AuditEvent> spec = buildSpecification(request);
@@ -112,8 +297,97 @@ public class AuditEventStoreService {
                 : Sort.by(request.getSortBy()).descending();
         
         Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), sort);
-        
-        return auditEventRepository.findAll(spec, pageable);
+
+        // Every row of the merged page lies within the first (page + 1) * size rows of either source
+        int window = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+        ArchivedMatches archived = auditArchiveService.findMatching(request, window);
+        if (archived.total() == 0) {
+            return auditEventRepository.findAll(spec, pageable);
+        }
+
+        Page<AuditEvent> live = auditEventRepository.findAll(spec, PageRequest.of(0, window, sort));
+        List<AuditEvent> merged = new ArrayList<>(live.getContent());
+        merged.addAll(archived.events());
+        merged.sort(auditArchiveService.comparator(request));
+
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        int to = Math.min(from + pageable.getPageSize(), merged.size());
+        return new PageImpl<>(merged.subList(from, to), pageable, live.getTotalElements() + archived.total());
+    }
+
+    /**
+     * Query audit events with filters in cursor mode.
+     * Seeks past the cursor on (occurredAt, id) instead of skipping offset rows, and
+     * fetches one extra row to detect a next page instead of running a COUNT query,
+     * so every page costs the same and can be served from the idx_*_time indexes.
+     * Archived events are not included; use offset paging to search them.
+     */
+    public AuditEventCursorPage queryEventsByCursor(AuditQueryRequest request) {
+        if (!"occurredAt".equals(request.getSortBy())) {
+            throw new IllegalArgumentException("Cursor paging only supports sortBy=occurredAt");
+        }
+        boolean ascending = request.getSortDirection().equalsIgnoreCase("ASC");
+        int size = request.getSize();
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+
+        Specification<AuditEvent> spec = buildSpecification(request);
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            spec = spec.and(seekAfter(decodeCursor(request.getCursor()), ascending));
+        }
+
+        Sort sort = ascending
+                ? Sort.by("occurredAt").ascending().and(Sort.by("id").ascending())
+                : Sort.by("occurredAt").descending().and(Sort.by("id").descending());
+
+        List<AuditEvent> rows = auditEventRepository.findBy(spec, query -> query.sortBy(sort).limit(size + 1).all());
+        boolean hasNext = rows.size() > size;
+        List<AuditEvent> page = hasNext ? rows.subList(0, size) : rows;
+
+        return AuditEventCursorPage.builder()
+                .content(page.stream().map(this::toResponse).toList())
+                .size(page.size())
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? encodeCursor(page.get(page.size() - 1)) : null)
+                .build();
+    }
+
+    /**
+     * Rows strictly after the cursor position in the requested order
+     */
+    private Specification<AuditEvent> seekAfter(Cursor cursor, boolean ascending) {
+        return (root, query, cb) -> {
+            if (ascending) {
+                return cb.or(
+                        cb.greaterThan(root.get("occurredAt"), cursor.occurredAt()),
+                        cb.and(cb.equal(root.get("occurredAt"), cursor.occurredAt()),
+                                cb.greaterThan(root.get("id"), cursor.id())));
+            }
+            return cb.or(
+                    cb.lessThan(root.get("occurredAt"), cursor.occurredAt()),
+                    cb.and(cb.equal(root.get("occurredAt"), cursor.occurredAt()),
+                            cb.lessThan(root.get("id"), cursor.id())));
+        };
+    }
+
+    private record Cursor(Instant occurredAt, Long id) {
+    }
+
+    private String encodeCursor(AuditEvent last) {
+        String raw = last.getOccurredAt().toEpochMilli() + ":" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new Cursor(Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator))),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 
     /**
@@ -196,6 +470,7 @@ public class AuditEventStoreService {
                 .details(event.getDetailsJson())
                 .prevHash(event.getPrevHash())
                 .eventHash(event.getEventHash())
+                .hashVersion(event.getHashVersion())
                 .build();
     }
 }
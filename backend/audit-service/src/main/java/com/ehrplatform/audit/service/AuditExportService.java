@@ -0,0 +1,205 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.dto.AuditQueryRequest;
+import com.ehrplatform.audit.repository.AuditEventJdbcRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams audit events matching a query as NDJSON or CSV.
+ *
+ * Rows go straight from a streaming JDBC result set to the (optionally gzipped)
+ * response stream without building entities or pages, so heap use does not grow
+ * with the number of rows. prevHash, eventHash and hashVersion are included so the
+ * exported chain can be re-verified offline.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AuditExportService {
+
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Exported columns: audit_event column and field name (as in AuditEventResponse)
+     */
+    private static final List<String[]> FIELDS = List.of(
+            new String[]{"id", "id"},
+            new String[]{"occurred_at", "occurredAt"},
+            new String[]{"received_at", "receivedAt"},
+            new String[]{"source_service", "sourceService"},
+            new String[]{"source_instance", "sourceInstance"},
+            new String[]{"event_type", "eventType"},
+            new String[]{"outcome", "outcome"},
+            new String[]{"severity", "severity"},
+            new String[]{"actor_user_id", "actorUserId"},
+            new String[]{"actor_role", "actorRole"},
+            new String[]{"actor_email", "actorEmail"},
+            new String[]{"ip", "ip"},
+            new String[]{"user_agent", "userAgent"},
+            new String[]{"device_id", "deviceId"},
+            new String[]{"session_id", "sessionId"},
+            new String[]{"patient_id", "patientId"},
+            new String[]{"record_id", "recordId"},
+            new String[]{"target_user_id", "targetUserId"},
+            new String[]{"request_id", "requestId"},
+            new String[]{"trace_id", "traceId"},
+            new String[]{"span_id", "spanId"},
+            new String[]{"details_json", "details"},
+            new String[]{"chain_id", "chainId"},
+            new String[]{"prev_hash", "prevHash"},
+            new String[]{"event_hash", "eventHash"},
+            new String[]{"hash_version", "hashVersion"});
+
+    private final AuditEventJdbcRepository auditEventJdbcRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Check the export format before the response is committed.
+     */
+    public String checkFormat(String format) {
+        String normalized = format.toLowerCase();
+        if (!NDJSON.equals(normalized) && !CSV.equals(normalized)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format + " (use ndjson or csv)");
+        }
+        return normalized;
+    }
+
+    /**
+     * Write all events matching the query filters, in ID order, to the stream.
+     */
+    public void export(AuditQueryRequest request, String format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long[] rows = {0};
+
+        try {
+            if (CSV.equals(checkFormat(format))) {
+                writer.write(String.join(",", FIELDS.stream().map(f -> f[1]).toList()));
+                writer.write("\r\n");
+                auditEventJdbcRepository.streamMatching(request, rs -> {
+                    writeCsvRow(rs, writer);
+                    rows[0]++;
+                });
+            } else {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+                generator.setRootValueSeparator(null);
+                auditEventJdbcRepository.streamMatching(request, rs -> {
+                    writeJsonRow(rs, generator, writer);
+                    rows[0]++;
+                });
+                generator.flush();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+        log.info("Exported {} audit events as {}{}", rows[0], format, gzip ? " (gzip)" : "");
+    }
+
+    private void writeJsonRow(ResultSet rs, JsonGenerator generator, Writer writer) throws SQLException {
+        try {
+            generator.writeStartObject();
+            for (String[] field : FIELDS) {
+                String column = field[0];
+                generator.writeFieldName(field[1]);
+                switch (column) {
+                    case "id", "actor_user_id", "patient_id", "record_id", "target_user_id", "chain_id",
+                         "hash_version" -> {
+                        long value = rs.getLong(column);
+                        if (rs.wasNull()) {
+                            generator.writeNull();
+                        } else {
+                            generator.writeNumber(value);
+                        }
+                    }
+                    case "details_json" -> {
+                        String json = rs.getString(column);
+                        if (json == null) {
+                            generator.writeNull();
+                        } else {
+                            generator.writeRawValue(json); // stored as a JSON column, already valid JSON
+                        }
+                    }
+                    default -> {
+                        String value = stringValue(rs, column);
+                        if (value == null) {
+                            generator.writeNull();
+                        } else {
+                            generator.writeString(value);
+                        }
+                    }
+                }
+            }
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCsvRow(ResultSet rs, Writer writer) throws SQLException {
+        try {
+            for (int i = 0; i < FIELDS.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                String value = stringValue(rs, FIELDS.get(i)[0]);
+                if (value != null) {
+                    writer.write(csvEscape(value));
+                }
+            }
+            writer.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Column value as text; timestamps as ISO-8601 UTC, as in the JSON API
+     */
+    private String stringValue(ResultSet rs, String column) throws SQLException {
+        if (column.endsWith("_at")) {
+            Timestamp timestamp = rs.getTimestamp(column);
+            return timestamp != null ? timestamp.toInstant().toString() : null;
+        }
+        return rs.getString(column);
+    }
+
+    /**
+     * RFC 4180 quoting; an empty field is NULL, a quoted empty string is ""
+     */
+    private String csvEscape(String value) {
+        if (value.isEmpty()) {
+            return "\"\"";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,156 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.repository.AuditEventRepository;
+import com.ehrplatform.audit.repository.AuditPartitionJdbcRepository;
+import com.ehrplatform.audit.repository.AuditPartitionJdbcRepository.Partition;
+import com.ehrplatform.audit.repository.RequestIdJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Maintains the monthly RANGE partitions of audit_event.
+ *
+ * Keeps months-ahead empty partitions in front of the current month so inserts
+ * never land in pmax, and when retention is configured removes whole expired
+ * months, either archived to a standalone table or dropped. Before a month goes,
+ * the hashes that retained events chain from are saved as chain anchors; the
+ * request IDs of dropped months are deleted from audit_request_id.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AuditPartitionMaintenanceService {
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final int REQUEST_ID_DELETE_CHUNK = 10000;
+
+    private final AuditPartitionJdbcRepository auditPartitionJdbcRepository;
+    private final AuditEventRepository auditEventRepository;
+    private final RequestIdJdbcRepository requestIdJdbcRepository;
+    private final ChainWriterLeadership chainWriterLeadership;
+
+    @Value("${audit.partition.enabled:true}")
+    private boolean partitionMaintenanceEnabled;
+
+    @Value("${audit.partition.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every month
+    @Value("${audit.partition.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${audit.partition.expired-action:archive}")
+    private String expiredAction;
+
+    /**
+     * Runs during the takeover, before this instance reports itself as leader
+     */
+    @EventListener(ChainWriterElectedEvent.class)
+    public void onElected() {
+        maintain();
+    }
+
+    /**
+     * Scheduled job to add future partitions and remove expired ones
+     */
+    @Scheduled(cron = "${audit.partition.cron:0 15 3 * * *}", zone = "UTC")
+    public void runMaintenance() {
+        if (chainWriterLeadership.isLeader()) {
+            maintain();
+        }
+    }
+
+    private void maintain() {
+        if (!partitionMaintenanceEnabled) {
+            return;
+        }
+
+        try {
+            List<Partition> partitions = auditPartitionJdbcRepository.findPartitions();
+            if (partitions.isEmpty()) {
+                log.warn("audit_event is not partitioned, skipping partition maintenance");
+                return;
+            }
+
+            LocalDate currentMonth = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+            createFuturePartitions(partitions, currentMonth);
+            if (retentionMonths > 0) {
+                removeExpiredPartitions(partitions, currentMonth.minusMonths(retentionMonths));
+            }
+        } catch (Exception e) {
+            log.error("Error during audit partition maintenance", e);
+        }
+    }
+
+    private void createFuturePartitions(List<Partition> partitions, LocalDate currentMonth) {
+        LocalDate highest = partitions.stream()
+                .map(Partition::upperBound)
+                .filter(Objects::nonNull)
+                .max(LocalDate::compareTo)
+                .orElse(currentMonth);
+        LocalDate target = currentMonth.plusMonths(monthsAhead + 1L);
+
+        while (highest.isBefore(target)) {
+            String name = "p" + highest.format(PARTITION_SUFFIX);
+            LocalDate upperBound = highest.plusMonths(1);
+            auditPartitionJdbcRepository.addPartition(name, upperBound);
+            log.info("Created audit_event partition {} for events before {}", name, upperBound);
+            highest = upperBound;
+        }
+    }
+
+    /**
+     * Remove every partition whose upper bound is at or before the cutoff, oldest first.
+     */
+    private void removeExpiredPartitions(List<Partition> partitions, LocalDate cutoff) {
+        List<Integer> chainIds = auditEventRepository.findChainIds();
+
+        for (Partition partition : partitions) {
+            if (partition.upperBound() == null || partition.upperBound().isAfter(cutoff)) {
+                continue;
+            }
+
+            int anchors = 0;
+            for (Integer chainId : chainIds) {
+                anchors += auditPartitionJdbcRepository.insertAnchors(partition.name(), partition.upperBound(), chainId);
+            }
+
+            if ("drop".equals(expiredAction)) {
+                auditPartitionJdbcRepository.dropPartition(partition.name());
+                long requestIds = deleteRequestIdsBefore(partition.upperBound());
+                log.info("Dropped expired audit_event partition {} ({} chain anchors kept, {} request IDs deleted)",
+                        partition.name(), anchors, requestIds);
+            } else {
+                String archiveTable = auditPartitionJdbcRepository.archivePartition(partition.name());
+                auditPartitionJdbcRepository.dropPartition(partition.name());
+                log.info("Archived expired audit_event partition {} to {} ({} chain anchors kept)",
+                        partition.name(), archiveTable, anchors);
+            }
+        }
+    }
+
+    /**
+     * Forget the request IDs of dropped events, in chunks to keep transactions short
+     */
+    private long deleteRequestIdsBefore(LocalDate upperBound) {
+        Instant before = upperBound.atStartOfDay(ZoneOffset.UTC).toInstant();
+        long total = 0;
+        int deleted;
+        do {
+            deleted = requestIdJdbcRepository.deleteOccurredBefore(before, REQUEST_ID_DELETE_CHUNK);
+            total += deleted;
+        } while (deleted == REQUEST_ID_DELETE_CHUNK);
+        return total;
+    }
+}
@@ -0,0 +1,198 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.dto.AuditStatsResponse;
+import com.ehrplatform.audit.dto.RollupGranularity;
+import com.ehrplatform.audit.entity.AuditEvent;
+import com.ehrplatform.audit.repository.AuditRollupJdbcRepository;
+import com.ehrplatform.audit.repository.AuditRollupJdbcRepository.ActorCount;
+import com.ehrplatform.audit.repository.AuditRollupJdbcRepository.EventCount;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maintains per-minute, per-hour and per-day event counts (by eventType x outcome x
+ * sourceService x severity, and per actor) inside the ingest transaction, and serves
+ * dashboard statistics from them so reads cost O(buckets) instead of O(events).
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AuditRollupService {
+
+    private static final List<String> GRANULARITIES =
+            List.of(RollupGranularity.MINUTE, RollupGranularity.HOUR, RollupGranularity.DAY);
+
+    // Rows are written in key order so concurrent ingest transactions lock shared rows in the same order
+    private static final Comparator<EventCount> EVENT_COUNT_ORDER = Comparator
+            .comparing(EventCount::granularity)
+            .thenComparing(EventCount::bucketStart)
+            .thenComparing(EventCount::eventType)
+            .thenComparing(EventCount::outcome)
+            .thenComparing(EventCount::sourceService)
+            .thenComparing(EventCount::severity);
+
+    private static final Comparator<ActorCount> ACTOR_COUNT_ORDER = Comparator
+            .comparing(ActorCount::granularity)
+            .thenComparing(ActorCount::bucketStart)
+            .thenComparingLong(ActorCount::actorUserId);
+
+    private final AuditRollupJdbcRepository auditRollupJdbcRepository;
+    private final ChainWriterLeadership chainWriterLeadership;
+
+    @Value("${audit.rollup.enabled:true}")
+    private boolean rollupEnabled;
+
+    @Value("${audit.rollup.max-buckets:1440}")
+    private int maxBuckets;
+
+    @Value("${audit.rollup.minute-retention-days:7}")
+    private int minuteRetentionDays;
+
+    @Value("${audit.rollup.hour-retention-days:90}")
+    private int hourRetentionDays;
+
+    /**
+     * Add newly stored events to the rollups. Must run in the transaction that stored them.
+     */
+    public void record(List<AuditEvent> events) {
+        if (!rollupEnabled || events.isEmpty()) {
+            return;
+        }
+
+        Map<EventCount, Long> counts = new TreeMap<>(EVENT_COUNT_ORDER);
+        Map<ActorCount, Long> actorCounts = new TreeMap<>(ACTOR_COUNT_ORDER);
+        for (AuditEvent event : events) {
+            for (String granularity : GRANULARITIES) {
+                Instant bucket = bucketStart(granularity, event.getOccurredAt());
+                counts.merge(new EventCount(granularity, bucket, event.getEventType(), event.getOutcome(),
+                        event.getSourceService(), event.getSeverity(), 0), 1L, Long::sum);
+                if (event.getActorUserId() != null) {
+                    actorCounts.merge(new ActorCount(granularity, bucket, event.getActorUserId(), 0), 1L, Long::sum);
+                }
+            }
+        }
+
+        auditRollupJdbcRepository.batchIncrement(counts.entrySet().stream()
+                .map(e -> new EventCount(e.getKey().granularity(), e.getKey().bucketStart(), e.getKey().eventType(),
+                        e.getKey().outcome(), e.getKey().sourceService(), e.getKey().severity(), e.getValue()))
+                .toList());
+        auditRollupJdbcRepository.batchIncrementActors(actorCounts.entrySet().stream()
+                .map(e -> new ActorCount(e.getKey().granularity(), e.getKey().bucketStart(),
+                        e.getKey().actorUserId(), e.getValue()))
+                .toList());
+    }
+
+    /**
+     * Get event counts for a time range.
+     *
+     * @param granularity MINUTE, HOUR or DAY; null picks the finest one within max-buckets
+     * @param topActors Number of most active actors to include; 0 for none
+     */
+    public AuditStatsResponse getStats(Instant fromDate, Instant toDate, String granularity,
+                                       String eventType, String outcome, String sourceService, String severity,
+                                       int topActors) {
+        Instant to = toDate != null ? toDate : Instant.now();
+        Instant from = fromDate != null ? fromDate : to.minus(1, ChronoUnit.DAYS);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("fromDate must be before toDate");
+        }
+        if (topActors < 0) {
+            throw new IllegalArgumentException("topActors must not be negative");
+        }
+
+        String resolved = granularity != null ? granularity.toUpperCase() : finestGranularity(from, to);
+        if (!GRANULARITIES.contains(resolved)) {
+            throw new IllegalArgumentException("Unknown granularity: " + granularity);
+        }
+        if (bucketCount(resolved, from, to) > maxBuckets) {
+            throw new IllegalArgumentException("Range spans more than " + maxBuckets + " " + resolved
+                    + " buckets; use a coarser granularity");
+        }
+
+        // Widen to whole buckets
+        Instant start = bucketStart(resolved, from);
+        Instant end = bucketStart(resolved, to).equals(to) ? to : bucketStart(resolved, to).plus(bucketSize(resolved));
+
+        List<AuditStatsResponse.Bucket> buckets = auditRollupJdbcRepository
+                .findCounts(resolved, start, end, eventType, outcome, sourceService, severity).stream()
+                .map(c -> new AuditStatsResponse.Bucket(c.bucketStart(), c.eventType(), c.outcome(),
+                        c.sourceService(), c.severity(), c.count()))
+                .toList();
+        List<AuditStatsResponse.ActorActivity> actors = topActors == 0 ? List.of()
+                : auditRollupJdbcRepository.findTopActors(resolved, start, end, topActors).stream()
+                        .map(a -> new AuditStatsResponse.ActorActivity(a.actorUserId(), a.count()))
+                        .toList();
+
+        return AuditStatsResponse.builder()
+                .granularity(resolved)
+                .fromDate(start)
+                .toDate(end)
+                .totalEvents(buckets.stream().mapToLong(AuditStatsResponse.Bucket::getCount).sum())
+                .buckets(buckets)
+                .topActors(actors)
+                .build();
+    }
+
+    /**
+     * Scheduled job to drop fine-grained buckets past their retention; DAY buckets are kept
+     */
+    @Scheduled(cron = "${audit.rollup.cleanup-cron:0 30 3 * * *}", zone = "UTC")
+    public void cleanupOldBuckets() {
+        if (!rollupEnabled || !chainWriterLeadership.isLeader()) {
+            return;
+        }
+
+        try {
+            Instant now = Instant.now();
+            int deleted = auditRollupJdbcRepository.deleteBefore(RollupGranularity.MINUTE,
+                    now.minus(minuteRetentionDays, ChronoUnit.DAYS));
+            deleted += auditRollupJdbcRepository.deleteBefore(RollupGranularity.HOUR,
+                    now.minus(hourRetentionDays, ChronoUnit.DAYS));
+            log.debug("Cleaned up {} expired rollup rows", deleted);
+        } catch (Exception e) {
+            log.error("Error during rollup cleanup", e);
+        }
+    }
+
+    private String finestGranularity(Instant from, Instant to) {
+        for (String granularity : GRANULARITIES) {
+            if (bucketCount(granularity, from, to) <= maxBuckets) {
+                return granularity;
+            }
+        }
+        return RollupGranularity.DAY;
+    }
+
+    private long bucketCount(String granularity, Instant from, Instant to) {
+        long span = Duration.between(bucketStart(granularity, from), to).toMillis();
+        long size = bucketSize(granularity).toMillis();
+        return (span + size - 1) / size;
+    }
+
+    private static Instant bucketStart(String granularity, Instant at) {
+        return at.truncatedTo(unit(granularity));
+    }
+
+    private static Duration bucketSize(String granularity) {
+        return unit(granularity).getDuration();
+    }
+
+    private static ChronoUnit unit(String granularity) {
+        return switch (granularity) {
+            case RollupGranularity.MINUTE -> ChronoUnit.MINUTES;
+            case RollupGranularity.HOUR -> ChronoUnit.HOURS;
+            default -> ChronoUnit.DAYS;
+        };
+    }
+}
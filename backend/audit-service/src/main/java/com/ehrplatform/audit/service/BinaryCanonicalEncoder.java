@@ -0,0 +1,199 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.entity.AuditEvent;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash format version 2: a length-prefixed binary canonical form of an event,
+ * streamed straight into a SHA-256 digest.
+ *
+ * Layout: version byte, prevHash, then the hashed fields in the v1 order. Strings are
+ * an int length (-1 for null) plus UTF-8 bytes; nullable longs are a presence byte plus
+ * 8 bytes; occurredAt is epoch milliseconds. Details are written with sorted keys and
+ * typed values, recursing into nested objects and arrays. Unlike the v1 string form,
+ * no delimiter inside a value can make two different events encode the same way.
+ *
+ * Not thread-safe: one instance per thread, reused across events.
+ */
+final class BinaryCanonicalEncoder {
+
+    static final byte VERSION = 2;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte NUMBER = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte OBJECT = 4;
+    private static final byte ARRAY = 5;
+
+    private final MessageDigest digest;
+    private byte[] buffer = new byte[512];
+    private int position;
+
+    BinaryCanonicalEncoder() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * SHA-256 of the canonical form of an event chained onto prevHash.
+     */
+    byte[] hash(String prevHash, AuditEvent event) {
+        position = 0;
+        putByte(VERSION);
+        putString(prevHash);
+        putLong(event.getOccurredAt().toEpochMilli());
+        putString(event.getSourceService());
+        putString(event.getSourceInstance());
+        putString(event.getEventType());
+        putString(event.getOutcome());
+        putString(event.getSeverity());
+        putNullableLong(event.getActorUserId());
+        putString(event.getActorRole());
+        putString(event.getActorEmail());
+        putString(event.getIp());
+        putString(event.getUserAgent());
+        putString(event.getDeviceId());
+        putString(event.getSessionId());
+        putNullableLong(event.getPatientId());
+        putNullableLong(event.getRecordId());
+        putNullableLong(event.getTargetUserId());
+        putString(event.getRequestId());
+        putString(event.getTraceId());
+        putString(event.getSpanId());
+        putObject(event.getDetailsJson() != null ? event.getDetailsJson() : Map.of());
+
+        digest.update(buffer, 0, position);
+        return digest.digest();
+    }
+
+    private void putValue(Object value) {
+        if (value == null) {
+            putByte(NULL);
+        } else if (value instanceof String s) {
+            putByte(STRING);
+            putString(s);
+        } else if (value instanceof Number n) {
+            putByte(NUMBER);
+            putString(n.toString());
+        } else if (value instanceof Boolean b) {
+            putByte(BOOLEAN);
+            putByte((byte) (b ? 1 : 0));
+        } else if (value instanceof Map<?, ?> map) {
+            putObject(map);
+        } else if (value instanceof List<?> list) {
+            putByte(ARRAY);
+            putInt(list.size());
+            for (Object element : list) {
+                putValue(element);
+            }
+        } else {
+            putByte(STRING);
+            putString(value.toString());
+        }
+    }
+
+    private void putObject(Map<?, ?> map) {
+        putByte(OBJECT);
+        putInt(map.size());
+        if (map.size() == 1) {
+            Map.Entry<?, ?> entry = map.entrySet().iterator().next();
+            putString(String.valueOf(entry.getKey()));
+            putValue(entry.getValue());
+            return;
+        }
+
+        String[] keys = new String[map.size()];
+        int i = 0;
+        for (Object key : map.keySet()) {
+            keys[i++] = String.valueOf(key);
+        }
+        Arrays.sort(keys);
+        for (String key : keys) {
+            putString(key);
+            putValue(map.get(key));
+        }
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+
+        int length = value.length();
+        ensureCapacity(4 + length * 3);
+        int start = position;
+        position += 4;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[position++] = '?'; // unpaired surrogate, as String.getBytes(UTF_8) does
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        writeInt(start, position - start - 4);
+    }
+
+    private void putNullableLong(Long value) {
+        if (value == null) {
+            putByte((byte) 0);
+        } else {
+            putByte((byte) 1);
+            putLong(value);
+        }
+    }
+
+    private void putLong(long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer[position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void putInt(int value) {
+        ensureCapacity(4);
+        writeInt(position, value);
+        position += 4;
+    }
+
+    private void putByte(byte value) {
+        ensureCapacity(1);
+        buffer[position++] = value;
+    }
+
+    private void writeInt(int at, int value) {
+        buffer[at] = (byte) (value >>> 24);
+        buffer[at + 1] = (byte) (value >>> 16);
+        buffer[at + 2] = (byte) (value >>> 8);
+        buffer[at + 3] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ehrplatform.audit.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+/**
+ * In-memory cache of the hash at the head of each audit chain.
+ * Saves the ORDER BY id DESC lookup on every append. The cached head is
+ * dropped whenever the appending transaction does not commit, before the
+ * chain lock is released, so the next append reloads it from the database.
+ *
+ * Also hands out one lock per chain so that listener threads appending to
+ * the same chain are serialized until their transaction completes.
+ */
+@Component
+@Slf4j
+public class ChainHeadCache {
+
+    private final Map<Integer, String> heads = new ConcurrentHashMap<>();
+    private final Map<Integer, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    /**
+     * Lock a chain for the rest of the current transaction.
+     * Callers appending to several chains must lock them in ascending chain ID order.
+     * If the transaction does not commit, the cached head is dropped and only then is
+     * the lock released, so the next holder never sees a head that was never stored.
+     */
+    public void lock(int chainId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Chain " + chainId + " can only be locked inside a transaction");
+        }
+
+        ReentrantLock lock = locks.computeIfAbsent(chainId, id -> new ReentrantLock());
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status != STATUS_COMMITTED) {
+                        log.debug("Append transaction did not commit, invalidating cached head of chain {}", chainId);
+                        heads.remove(chainId);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Get the current head of a chain, loading it from the database on a miss.
+     */
+    public String get(int chainId, IntFunction<String> loader) {
+        String current = heads.get(chainId);
+        if (current == null) {
+            current = loader.apply(chainId);
+            heads.put(chainId, current);
+        }
+        return current;
+    }
+
+    /**
+     * Move a chain head forward after events were appended in the current transaction.
+     * The chain must be locked: its lock drops the head again if the transaction rolls back.
+     */
+    public void advance(int chainId, String newHead) {
+        heads.put(chainId, newHead);
+    }
+
+    /**
+     * Forget all cached heads; the next append to each chain reloads it from the database.
+     * Called when partitions move between consumers or this instance is elected chain
+     * writer, since another node may have appended.
+     */
+    @EventListener(ChainWriterElectedEvent.class)
+    public void invalidate() {
+        heads.clear();
+    }
+}
@@ -0,0 +1,95 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.entity.AuditEvent;
+import com.ehrplatform.audit.entity.ChainRoot;
+import com.ehrplatform.audit.repository.AuditEventRepository;
+import com.ehrplatform.audit.repository.ChainRootRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Periodically seals a combined root over the heads of all hash chains.
+ * Each root hashes the previous root together with every chain head, so
+ * truncating or rewriting any single chain is detectable against the roots.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ChainRootService {
+
+    private final AuditEventRepository auditEventRepository;
+    private final ChainRootRepository chainRootRepository;
+    private final HashChainService hashChainService;
+    private final ChainWriterLeadership chainWriterLeadership;
+
+    /**
+     * Scheduled job to seal a new combined root when any chain has advanced
+     */
+    @Scheduled(fixedRateString = "${audit.chain.root.fixed-rate:300000}")
+    @Transactional
+    public void sealCombinedRoot() {
+        if (!chainWriterLeadership.isLeader()) {
+            return;
+        }
+
+        try {
+            sealIfChanged();
+        } catch (Exception e) {
+            log.error("Error sealing combined chain root", e);
+        }
+    }
+
+    /**
+     * Seal a combined root over the current chain heads.
+     *
+     * @return The new root, or empty if no chain has advanced since the last root
+     */
+    @Transactional
+    public Optional<ChainRoot> sealIfChanged() {
+        List<AuditEvent> heads = auditEventRepository.findChainHeads();
+        if (heads.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Map<Integer, String> sortedHeads = new TreeMap<>();
+        long lastEventId = 0;
+        for (AuditEvent head : heads) {
+            sortedHeads.put(head.getChainId(), head.getEventHash());
+            lastEventId = Math.max(lastEventId, head.getId());
+        }
+
+        Optional<ChainRoot> previous = chainRootRepository.findTopByOrderByIdDesc();
+        if (previous.isPresent() && previous.get().getLastEventId() == lastEventId) {
+            return Optional.empty();
+        }
+
+        String prevRootHash = previous.map(ChainRoot::getRootHash)
+                .orElse(hashChainService.getGenesisHash());
+        String rootHash = hashChainService.computeCombinedRoot(prevRootHash, sortedHeads);
+
+        Map<String, String> headsJson = new LinkedHashMap<>();
+        sortedHeads.forEach((chainId, hash) -> headsJson.put(String.valueOf(chainId), hash));
+
+        ChainRoot root = chainRootRepository.save(ChainRoot.builder()
+                .createdAt(Instant.now())
+                .lastEventId(lastEventId)
+                .chainHeadsJson(headsJson)
+                .prevRootHash(prevRootHash)
+                .rootHash(rootHash)
+                .build());
+
+        log.info("Sealed combined chain root: id={}, chains={}, lastEventId={}, rootHash={}",
+                root.getId(), sortedHeads.size(), lastEventId, rootHash);
+        return Optional.of(root);
+    }
+}
@@ -0,0 +1,54 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.dto.AuditEventMessage;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides which hash chain an incoming event is appended to.
+ *
+ * Strategies (audit.chain.strategy):
+ * - single: one global chain (chain 0), the original behaviour
+ * - partition: one chain per Kafka partition number, so each listener thread owns its chains
+ * - source-service: audit.chain.count chains, keyed by a hash of the source service
+ */
+@Component
+@Slf4j
+public class ChainRouter {
+
+    public static final String STRATEGY_SINGLE = "single";
+    public static final String STRATEGY_PARTITION = "partition";
+    public static final String STRATEGY_SOURCE_SERVICE = "source-service";
+
+    @Getter
+    private final String strategy;
+    private final int chainCount;
+
+    public ChainRouter(@Value("${audit.chain.strategy:single}") String strategy,
+                       @Value("${audit.chain.count:1}") int chainCount) {
+        if (!STRATEGY_SINGLE.equals(strategy)
+                && !STRATEGY_PARTITION.equals(strategy)
+                && !STRATEGY_SOURCE_SERVICE.equals(strategy)) {
+            throw new IllegalStateException("Unknown audit.chain.strategy: " + strategy);
+        }
+        if (chainCount < 1) {
+            throw new IllegalStateException("audit.chain.count must be at least 1");
+        }
+        this.strategy = strategy;
+        this.chainCount = chainCount;
+        log.info("Audit hash chain strategy: {}, chainCount={}", strategy, chainCount);
+    }
+
+    /**
+     * Resolve the chain ID for a message.
+     */
+    public int resolveChainId(AuditEventMessage message) {
+        return switch (strategy) {
+            case STRATEGY_PARTITION -> message.getKafkaPartition() != null ? message.getKafkaPartition() : 0;
+            case STRATEGY_SOURCE_SERVICE -> Math.floorMod(message.getEffectiveSourceService().hashCode(), chainCount);
+            default -> 0;
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.ehrplatform.audit.service;
+
+/**
+ * Published when this instance becomes the chain writer, before its Kafka listener starts.
+ * Listeners rebuild state that the previous leader may have changed underneath them.
+ *
+ * @param fencingToken Token of the lease just acquired; 0 when leader election is disabled
+ */
+public record ChainWriterElectedEvent(long fencingToken) {
+}
@@ -0,0 +1,246 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.kafka.AuditEventConsumer;
+import com.ehrplatform.audit.repository.LeaderLeaseJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elects the single replica that consumes Kafka and appends to the hash chains.
+ *
+ * Replicas compete for the 'chain-writer' row of audit_leader_lease on a heartbeat;
+ * the holder renews it, the others take it over once it has expired, so a crashed
+ * leader is replaced within lease + heartbeat. The leader runs the Kafka listener
+ * and the leader-only scheduled jobs; followers only serve reads.
+ *
+ * On winning the lease, the election listeners (cache seeding, window replay,
+ * partition maintenance) run on a separate takeover thread while the heartbeat
+ * keeps renewing, so a slow catch-up cannot let the lease expire. The instance
+ * becomes leader, and starts the Kafka listener, only if it still holds the same
+ * lease once they have finished.
+ *
+ * A leader that stalls past its lease can still be running a transaction when the
+ * next one is elected, so each append transaction re-checks the lease and its
+ * fencing token under a shared row lock (checkFence) before touching the chain.
+ *
+ * With audit.leader.enabled=false the instance is always the leader, as before.
+ */
+@Component
+@Slf4j
+public class ChainWriterLeadership {
+
+    public static final String LEASE_NAME = "chain-writer";
+
+    private final LeaderLeaseJdbcRepository leaderLeaseJdbcRepository;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final long leaseMillis;
+    private final long heartbeatMillis;
+    private final String listenerId;
+    private final String instanceId;
+    private final ScheduledExecutorService heartbeat;
+    private final ExecutorService takeover;
+
+    // Lease held, renewed by the heartbeat; leader once the takeover has also finished
+    private volatile boolean leaseHeld;
+    private volatile boolean leader;
+    private volatile long fencingToken;
+    // System.nanoTime() by which the lease must be renewed; measured from before the renewal was sent
+    private volatile long leaseDeadline;
+
+    /**
+     * Thrown inside an append transaction when this instance no longer holds the lease.
+     */
+    public static class LeaseLostException extends IllegalStateException {
+        public LeaseLostException(String message) {
+            super(message);
+        }
+    }
+
+    public ChainWriterLeadership(LeaderLeaseJdbcRepository leaderLeaseJdbcRepository,
+                                 KafkaListenerEndpointRegistry listenerRegistry,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${audit.leader.enabled:true}") boolean enabled,
+                                 @Value("${audit.leader.lease-seconds:15}") int leaseSeconds,
+                                 @Value("${audit.leader.heartbeat-ms:3000}") long heartbeatMillis,
+                                 @Value("${audit.kafka.consumer.batch-enabled:true}") boolean batchEnabled) {
+        if (enabled && heartbeatMillis * 2 > leaseSeconds * 1000L) {
+            throw new IllegalArgumentException("audit.leader.heartbeat-ms must be at most half the lease");
+        }
+        this.leaderLeaseJdbcRepository = leaderLeaseJdbcRepository;
+        this.listenerRegistry = listenerRegistry;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.leaseMillis = leaseSeconds * 1000L;
+        this.heartbeatMillis = heartbeatMillis;
+        this.listenerId = batchEnabled ? AuditEventConsumer.BATCH_LISTENER_ID : AuditEventConsumer.RECORD_LISTENER_ID;
+        this.instanceId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        // Own thread: the shared scheduler can be busy with a long job for longer than the lease
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chain-writer-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.takeover = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chain-writer-takeover");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            leaseHeld = true;
+            takeOver(0);
+            return;
+        }
+        log.info("Competing for the chain writer lease as {}", instanceId);
+        heartbeat.scheduleWithFixedDelay(this::renew, 0, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether this instance is the chain writer. Leader-only jobs check this before running.
+     */
+    public boolean isLeader() {
+        return leader && (!enabled || System.nanoTime() - leaseDeadline < 0);
+    }
+
+    /**
+     * Verify, inside the current append transaction, that the lease is still ours.
+     * Blocks a takeover of the lease until the transaction ends.
+     *
+     * @throws LeaseLostException If another instance has taken over
+     */
+    public void checkFence() {
+        if (!enabled) {
+            return;
+        }
+        if (!leader || !leaderLeaseJdbcRepository.holdsLease(LEASE_NAME, instanceId, fencingToken)) {
+            throw new LeaseLostException("Instance " + instanceId + " no longer holds the chain writer lease");
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        takeover.shutdownNow();
+        if (enabled && leaseHeld) {
+            leaseHeld = false;
+            leader = false;
+            try {
+                leaderLeaseJdbcRepository.release(LEASE_NAME, instanceId);
+                log.info("Released the chain writer lease");
+            } catch (Exception e) {
+                log.warn("Failed to release the chain writer lease, it will expire: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void renew() {
+        long sentAt = System.nanoTime();
+        Long token;
+        try {
+            token = leaderLeaseJdbcRepository.tryAcquire(LEASE_NAME, instanceId, leaseMillis);
+        } catch (Exception e) {
+            log.warn("Chain writer lease heartbeat failed: {}", e.getMessage());
+            if (leaseHeld && System.nanoTime() - leaseDeadline >= 0) {
+                stepDown("lease could not be renewed in time");
+            }
+            return;
+        }
+
+        if (token == null) {
+            if (leaseHeld) {
+                stepDown("lease was taken over by another instance");
+            }
+            return;
+        }
+        if (leaseHeld && token != fencingToken) {
+            stepDown("lease was lost and re-acquired");
+        }
+        leaseDeadline = sentAt + TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+        if (!leaseHeld) {
+            synchronized (this) {
+                fencingToken = token;
+                leaseHeld = true;
+            }
+            log.info("Won the chain writer lease, taking over: instance={}, fencingToken={}", instanceId, token);
+            takeover.execute(() -> takeOver(token));
+        }
+    }
+
+    /**
+     * Run the election listeners, then become leader if the lease is still held with
+     * the same fencing token. Runs off the heartbeat thread, which keeps renewing.
+     */
+    private void takeOver(long token) {
+        try {
+            eventPublisher.publishEvent(new ChainWriterElectedEvent(token));
+        } catch (Exception e) {
+            log.error("Failed to take over as chain writer, releasing the lease", e);
+            synchronized (this) {
+                if (!leaseHeld || fencingToken != token) {
+                    return;
+                }
+                leaseHeld = false;
+            }
+            if (enabled) {
+                try {
+                    leaderLeaseJdbcRepository.release(LEASE_NAME, instanceId);
+                } catch (Exception releaseFailure) {
+                    log.warn("Failed to release the chain writer lease, it will expire: {}", releaseFailure.getMessage());
+                }
+            }
+            return;
+        }
+
+        // Under the lock stepDown takes, so the listener cannot start after a step-down
+        synchronized (this) {
+            if (!leaseHeld || fencingToken != token || (enabled && System.nanoTime() - leaseDeadline >= 0)) {
+                log.warn("Chain writer lease was lost during takeover, not starting: fencingToken={}", token);
+                return;
+            }
+            leader = true;
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+            if (container != null) {
+                container.start();
+            }
+        }
+        log.info("Elected chain writer: instance={}, fencingToken={}", instanceId, token);
+    }
+
+    private synchronized void stepDown(String reason) {
+        leaseHeld = false;
+        leader = false;
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+        if (container != null && container.isRunning()) {
+            // Unacknowledged records are redelivered to the new leader once this consumer leaves the group
+            container.stop(() -> log.info("Kafka listener {} stopped", listenerId));
+        }
+        log.warn("Stepped down as chain writer: {}", reason);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown-host";
+        }
+    }
+}
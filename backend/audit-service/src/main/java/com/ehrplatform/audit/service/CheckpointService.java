@@ -0,0 +1,248 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.dto.InclusionProofResponse;
+import com.ehrplatform.audit.dto.InclusionProofResponse.ProofStep;
+import com.ehrplatform.audit.entity.AuditCheckpoint;
+import com.ehrplatform.audit.entity.AuditEvent;
+import com.ehrplatform.audit.entity.ChainAnchor;
+import com.ehrplatform.audit.repository.AuditCheckpointRepository;
+import com.ehrplatform.audit.repository.AuditEventRepository;
+import com.ehrplatform.audit.repository.ChainAnchorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Seals every block of K consecutive events of a chain into a Merkle checkpoint
+ * and serves O(log K) inclusion proofs for single events.
+ *
+ * A block is only sealed after its events have been re-hashed and found linked
+ * to the previous checkpoint, so checkpoints are known-good anchors for verification.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CheckpointService {
+
+    private final AuditEventRepository auditEventRepository;
+    private final AuditCheckpointRepository auditCheckpointRepository;
+    private final ChainAnchorRepository chainAnchorRepository;
+    private final HashChainService hashChainService;
+    private final ChainWriterLeadership chainWriterLeadership;
+
+    @Value("${audit.checkpoint.enabled:true}")
+    private boolean checkpointsEnabled;
+
+    @Value("${audit.checkpoint.block-size:1024}")
+    private int blockSize;
+
+    @Value("${audit.checkpoint.max-blocks-per-run:50}")
+    private int maxBlocksPerRun;
+
+    /**
+     * Scheduled job to seal all complete blocks
+     */
+    @Scheduled(fixedRateString = "${audit.checkpoint.fixed-rate:60000}")
+    public void runScheduledSealing() {
+        if (!checkpointsEnabled || !chainWriterLeadership.isLeader()) {
+            return;
+        }
+
+        try {
+            for (Integer chainId : auditEventRepository.findChainIds()) {
+                int sealed = 0;
+                while (sealed < maxBlocksPerRun && sealNextBlock(chainId).isPresent()) {
+                    sealed++;
+                }
+                if (sealed > 0) {
+                    log.info("Sealed {} checkpoint block(s) for chain {}", sealed, chainId);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error during checkpoint sealing", e);
+        }
+    }
+
+    /**
+     * Seal the next complete block of a chain.
+     *
+     * @return The new checkpoint, or empty if fewer than K unsealed events exist or the block is broken
+     */
+    @Transactional
+    public Optional<AuditCheckpoint> sealNextBlock(int chainId) {
+        Optional<AuditCheckpoint> previous = auditCheckpointRepository.findTopByChainIdOrderByToEventIdDesc(chainId);
+        long afterId = previous.map(AuditCheckpoint::getToEventId).orElse(0L);
+
+        List<AuditEvent> block = auditEventRepository.findByChainIdAndIdGreaterThanOrderByIdAsc(
+                chainId, afterId, PageRequest.of(0, blockSize));
+        if (block.size() < blockSize) {
+            return Optional.empty();
+        }
+
+        // Re-verify the block before sealing it
+        String expectedPrevHash = previous.map(AuditCheckpoint::getLastEventHash)
+                .orElse(hashChainService.getGenesisHash(chainId));
+        List<String> eventHashes = new ArrayList<>(block.size());
+        for (AuditEvent event : block) {
+            if (!event.getPrevHash().equals(expectedPrevHash)
+                    || !hashChainService.verifyEventHash(expectedPrevHash, event)) {
+                log.error("Refusing to seal checkpoint for chain {}: chain broken at event {}",
+                        chainId, event.getId());
+                return Optional.empty();
+            }
+            eventHashes.add(event.getEventHash());
+            expectedPrevHash = event.getEventHash();
+        }
+
+        AuditEvent first = block.get(0);
+        AuditEvent last = block.get(block.size() - 1);
+        AuditCheckpoint checkpoint = auditCheckpointRepository.save(AuditCheckpoint.builder()
+                .createdAt(Instant.now())
+                .chainId(chainId)
+                .fromEventId(first.getId())
+                .toEventId(last.getId())
+                .eventCount(block.size())
+                .merkleRoot(MerkleTree.root(eventHashes))
+                .lastEventHash(last.getEventHash())
+                .build());
+
+        log.debug("Sealed checkpoint {}: chain={}, events {} to {}, root={}",
+                checkpoint.getId(), chainId, first.getId(), last.getId(), checkpoint.getMerkleRoot());
+        return Optional.of(checkpoint);
+    }
+
+    /**
+     * Build the inclusion proof for a single event.
+     * Checks the event's own content hash and its membership in the sealed block,
+     * without replaying the chain. A block cut by partition retention or archiving
+     * is reported PARTIALLY_ARCHIVED instead of INVALID when its retained events still
+     * link from the last chain anchor to the sealed last event hash.
+     *
+     * @return The proof, or empty if the event does not exist
+     */
+    @Transactional(readOnly = true)
+    public Optional<InclusionProofResponse> buildInclusionProof(Long eventId) {
+        Optional<AuditEvent> found = auditEventRepository.findById(eventId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+
+        AuditEvent event = found.get();
+        String recomputedHash = hashChainService.computeEventHash(event.getPrevHash(), event);
+
+        InclusionProofResponse.InclusionProofResponseBuilder response = InclusionProofResponse.builder()
+                .eventId(event.getId())
+                .chainId(event.getChainId())
+                .eventHash(event.getEventHash())
+                .recomputedHash(recomputedHash);
+
+        Optional<AuditCheckpoint> containing = auditCheckpointRepository.findContaining(event.getChainId(), eventId);
+        if (containing.isEmpty()) {
+            return Optional.of(response
+                    .status("NOT_SEALED")
+                    .failReason("Event is not yet covered by a checkpoint")
+                    .build());
+        }
+
+        AuditCheckpoint checkpoint = containing.get();
+        List<Object[]> rows = auditEventRepository.findEventHashesInChainBetween(
+                checkpoint.getChainId(), checkpoint.getFromEventId(), checkpoint.getToEventId());
+        List<String> eventHashes = new ArrayList<>(rows.size());
+        int leafIndex = -1;
+        for (Object[] row : rows) {
+            if (eventId.equals(row[0])) {
+                leafIndex = eventHashes.size();
+            }
+            eventHashes.add((String) row[1]);
+        }
+
+        response.checkpointId(checkpoint.getId())
+                .blockFromEventId(checkpoint.getFromEventId())
+                .blockToEventId(checkpoint.getToEventId())
+                .merkleRoot(checkpoint.getMerkleRoot())
+                .blockLastEventHash(checkpoint.getLastEventHash())
+                .sealedAt(checkpoint.getCreatedAt());
+
+        if (eventHashes.size() < checkpoint.getEventCount() && leafIndex >= 0
+                && retainedPartLinks(checkpoint, (Long) rows.get(0)[0])) {
+            if (!recomputedHash.equals(event.getEventHash())) {
+                return Optional.of(response.status("INVALID").failReason("eventHash mismatch").build());
+            }
+            return Optional.of(response
+                    .status("PARTIALLY_ARCHIVED")
+                    .failReason((checkpoint.getEventCount() - eventHashes.size()) + " of the block's "
+                            + checkpoint.getEventCount() + " events were removed by retention or archiving; "
+                            + "the retained events link to the sealed last event hash")
+                    .build());
+        }
+        if (eventHashes.size() != checkpoint.getEventCount() || leafIndex < 0) {
+            return Optional.of(response
+                    .status("INVALID")
+                    .failReason("Block has " + eventHashes.size() + " events, checkpoint sealed "
+                            + checkpoint.getEventCount())
+                    .build());
+        }
+
+        List<ProofStep> proof = MerkleTree.proof(eventHashes, leafIndex);
+        String proofRoot = MerkleTree.rootFromProof(event.getEventHash(), proof);
+        response.leafIndex(leafIndex)
+                .proof(proof)
+                .proofRoot(proofRoot);
+
+        if (!recomputedHash.equals(event.getEventHash())) {
+            return Optional.of(response.status("INVALID").failReason("eventHash mismatch").build());
+        }
+        if (!proofRoot.equals(checkpoint.getMerkleRoot())) {
+            return Optional.of(response.status("INVALID").failReason("Merkle root mismatch").build());
+        }
+        return Optional.of(response.status("VALID").build());
+    }
+
+    /**
+     * Whether the part of a block still in audit_event is everything after a retention
+     * cut: the events from the chain anchor before the first retained one, interleaved
+     * with any later anchors, must link hash to hash up to the checkpoint's last event hash.
+     */
+    private boolean retainedPartLinks(AuditCheckpoint checkpoint, Long firstRetainedId) {
+        Optional<ChainAnchor> cut = chainAnchorRepository.findTopByChainIdAndEventIdLessThanOrderByEventIdDesc(
+                checkpoint.getChainId(), firstRetainedId);
+        if (cut.isEmpty() || cut.get().getEventId() < checkpoint.getFromEventId()) {
+            return false;
+        }
+
+        Iterator<ChainAnchor> anchors = chainAnchorRepository.findByChainIdAndEventIdBetweenOrderByEventIdAsc(
+                checkpoint.getChainId(), cut.get().getEventId() + 1, checkpoint.getToEventId()).iterator();
+        ChainAnchor nextAnchor = anchors.hasNext() ? anchors.next() : null;
+        String expectedPrevHash = cut.get().getEventHash();
+        for (AuditEvent retained : auditEventRepository.findByChainIdAndIdGreaterThanOrderByIdAsc(
+                checkpoint.getChainId(), cut.get().getEventId(), PageRequest.of(0, checkpoint.getEventCount()))) {
+            if (retained.getId() > checkpoint.getToEventId()) {
+                break;
+            }
+            while (nextAnchor != null && nextAnchor.getEventId() < retained.getId()) {
+                expectedPrevHash = nextAnchor.getEventHash();
+                nextAnchor = anchors.hasNext() ? anchors.next() : null;
+            }
+            if (!retained.getPrevHash().equals(expectedPrevHash)
+                    || !hashChainService.verifyEventHash(expectedPrevHash, retained)) {
+                return false;
+            }
+            expectedPrevHash = retained.getEventHash();
+        }
+        while (nextAnchor != null) {
+            expectedPrevHash = nextAnchor.getEventHash();
+            nextAnchor = anchors.hasNext() ? anchors.next() : null;
+        }
+        return expectedPrevHash.equals(checkpoint.getLastEventHash());
+    }
+}
@@ -0,0 +1,122 @@
+package com.ehrplatform.audit.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-key approximate distinct counts over a sliding time window.
+ *
+ * Each key owns a ring buffer of HyperLogLog sketches, one per time bucket.
+ * The window estimate is the merge of the live buckets, so memory per key is
+ * constant (buckets x 2^precision bytes) no matter how many values are seen.
+ */
+public final class DistinctCountWindow {
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final int precision;
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    public DistinctCountWindow(Duration window, Duration bucket, int precision) {
+        if (bucket.isZero() || bucket.isNegative() || window.compareTo(bucket) < 0) {
+            throw new IllegalArgumentException("Window must span at least one positive bucket");
+        }
+        this.bucketMillis = bucket.toMillis();
+        this.bucketCount = (int) Math.ceil((double) window.toMillis() / bucketMillis);
+        this.precision = precision;
+    }
+
+    /**
+     * Add a value for a key.
+     *
+     * @param key The grouping key
+     * @param value The value counted distinctly
+     * @param at When the value was seen; future times count as now
+     * @param now The end of the window
+     * @return The estimated distinct count in the window, or empty when the value
+     *         left the sketch unchanged (so the estimate cannot have grown)
+     */
+    public OptionalLong add(String key, long value, Instant at, Instant now) {
+        long nowBucket = now.toEpochMilli() / bucketMillis;
+        long bucket = Math.min(at.toEpochMilli() / bucketMillis, nowBucket);
+        if (bucket <= nowBucket - bucketCount) {
+            return OptionalLong.empty();
+        }
+
+        Ring ring = rings.computeIfAbsent(key, k -> new Ring(bucketCount));
+        synchronized (ring) {
+            if (!ring.add(bucket, value)) {
+                return OptionalLong.empty();
+            }
+            return OptionalLong.of(ring.estimate(nowBucket));
+        }
+    }
+
+    /**
+     * Drop keys with no values inside the window.
+     */
+    public void evictIdle(Instant now) {
+        long nowBucket = now.toEpochMilli() / bucketMillis;
+        rings.entrySet().removeIf(entry -> {
+            Ring ring = entry.getValue();
+            synchronized (ring) {
+                return ring.latest <= nowBucket - bucketCount;
+            }
+        });
+    }
+
+    /**
+     * Drop all keys.
+     */
+    public void clear() {
+        rings.clear();
+    }
+
+    public int size() {
+        return rings.size();
+    }
+
+    private final class Ring {
+        private final long[] buckets;
+        private final HyperLogLog[] sketches;
+        private long latest = Long.MIN_VALUE;
+
+        Ring(int size) {
+            buckets = new long[size];
+            sketches = new HyperLogLog[size];
+            Arrays.fill(buckets, Long.MIN_VALUE);
+        }
+
+        boolean add(long bucket, long value) {
+            int slot = (int) Math.floorMod(bucket, (long) buckets.length);
+            if (buckets[slot] != bucket) {
+                if (buckets[slot] > bucket) {
+                    return false; // slot already reused by a newer bucket, value is outside the window
+                }
+                buckets[slot] = bucket;
+                if (sketches[slot] != null) {
+                    sketches[slot].clear();
+                }
+            }
+            if (sketches[slot] == null) {
+                sketches[slot] = new HyperLogLog(precision);
+            }
+            latest = Math.max(latest, bucket);
+            return sketches[slot].add(value);
+        }
+
+        long estimate(long nowBucket) {
+            HyperLogLog union = new HyperLogLog(precision);
+            for (int i = 0; i < buckets.length; i++) {
+                if (sketches[i] != null && buckets[i] > nowBucket - buckets.length && buckets[i] <= nowBucket) {
+                    union.merge(sketches[i]);
+                }
+            }
+            return union.estimate();
+        }
+    }
+}
@@ -14,15 +14,40 @@ import java.util.TreeMap;
 
 /**
  * Service for computing SHA-256 hashes for tamper-evident audit chain.
+ *
+ * Each event records the hash format it was chained with: version 1 hashes the
+ * delimited canonical string, version 2 the binary form of {@link BinaryCanonicalEncoder}.
+ * New events use audit.hash.version; stored events are always verified with their own.
  */
 @Service
 @Slf4j
 public class HashChainService {
 
+    public static final int VERSION_STRING = 1;
+    public static final int VERSION_BINARY = BinaryCanonicalEncoder.VERSION;
+
+    // Hashing is on the serial ingest and verification path: reuse digests and buffers per thread
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(HashChainService::newDigest);
+    private static final ThreadLocal<BinaryCanonicalEncoder> BINARY_ENCODER =
+            ThreadLocal.withInitial(BinaryCanonicalEncoder::new);
+
     private final String genesisHash;
+    private final int currentVersion;
 
-    public HashChainService(@Value("${audit.hash.genesis}") String genesisHash) {
+    public HashChainService(@Value("${audit.hash.genesis}") String genesisHash,
+                            @Value("${audit.hash.version:2}") int currentVersion) {
+        if (currentVersion != VERSION_STRING && currentVersion != VERSION_BINARY) {
+            throw new IllegalArgumentException("Unsupported audit.hash.version: " + currentVersion);
+        }
         this.genesisHash = genesisHash;
+        this.currentVersion = currentVersion;
+    }
+
+    /**
+     * Hash format version for newly stored events
+     */
+    public int getCurrentVersion() {
+        return currentVersion;
     }
 
     /**
@@ -33,13 +58,45 @@ public class HashChainService {
     }
 
     /**
-     * Compute event hash for a new audit event
+     * Get the genesis hash for the first event of a chain.
+     * Chain 0 keeps the original genesis so existing single-chain data stays valid.
+     */
+    public String getGenesisHash(int chainId) {
+        if (chainId == 0) {
+            return getGenesisHash();
+        }
+        return sha256(genesisHash + "#" + chainId);
+    }
+
+    /**
+     * Compute the combined root over all chain heads.
+     * Heads must be sorted by chain ID; the previous root links the roots into their own chain.
+     */
+    public String computeCombinedRoot(String prevRootHash, Map<Integer, String> sortedChainHeads) {
+        StringBuilder sb = new StringBuilder(prevRootHash);
+        for (Map.Entry<Integer, String> head : sortedChainHeads.entrySet()) {
+            sb.append("|").append(head.getKey()).append("=").append(head.getValue());
+        }
+        return sha256(sb.toString());
+    }
+
+    /**
+     * Compute event hash for a new audit event, in the event's hash format version
+     * (version 1 if unset).
      *
      * @param prevHash The hash of the previous event (or genesis hash if first)
      * @param event The audit event to hash
      * @return SHA-256 hash string (64 hex characters)
      */
     public String computeEventHash(String prevHash, AuditEvent event) {
+        int version = event.getHashVersion() != null ? event.getHashVersion() : VERSION_STRING;
+        if (version == VERSION_BINARY) {
+            return HexFormat.of().formatHex(BINARY_ENCODER.get().hash(prevHash, event));
+        }
+        if (version != VERSION_STRING) {
+            throw new IllegalStateException("Unknown hash version " + version + " on event " + event.getId());
+        }
+
         String canonicalString = buildCanonicalString(event);
         String hashInput = prevHash + "|" + canonicalString;
         return sha256(hashInput);
@@ -54,7 +111,7 @@ public class HashChainService {
     }
 
     /**
-     * Build a canonical string representation of an event.
+     * Build a canonical string representation of an event (hash version 1).
      * Uses stable field ordering for reproducibility.
      */
     private String buildCanonicalString(AuditEvent event) {
@@ -117,10 +174,13 @@ public class HashChainService {
      * Compute SHA-256 hash of a string
      */
     private String sha256(String input) {
+        byte[] hashBytes = SHA256.get().digest(input.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hashBytes);
+    }
+
+    private static MessageDigest newDigest() {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = digest.digest(input.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hashBytes);
+            return MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
             throw new RuntimeException("SHA-256 algorithm not available", e);
         }
@@ -0,0 +1,103 @@
+package com.ehrplatform.audit.service;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog cardinality sketch over long values.
+ *
+ * Uses 2^precision one-byte registers (1 KiB at precision 10, ~3.3% standard
+ * error) and linear counting for small cardinalities. Sketches of the same
+ * precision merge by register-wise max, which gives the sketch of the union.
+ */
+public final class HyperLogLog {
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 16");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * Add a value.
+     *
+     * @return true if a register changed, i.e. the estimate may have grown
+     */
+    public boolean add(long value) {
+        long hash = mix64(value);
+        int index = (int) (hash >>> (64 - precision));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Fold another sketch of the same precision into this one.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of different precision");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Estimate the number of distinct values added.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double alpha = switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+        double estimate = alpha * m * m / sum;
+
+        // Small range correction
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 64-bit finalizer from MurmurHash3; spreads sequential IDs over all bits.
+     */
+    private static long mix64(long z) {
+        z ^= z >>> 33;
+        z *= 0xff51afd7ed558ccdL;
+        z ^= z >>> 33;
+        z *= 0xc4ceb9fe1a85ec53L;
+        z ^= z >>> 33;
+        return z;
+    }
+}
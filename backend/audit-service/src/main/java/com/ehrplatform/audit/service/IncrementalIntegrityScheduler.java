@@ -0,0 +1,138 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.dto.IntegrityVerifyResponse;
+import com.ehrplatform.audit.entity.AuditEvent;
+import com.ehrplatform.audit.entity.IntegrityCheckRun;
+import com.ehrplatform.audit.repository.AuditEventRepository;
+import com.ehrplatform.audit.repository.IntegrityCheckRunRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+/**
+ * Continuously verifies the hash chain as it grows.
+ *
+ * Each tick resumes after the furthest event verified by an earlier INCREMENTAL run,
+ * first checking that the remembered hash of that event is unchanged, then verifies
+ * only the events appended since. The upper bound is the max ID seen on the previous
+ * tick, so transactions that were still in flight then have committed by now and no
+ * lower ID can appear behind the verified frontier.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class IncrementalIntegrityScheduler {
+
+    static final String RUN_TYPE = "INCREMENTAL";
+
+    private final AuditEventRepository auditEventRepository;
+    private final IntegrityCheckRunRepository integrityCheckRunRepository;
+    private final IntegrityVerificationService integrityVerificationService;
+    private final AlertDetectionService alertDetectionService;
+    private final ChainWriterLeadership chainWriterLeadership;
+
+    @Value("${audit.integrity.incremental.enabled:true}")
+    private boolean incrementalEnabled;
+
+    @Value("${audit.integrity.incremental.max-events-per-tick:100000}")
+    private long maxEventsPerTick;
+
+    @Value("${audit.integrity.incremental.retry-after-failure-minutes:60}")
+    private int retryAfterFailureMinutes;
+
+    // Max event ID observed on the previous tick; verified up to on this one
+    private volatile Long pendingUpperBound;
+
+    /**
+     * Scheduled job to verify events appended since the last incremental run
+     */
+    @Scheduled(fixedDelayString = "${audit.integrity.incremental.fixed-delay:10000}")
+    public void runIncrementalVerification() {
+        if (!incrementalEnabled || !chainWriterLeadership.isLeader()) {
+            return;
+        }
+
+        try {
+            Long upperBound = pendingUpperBound;
+            pendingUpperBound = auditEventRepository.findMaxId().orElse(null);
+            if (upperBound == null) {
+                return;
+            }
+
+            // After a failure, back off instead of re-alerting on every tick
+            Optional<IntegrityCheckRun> latest = integrityCheckRunRepository.findTopByRunTypeOrderByIdDesc(RUN_TYPE);
+            if (latest.isPresent() && "FAIL".equals(latest.get().getStatus())
+                    && latest.get().getFinishedAt() != null
+                    && latest.get().getFinishedAt().isAfter(
+                            Instant.now().minus(retryAfterFailureMinutes, ChronoUnit.MINUTES))) {
+                return;
+            }
+
+            Optional<IntegrityCheckRun> lastOk = integrityCheckRunRepository
+                    .findTopByRunTypeAndStatusOrderByLastVerifiedEventIdDesc(RUN_TYPE, "OK");
+            long fromId = 1;
+            if (lastOk.isPresent() && lastOk.get().getLastVerifiedEventId() != null) {
+                if (!rememberedHashMatches(lastOk.get())) {
+                    return;
+                }
+                fromId = lastOk.get().getLastVerifiedEventId() + 1;
+            }
+            if (fromId > upperBound) {
+                return;
+            }
+
+            long toId = Math.min(upperBound, fromId + maxEventsPerTick - 1);
+            IntegrityVerifyResponse result = integrityVerificationService.verifyRange(fromId, toId, RUN_TYPE);
+            if ("FAIL".equals(result.getStatus())) {
+                alertDetectionService.createIntegrityFailureAlert(result.getCheckRunId(), result.getFailReason());
+            } else {
+                log.debug("Incremental integrity check OK for events {} to {}", fromId, toId);
+            }
+        } catch (Exception e) {
+            log.error("Error during incremental integrity verification", e);
+        }
+    }
+
+    /**
+     * Check that the last verified event still carries the hash it had when verified.
+     * Records a FAIL run and raises an alert when it does not.
+     */
+    private boolean rememberedHashMatches(IntegrityCheckRun lastOk) {
+        Long eventId = lastOk.getLastVerifiedEventId();
+        String rememberedHash = lastOk.getLastVerifiedHash();
+        if (rememberedHash == null) {
+            return true;
+        }
+
+        String foundHash = auditEventRepository.findById(eventId).map(AuditEvent::getEventHash).orElse(null);
+        if (rememberedHash.equals(foundHash)) {
+            return true;
+        }
+
+        String failReason = foundHash == null
+                ? "Previously verified event " + eventId + " is missing"
+                : "Previously verified event " + eventId + " was modified";
+        Instant now = Instant.now();
+        IntegrityCheckRun failed = integrityCheckRunRepository.save(IntegrityCheckRun.builder()
+                .startedAt(now)
+                .finishedAt(now)
+                .runType(RUN_TYPE)
+                .fromEventId(eventId)
+                .toEventId(eventId)
+                .status("FAIL")
+                .expectedHash(rememberedHash)
+                .foundHash(foundHash)
+                .failReason(failReason)
+                .build());
+
+        log.error("Integrity check FAILED: {}", failReason);
+        alertDetectionService.createIntegrityFailureAlert(failed.getId(), failReason);
+        return false;
+    }
+}
@@ -0,0 +1,84 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.entity.AuditEvent;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Micrometer meters for the ingest path, exposed on /actuator/metrics:
+ * audit.ingest.stage (one timer per stage tag), audit.ingest.batch.size and
+ * audit.ingest.latency (receivedAt - occurredAt of each stored event).
+ * Consumer lag per partition comes from the Kafka client metrics
+ * (kafka.consumer.fetch.manager.records.lag).
+ */
+@Component
+public class IngestMetrics {
+
+    public static final String NORMALIZE = "normalize";      // JSON parse and mapping, one streaming pass
+    public static final String DEDUP = "dedup";
+    public static final String CHAIN_HEAD = "chain_head";    // chain lock and head lookup
+    public static final String HASH = "hash";
+    public static final String INSERT = "insert";
+    public static final String ALERT_CHECK = "alert_check";
+
+    private final Map<String, Timer> stages;
+    private final DistributionSummary batchSize;
+    private final Timer endToEnd;
+
+    public IngestMetrics(MeterRegistry meterRegistry) {
+        this.stages = Stream.of(NORMALIZE, DEDUP, CHAIN_HEAD, HASH, INSERT, ALERT_CHECK)
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), stage -> Timer.builder("audit.ingest.stage")
+                        .description("Time spent per ingest stage; per record, or per batch for batch ingestion")
+                        .tag("stage", stage)
+                        .register(meterRegistry)));
+        this.batchSize = DistributionSummary.builder("audit.ingest.batch.size")
+                .description("Records per consumed batch")
+                .baseUnit("records")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.endToEnd = Timer.builder("audit.ingest.latency")
+                .description("Time from an event occurring to it being stored")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofHours(1))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record the time since startNanos (a System.nanoTime() value) against a stage.
+     */
+    public void recordStage(String stage, long startNanos) {
+        stages.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record an already summed duration against a stage.
+     */
+    public void recordStageNanos(String stage, long nanos) {
+        stages.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordBatchSize(int records) {
+        batchSize.record(records);
+    }
+
+    /**
+     * Record the end-to-end latency of newly stored events; clock skew never makes it negative.
+     */
+    public void recordStored(List<AuditEvent> events) {
+        for (AuditEvent event : events) {
+            long millis = Duration.between(event.getOccurredAt(), event.getReceivedAt()).toMillis();
+            endToEnd.record(Math.max(0, millis), TimeUnit.MILLISECONDS);
+        }
+    }
+}
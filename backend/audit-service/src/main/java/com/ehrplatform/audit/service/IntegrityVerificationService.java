@@ -1,29 +1,76 @@
 package com.ehrplatform.audit.service;
 
 import com.ehrplatform.audit.dto.IntegrityVerifyResponse;
+import com.ehrplatform.audit.entity.AuditCheckpoint;
 import com.ehrplatform.audit.entity.AuditEvent;
+import com.ehrplatform.audit.entity.ChainAnchor;
 import com.ehrplatform.audit.entity.IntegrityCheckRun;
+import com.ehrplatform.audit.repository.AuditCheckpointRepository;
 import com.ehrplatform.audit.repository.AuditEventRepository;
+import com.ehrplatform.audit.repository.ChainAnchorRepository;
 import com.ehrplatform.audit.repository.IntegrityCheckRunRepository;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for verifying the integrity of the audit hash chain.
+ *
+ * A range is split into segments at sealed checkpoint boundaries (and at most
+ * segment-size IDs apart). Segments are verified in parallel on a fork-join pool,
+ * each streaming its rows in fixed-size keyset pages, so heap use is bounded by
+ * parallelism x page-size and no transaction is held for the whole run. Progress
+ * (the contiguous verified prefix) is saved on the IntegrityCheckRun as segments
+ * finish, which makes interrupted or failed runs resumable.
  */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class IntegrityVerificationService {
 
     private final AuditEventRepository auditEventRepository;
     private final IntegrityCheckRunRepository integrityCheckRunRepository;
+    private final AuditCheckpointRepository auditCheckpointRepository;
+    private final ChainAnchorRepository chainAnchorRepository;
     private final HashChainService hashChainService;
+    private final ForkJoinPool verificationPool;
+    private final int pageSize;
+    private final long segmentSize;
+
+    public IntegrityVerificationService(AuditEventRepository auditEventRepository,
+                                        IntegrityCheckRunRepository integrityCheckRunRepository,
+                                        AuditCheckpointRepository auditCheckpointRepository,
+                                        ChainAnchorRepository chainAnchorRepository,
+                                        HashChainService hashChainService,
+                                        @Value("${audit.integrity.parallelism:0}") int parallelism,
+                                        @Value("${audit.integrity.page-size:1000}") int pageSize,
+                                        @Value("${audit.integrity.segment-size:100000}") long segmentSize) {
+        this.auditEventRepository = auditEventRepository;
+        this.integrityCheckRunRepository = integrityCheckRunRepository;
+        this.auditCheckpointRepository = auditCheckpointRepository;
+        this.chainAnchorRepository = chainAnchorRepository;
+        this.hashChainService = hashChainService;
+        this.verificationPool = new ForkJoinPool(
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.pageSize = pageSize;
+        this.segmentSize = segmentSize;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        verificationPool.shutdownNow();
+    }
 
     /**
      * Verify the hash chain integrity for a range of events.
@@ -32,13 +79,25 @@ public class IntegrityVerificationService {
      * @param toId Ending event ID (inclusive)
      * @return Verification result
      */
-    @Transactional
     public IntegrityVerifyResponse verifyRange(Long fromId, Long toId) {
+        return verifyRange(fromId, toId, "MANUAL");
+    }
+
+    /**
+     * Verify the hash chain integrity for a range of events, recording the run type.
+     *
+     * @param fromId Starting event ID (inclusive)
+     * @param toId Ending event ID (inclusive)
+     * @param runType MANUAL or INCREMENTAL
+     * @return Verification result
+     */
+    public IntegrityVerifyResponse verifyRange(Long fromId, Long toId, String runType) {
         Instant startedAt = Instant.now();
 
         // Create check run record
         IntegrityCheckRun checkRun = IntegrityCheckRun.builder()
                 .startedAt(startedAt)
+                .runType(runType)
                 .fromEventId(fromId)
                 .toEventId(toId)
                 .status("RUNNING")
@@ -46,39 +105,164 @@ public class IntegrityVerificationService {
         checkRun = integrityCheckRunRepository.save(checkRun);
 
         try {
-            // Get events in range
-            List<AuditEvent> events = auditEventRepository.findByIdBetweenOrderByIdAsc(fromId, toId);
-            
-            if (events.isEmpty()) {
-                return completeCheck(checkRun, "FAIL", null, null, null, 
-                        "No events found in range");
-            }
+            List<Segment> segments = planSegments(fromId, toId);
+            ProgressTracker progress = new ProgressTracker(checkRun, segments.size());
+            AtomicLong firstFailureId = new AtomicLong(Long.MAX_VALUE);
 
-            // Get the previous event's hash (or genesis if first event)
-            String expectedPrevHash;
-            if (fromId == 1) {
-                expectedPrevHash = hashChainService.getGenesisHash();
-            } else {
-                AuditEvent prevEvent = auditEventRepository.findEventBeforeId(fromId)
-                        .orElse(null);
-                if (prevEvent == null) {
-                    expectedPrevHash = hashChainService.getGenesisHash();
-                } else {
-                    expectedPrevHash = prevEvent.getEventHash();
-                }
+            List<ForkJoinTask<SegmentResult>> tasks = new ArrayList<>(segments.size());
+            for (int i = 0; i < segments.size(); i++) {
+                Segment segment = segments.get(i);
+                int index = i;
+                tasks.add(verificationPool.submit(() -> {
+                    SegmentResult result = verifySegment(segment, firstFailureId);
+                    progress.segmentFinished(index, result);
+                    return result;
+                }));
             }
 
-            // Verify each event
+            // Results in range order: the first failure wins, later segments only add to the count
             long eventsChecked = 0;
             Long lastVerifiedId = null;
+            String lastVerifiedHash = null;
+            SegmentResult failure = null;
+            for (ForkJoinTask<SegmentResult> task : tasks) {
+                SegmentResult result = task.join();
+                eventsChecked += result.eventsChecked();
+                if (failure != null) {
+                    continue;
+                }
+                if (result.lastVerifiedId() != null) {
+                    lastVerifiedId = result.lastVerifiedId();
+                    lastVerifiedHash = result.lastVerifiedHash();
+                }
+                if (result.failReason() != null) {
+                    failure = result;
+                }
+            }
+
+            if (failure != null) {
+                checkRun.setLastVerifiedHash(lastVerifiedHash);
+                return completeCheck(checkRun, "FAIL", lastVerifiedId,
+                        failure.expectedHash(), failure.foundHash(), failure.failReason());
+            }
+
+            if (eventsChecked == 0) {
+                return completeCheck(checkRun, "FAIL", null, null, null,
+                        "No events found in range");
+            }
+
+            log.info("Integrity check PASSED for events {} to {}. {} events verified in {} segment(s).",
+                    fromId, toId, eventsChecked, segments.size());
+
+            checkRun.setLastVerifiedHash(lastVerifiedHash);
+            IntegrityCheckRun completed = completeCheckRun(checkRun, "OK", lastVerifiedId, null, null, null);
+
+            return IntegrityVerifyResponse.builder()
+                    .checkRunId(completed.getId())
+                    .status("OK")
+                    .fromEventId(fromId)
+                    .toEventId(toId)
+                    .lastVerifiedEventId(lastVerifiedId)
+                    .totalEventsChecked(eventsChecked)
+                    .startedAt(startedAt)
+                    .finishedAt(completed.getFinishedAt())
+                    .build();
+
+        } catch (Exception e) {
+            log.error("Integrity check failed with exception", e);
+            return completeCheck(checkRun, "FAIL", checkRun.getLastVerifiedEventId(), null, null,
+                    "Exception: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resume a failed or interrupted check run from its last verified event.
+     *
+     * @param checkRunId The run to resume
+     * @return Verification result of a new run covering the rest of the original range
+     */
+    public IntegrityVerifyResponse resumeRun(Long checkRunId) {
+        IntegrityCheckRun previous = integrityCheckRunRepository.findById(checkRunId)
+                .orElseThrow(() -> new IllegalArgumentException("Unknown check run: " + checkRunId));
+        if ("OK".equals(previous.getStatus())) {
+            throw new IllegalArgumentException("Check run " + checkRunId + " already completed successfully");
+        }
+
+        Long resumeFrom = previous.getLastVerifiedEventId() != null
+                ? previous.getLastVerifiedEventId() + 1
+                : previous.getFromEventId();
+        log.info("Resuming integrity check run {} from event {} to {}",
+                checkRunId, resumeFrom, previous.getToEventId());
+        return verifyRange(resumeFrom, previous.getToEventId());
+    }
+
+    /**
+     * Split a range at checkpoint boundaries, capping segments at segment-size IDs.
+     */
+    private List<Segment> planSegments(Long fromId, Long toId) {
+        Map<Long, AuditCheckpoint> checkpointsByEnd = new HashMap<>();
+        List<Long> boundaries = new ArrayList<>();
+        for (AuditCheckpoint checkpoint : auditCheckpointRepository.findByToEventIdBetweenOrderByToEventIdAsc(fromId, toId)) {
+            checkpointsByEnd.put(checkpoint.getToEventId(), checkpoint);
+            boundaries.add(checkpoint.getToEventId());
+        }
+        boundaries.add(toId);
+
+        List<Segment> segments = new ArrayList<>();
+        long start = fromId;
+        for (long boundary : boundaries) {
+            while (boundary - start + 1 > segmentSize) {
+                segments.add(new Segment(start, start + segmentSize - 1, checkpointsByEnd));
+                start += segmentSize;
+            }
+            if (boundary >= start) {
+                segments.add(new Segment(start, boundary, checkpointsByEnd));
+                start = boundary + 1;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Verify one segment, streaming it in keyset pages.
+     * Stops early once a failure at a lower event ID is known.
+     */
+    private SegmentResult verifySegment(Segment segment, AtomicLong firstFailureId) {
+        // Last event per chain, resolved when a chain is first seen in the segment
+        Map<Integer, ChainPosition> chainPositions = new HashMap<>();
+        long eventsChecked = 0;
+        Long lastVerifiedId = null;
+        String lastVerifiedHash = null;
+        long afterId = segment.fromId() - 1;
+
+        while (afterId < segment.toId() && afterId < firstFailureId.get()) {
+            List<AuditEvent> page = auditEventRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(
+                    afterId, segment.toId(), PageRequest.of(0, pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+
+            for (AuditEvent event : page) {
+                int chainId = event.getChainId();
+                ChainPosition previous = chainPositions.computeIfAbsent(chainId,
+                        id -> resolvePrevPosition(id, segment.fromId()));
+                String expectedPrevHash = previous.eventHash();
+
+                // The predecessor may have been removed by partition retention
+                if (!event.getPrevHash().equals(expectedPrevHash)) {
+                    Optional<ChainAnchor> anchor = chainAnchorRepository
+                            .findTopByChainIdAndEventIdLessThanOrderByEventIdDesc(chainId, event.getId());
+                    if (anchor.isPresent() && anchor.get().getEventId() > previous.eventId()) {
+                        expectedPrevHash = anchor.get().getEventHash();
+                    }
+                }
 
-            for (AuditEvent event : events) {
                 // Check prev_hash matches expected
                 if (!event.getPrevHash().equals(expectedPrevHash)) {
                     log.error("Integrity check FAILED at event {}: prevHash mismatch. Expected={}, Found={}",
                             event.getId(), expectedPrevHash, event.getPrevHash());
-                    return completeCheck(checkRun, "FAIL", lastVerifiedId, 
-                            expectedPrevHash, event.getPrevHash(),
+                    firstFailureId.accumulateAndGet(event.getId(), Math::min);
+                    return new SegmentResult(eventsChecked, lastVerifiedId, lastVerifiedHash, expectedPrevHash, event.getPrevHash(),
                             "prevHash mismatch at event " + event.getId());
                 }
 
@@ -87,44 +271,52 @@ public class IntegrityVerificationService {
                     String recomputedHash = hashChainService.computeEventHash(expectedPrevHash, event);
                     log.error("Integrity check FAILED at event {}: eventHash mismatch. Expected={}, Found={}",
                             event.getId(), recomputedHash, event.getEventHash());
-                    return completeCheck(checkRun, "FAIL", lastVerifiedId,
-                            recomputedHash, event.getEventHash(),
+                    firstFailureId.accumulateAndGet(event.getId(), Math::min);
+                    return new SegmentResult(eventsChecked, lastVerifiedId, lastVerifiedHash, recomputedHash, event.getEventHash(),
                             "eventHash mismatch at event " + event.getId());
                 }
 
+                // Check against the sealed checkpoint anchor
+                AuditCheckpoint checkpoint = segment.checkpointsByEnd().get(event.getId());
+                if (checkpoint != null && checkpoint.getChainId() == chainId
+                        && !checkpoint.getLastEventHash().equals(event.getEventHash())) {
+                    log.error("Integrity check FAILED at event {}: checkpoint {} mismatch. Expected={}, Found={}",
+                            event.getId(), checkpoint.getId(), checkpoint.getLastEventHash(), event.getEventHash());
+                    firstFailureId.accumulateAndGet(event.getId(), Math::min);
+                    return new SegmentResult(eventsChecked, lastVerifiedId, lastVerifiedHash, checkpoint.getLastEventHash(),
+                            event.getEventHash(), "checkpoint mismatch at event " + event.getId());
+                }
+
                 // Move to next
-                expectedPrevHash = event.getEventHash();
+                chainPositions.put(chainId, new ChainPosition(event.getId(), event.getEventHash()));
                 lastVerifiedId = event.getId();
+                lastVerifiedHash = event.getEventHash();
                 eventsChecked++;
             }
 
-            log.info("Integrity check PASSED for events {} to {}. {} events verified.",
-                    fromId, toId, eventsChecked);
+            afterId = page.get(page.size() - 1).getId();
+        }
 
-            IntegrityCheckRun completed = completeCheckRun(checkRun, "OK", lastVerifiedId, null, null, null);
-            
-            return IntegrityVerifyResponse.builder()
-                    .checkRunId(completed.getId())
-                    .status("OK")
-                    .fromEventId(fromId)
-                    .toEventId(toId)
-                    .lastVerifiedEventId(lastVerifiedId)
-                    .totalEventsChecked(eventsChecked)
-                    .startedAt(startedAt)
-                    .finishedAt(completed.getFinishedAt())
-                    .build();
+        return new SegmentResult(eventsChecked, lastVerifiedId, lastVerifiedHash, null, null, null);
+    }
 
-        } catch (Exception e) {
-            log.error("Integrity check failed with exception", e);
-            return completeCheck(checkRun, "FAIL", null, null, null,
-                    "Exception: " + e.getMessage());
-        }
+    /**
+     * Last event of the chain before the range start, stored or pruned (or the chain's genesis hash)
+     */
+    private ChainPosition resolvePrevPosition(int chainId, Long fromId) {
+        ChainPosition stored = auditEventRepository.findEventBeforeIdInChain(chainId, fromId)
+                .map(event -> new ChainPosition(event.getId(), event.getEventHash()))
+                .orElse(new ChainPosition(0L, hashChainService.getGenesisHash(chainId)));
+        return chainAnchorRepository.findTopByChainIdAndEventIdLessThanOrderByEventIdDesc(chainId, fromId)
+                .filter(anchor -> anchor.getEventId() > stored.eventId())
+                .map(anchor -> new ChainPosition(anchor.getEventId(), anchor.getEventHash()))
+                .orElse(stored);
     }
 
     private IntegrityVerifyResponse completeCheck(IntegrityCheckRun checkRun, String status,
             Long lastVerifiedId, String expectedHash, String foundHash, String failReason) {
-        
-        IntegrityCheckRun completed = completeCheckRun(checkRun, status, lastVerifiedId, 
+
+        IntegrityCheckRun completed = completeCheckRun(checkRun, status, lastVerifiedId,
                 expectedHash, foundHash, failReason);
 
         return IntegrityVerifyResponse.builder()
@@ -143,14 +335,59 @@ public class IntegrityVerificationService {
 
     private IntegrityCheckRun completeCheckRun(IntegrityCheckRun checkRun, String status,
             Long lastVerifiedId, String expectedHash, String foundHash, String failReason) {
-        
-        checkRun.setFinishedAt(Instant.now());
-        checkRun.setStatus(status);
-        checkRun.setLastVerifiedEventId(lastVerifiedId);
-        checkRun.setExpectedHash(expectedHash);
-        checkRun.setFoundHash(foundHash);
-        checkRun.setFailReason(failReason);
-        
-        return integrityCheckRunRepository.save(checkRun);
+
+        synchronized (checkRun) {
+            checkRun.setFinishedAt(Instant.now());
+            checkRun.setStatus(status);
+            checkRun.setLastVerifiedEventId(lastVerifiedId);
+            checkRun.setExpectedHash(expectedHash);
+            checkRun.setFoundHash(foundHash);
+            checkRun.setFailReason(failReason);
+
+            return integrityCheckRunRepository.save(checkRun);
+        }
+    }
+
+    private record ChainPosition(Long eventId, String eventHash) {}
+
+    private record Segment(long fromId, long toId, Map<Long, AuditCheckpoint> checkpointsByEnd) {}
+
+    private record SegmentResult(long eventsChecked, Long lastVerifiedId, String lastVerifiedHash,
+                                 String expectedHash, String foundHash, String failReason) {}
+
+    /**
+     * Saves the contiguous verified prefix of a run as segments finish out of order.
+     */
+    private class ProgressTracker {
+
+        private final IntegrityCheckRun checkRun;
+        private final SegmentResult[] results;
+        private int nextPending;
+
+        ProgressTracker(IntegrityCheckRun checkRun, int segmentCount) {
+            this.checkRun = checkRun;
+            this.results = new SegmentResult[segmentCount];
+        }
+
+        void segmentFinished(int index, SegmentResult result) {
+            synchronized (checkRun) {
+                results[index] = result;
+
+                SegmentResult verifiedUpTo = null;
+                while (nextPending < results.length && results[nextPending] != null
+                        && results[nextPending].failReason() == null) {
+                    if (results[nextPending].lastVerifiedId() != null) {
+                        verifiedUpTo = results[nextPending];
+                    }
+                    nextPending++;
+                }
+
+                if (verifiedUpTo != null && "RUNNING".equals(checkRun.getStatus())) {
+                    checkRun.setLastVerifiedEventId(verifiedUpTo.lastVerifiedId());
+                    checkRun.setLastVerifiedHash(verifiedUpTo.lastVerifiedHash());
+                    integrityCheckRunRepository.save(checkRun);
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,110 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.dto.InclusionProofResponse.ProofStep;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Binary SHA-256 Merkle tree over the event hashes of one checkpoint block.
+ * Leaves and inner nodes are domain-separated (0x00 / 0x01 prefix) so a leaf
+ * can never be passed off as an inner node. An odd node at the end of a
+ * level is promoted unchanged to the next level.
+ */
+public final class MerkleTree {
+
+    public static final String LEFT = "LEFT";
+    public static final String RIGHT = "RIGHT";
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private MerkleTree() {}
+
+    /**
+     * Compute the Merkle root of a list of hex-encoded event hashes.
+     */
+    public static String root(List<String> eventHashes) {
+        if (eventHashes.isEmpty()) {
+            throw new IllegalArgumentException("Cannot build a Merkle tree without leaves");
+        }
+        byte[][] level = leaves(eventHashes);
+        while (level.length > 1) {
+            level = nextLevel(level);
+        }
+        return HEX.formatHex(level[0]);
+    }
+
+    /**
+     * Build the inclusion proof (sibling path from leaf to root) for one leaf.
+     */
+    public static List<ProofStep> proof(List<String> eventHashes, int leafIndex) {
+        if (leafIndex < 0 || leafIndex >= eventHashes.size()) {
+            throw new IllegalArgumentException("Leaf index out of range: " + leafIndex);
+        }
+        List<ProofStep> steps = new ArrayList<>();
+        byte[][] level = leaves(eventHashes);
+        int index = leafIndex;
+        while (level.length > 1) {
+            int sibling = index ^ 1;
+            if (sibling < level.length) {
+                steps.add(new ProofStep(HEX.formatHex(level[sibling]), sibling < index ? LEFT : RIGHT));
+            }
+            level = nextLevel(level);
+            index /= 2;
+        }
+        return steps;
+    }
+
+    /**
+     * Recompute the root from an event hash and its proof.
+     */
+    public static String rootFromProof(String eventHash, List<ProofStep> proof) {
+        byte[] node = leafHash(HEX.parseHex(eventHash));
+        for (ProofStep step : proof) {
+            byte[] sibling = HEX.parseHex(step.getHash());
+            node = LEFT.equals(step.getPosition()) ? nodeHash(sibling, node) : nodeHash(node, sibling);
+        }
+        return HEX.formatHex(node);
+    }
+
+    private static byte[][] leaves(List<String> eventHashes) {
+        byte[][] level = new byte[eventHashes.size()][];
+        for (int i = 0; i < level.length; i++) {
+            level[i] = leafHash(HEX.parseHex(eventHashes.get(i)));
+        }
+        return level;
+    }
+
+    private static byte[][] nextLevel(byte[][] level) {
+        byte[][] next = new byte[(level.length + 1) / 2][];
+        for (int i = 0; i < next.length; i++) {
+            int left = 2 * i;
+            next[i] = left + 1 < level.length ? nodeHash(level[left], level[left + 1]) : level[left];
+        }
+        return next;
+    }
+
+    private static byte[] leafHash(byte[] eventHash) {
+        MessageDigest digest = sha256();
+        digest.update((byte) 0x00);
+        return digest.digest(eventHash);
+    }
+
+    private static byte[] nodeHash(byte[] left, byte[] right) {
+        MessageDigest digest = sha256();
+        digest.update((byte) 0x01);
+        digest.update(left);
+        return digest.digest(right);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not available", e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.repository.AuditEventJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Rotating Bloom filter of the request IDs stored in the last window, in front of
+ * the request ID idempotency lookup.
+ *
+ * A miss proves the ID is new, so only hits (real duplicates and ~0.1% false
+ * positives) reach the database. That holds for events that carry an occurredAt
+ * within the window: the filter is seeded from the table when this instance is elected chain
+ * writer and caught up after each partition assignment (another instance may have
+ * stored events of those partitions), and IDs are added before they are inserted. Events older than the
+ * window, such as replays, and events without an occurredAt are always checked
+ * against the table.
+ */
+@Component
+@Slf4j
+public class RequestIdFilter {
+
+    private final AuditEventJdbcRepository auditEventJdbcRepository;
+    private final boolean enabled;
+    private final Duration window;
+    private final Duration clockSkew;
+    private final Duration rotationPeriod;
+    private final RotatingBloomFilter filter;
+
+    private volatile Instant lastRotation = Instant.now();
+    private volatile Instant lastSeeded;
+
+    public RequestIdFilter(AuditEventJdbcRepository auditEventJdbcRepository,
+                           @Value("${audit.ingest.request-id-filter.enabled:true}") boolean enabled,
+                           @Value("${audit.ingest.request-id-filter.window-hours:24}") int windowHours,
+                           @Value("${audit.ingest.request-id-filter.generations:5}") int generations,
+                           @Value("${audit.ingest.request-id-filter.expected-per-generation:250000}") int expectedPerGeneration,
+                           @Value("${audit.ingest.request-id-filter.false-positive-rate:0.001}") double falsePositiveRate,
+                           @Value("${audit.ingest.request-id-filter.clock-skew-minutes:5}") int clockSkewMinutes) {
+        this.auditEventJdbcRepository = auditEventJdbcRepository;
+        this.enabled = enabled;
+        this.window = Duration.ofHours(windowHours);
+        this.clockSkew = Duration.ofMinutes(clockSkewMinutes);
+        // An ID stays in the filter for at least (generations - 1) rotations
+        this.rotationPeriod = window.dividedBy(generations - 1);
+        this.filter = new RotatingBloomFilter(expectedPerGeneration, falsePositiveRate, generations);
+    }
+
+    /**
+     * Add the IDs stored since the last seeding (all of the window the first time).
+     */
+    @EventListener(ChainWriterElectedEvent.class)
+    public void catchUp() {
+        if (!enabled) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        Instant receivedSince = lastSeeded != null ? lastSeeded.minus(clockSkew) : null;
+        long[] count = {0};
+        auditEventJdbcRepository.streamRequestIds(now.minus(window), receivedSince, requestId -> {
+            filter.put(requestId);
+            count[0]++;
+        });
+        lastSeeded = now;
+        log.info("Seeded request ID filter with {} request IDs", count[0]);
+    }
+
+    /**
+     * Check whether an event may already be stored and needs the database lookup.
+     *
+     * @param occurredAt The event's occurredAt; null is always looked up, since such an
+     *                   event is stored with the time it was first received, which a
+     *                   redelivery cannot know
+     */
+    public boolean mightBeStored(String requestId, Instant occurredAt) {
+        if (!enabled || occurredAt == null) {
+            return true;
+        }
+        if (occurredAt.isBefore(Instant.now().minus(window).plus(clockSkew))) {
+            return true;
+        }
+        return filter.mightContain(requestId);
+    }
+
+    /**
+     * Add IDs about to be inserted. Adding before commit is safe: if the insert rolls
+     * back the ID only becomes a false positive.
+     */
+    public void record(Collection<String> requestIds) {
+        if (enabled) {
+            requestIds.forEach(filter::put);
+        }
+    }
+
+    /**
+     * Scheduled job to age out the oldest generation
+     */
+    @Scheduled(fixedRate = 60000)
+    public void rotateIfDue() {
+        Instant now = Instant.now();
+        if (enabled && !now.isBefore(lastRotation.plus(rotationPeriod))) {
+            filter.rotate();
+            lastRotation = now;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.ehrplatform.audit.service;
+
+import java.util.Arrays;
+
+/**
+ * Bloom filter over strings, split into generations so old entries age out.
+ *
+ * Values go into the newest generation; lookups check all of them. rotate()
+ * clears the oldest generation and makes it the newest, so a value stays
+ * visible for at least (generations - 1) rotation periods. There are no false
+ * negatives for values added since they were last cleared; false positives
+ * occur at roughly the configured rate per generation.
+ *
+ * Thread-safe.
+ */
+public final class RotatingBloomFilter {
+
+    private final long[][] generations;
+    private final int bitsPerGeneration;
+    private final int hashFunctions;
+    private int newest;
+
+    /**
+     * @param expectedPerGeneration Values added per rotation period
+     * @param falsePositiveRate Target false positive rate of one generation
+     * @param generationCount Number of generations, at least 2
+     */
+    public RotatingBloomFilter(int expectedPerGeneration, double falsePositiveRate, int generationCount) {
+        if (expectedPerGeneration < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1 || generationCount < 2) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing");
+        }
+        long bits = (long) Math.ceil(-expectedPerGeneration * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitsPerGeneration = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, bits));
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitsPerGeneration / expectedPerGeneration * Math.log(2)));
+        this.generations = new long[generationCount][(bitsPerGeneration + 63) / 64];
+    }
+
+    public synchronized void put(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long[] bits = generations[newest];
+        for (int i = 0; i < hashFunctions; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitsPerGeneration);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    public synchronized boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (long[] bits : generations) {
+            if (contains(bits, h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop the oldest generation and start a new, empty one.
+     */
+    public synchronized void rotate() {
+        newest = (newest + 1) % generations.length;
+        Arrays.fill(generations[newest], 0L);
+    }
+
+    private boolean contains(long[] bits, int h1, int h2) {
+        for (int i = 0; i < hashFunctions; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitsPerGeneration);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars, then the MurmurHash3 finalizer to spread the bits.
+     */
+    private static long hash(String value) {
+        long z = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            z ^= value.charAt(i);
+            z *= 0x100000001b3L;
+        }
+        z ^= z >>> 33;
+        z *= 0xff51afd7ed558ccdL;
+        z ^= z >>> 33;
+        z *= 0xc4ceb9fe1a85ec53L;
+        z ^= z >>> 33;
+        return z;
+    }
+}
@@ -0,0 +1,249 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.entity.AuditEvent;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Column-oriented binary encoding of a segment of archived audit events.
+ *
+ * Layout: magic, version, event count, then every column stored contiguously
+ * (all IDs, then all occurred_at values, ...), which groups similar values for the
+ * surrounding gzip stream. IDs and timestamps are delta-encoded against the previous
+ * row; strings are length-prefixed UTF-8 with -1 for null; details are stored as JSON.
+ */
+public final class SegmentFileCodec {
+
+    private static final int MAGIC = 0x41554453; // "AUDS"
+    private static final int VERSION = 2;  // 2 adds hash_version; version 1 files are hash version 1
+    private static final TypeReference<Map<String, Object>> DETAILS_TYPE = new TypeReference<>() {};
+
+    private SegmentFileCodec() {
+    }
+
+    /**
+     * Write events (one chain, ascending ID) to a stream.
+     */
+    public static void write(List<AuditEvent> events, DataOutputStream out, ObjectMapper objectMapper) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(events.size());
+
+        writeDeltas(out, events, AuditEvent::getId);
+        writeDeltas(out, events, e -> e.getOccurredAt().toEpochMilli());
+        writeDeltas(out, events, e -> e.getReceivedAt().toEpochMilli());
+        writeStrings(out, events, AuditEvent::getSourceService);
+        writeStrings(out, events, AuditEvent::getSourceInstance);
+        writeStrings(out, events, AuditEvent::getEventType);
+        writeStrings(out, events, AuditEvent::getOutcome);
+        writeStrings(out, events, AuditEvent::getSeverity);
+        writeNullableLongs(out, events, AuditEvent::getActorUserId);
+        writeStrings(out, events, AuditEvent::getActorRole);
+        writeStrings(out, events, AuditEvent::getActorEmail);
+        writeStrings(out, events, AuditEvent::getIp);
+        writeStrings(out, events, AuditEvent::getUserAgent);
+        writeStrings(out, events, AuditEvent::getDeviceId);
+        writeStrings(out, events, AuditEvent::getSessionId);
+        writeNullableLongs(out, events, AuditEvent::getPatientId);
+        writeNullableLongs(out, events, AuditEvent::getRecordId);
+        writeNullableLongs(out, events, AuditEvent::getTargetUserId);
+        writeStrings(out, events, AuditEvent::getRequestId);
+        writeStrings(out, events, AuditEvent::getTraceId);
+        writeStrings(out, events, AuditEvent::getSpanId);
+        List<String> details = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            details.add(event.getDetailsJson() != null ? objectMapper.writeValueAsString(event.getDetailsJson()) : null);
+        }
+        writeStrings(out, details, Function.identity());
+        for (AuditEvent event : events) {
+            out.writeInt(event.getChainId());
+        }
+        writeStrings(out, events, AuditEvent::getPrevHash);
+        writeStrings(out, events, AuditEvent::getEventHash);
+        for (AuditEvent event : events) {
+            out.writeByte(event.getHashVersion());
+        }
+    }
+
+    /**
+     * Read all events of a segment.
+     */
+    public static List<AuditEvent> read(DataInputStream in, ObjectMapper objectMapper) throws IOException {
+        return read(in, objectMapper, event -> true);
+    }
+
+    /**
+     * Read the events of a segment accepted by filter. The filter sees every column up
+     * to span_id; details, chain and hash columns are then only decoded for accepted
+     * rows and the other rows are skipped, so a segment never costs more than its
+     * matches plus the filtered columns.
+     */
+    public static List<AuditEvent> read(DataInputStream in, ObjectMapper objectMapper,
+                                        Predicate<AuditEvent> filter) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an audit segment file");
+        }
+        int version = in.readInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported audit segment version " + version);
+        }
+        int count = in.readInt();
+
+        List<AuditEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(new AuditEvent());
+        }
+
+        readDeltas(in, events, AuditEvent::setId);
+        readDeltas(in, events, (e, v) -> e.setOccurredAt(Instant.ofEpochMilli(v)));
+        readDeltas(in, events, (e, v) -> e.setReceivedAt(Instant.ofEpochMilli(v)));
+        readStrings(in, events, AuditEvent::setSourceService);
+        readStrings(in, events, AuditEvent::setSourceInstance);
+        readStrings(in, events, AuditEvent::setEventType);
+        readStrings(in, events, AuditEvent::setOutcome);
+        readStrings(in, events, AuditEvent::setSeverity);
+        readNullableLongs(in, events, AuditEvent::setActorUserId);
+        readStrings(in, events, AuditEvent::setActorRole);
+        readStrings(in, events, AuditEvent::setActorEmail);
+        readStrings(in, events, AuditEvent::setIp);
+        readStrings(in, events, AuditEvent::setUserAgent);
+        readStrings(in, events, AuditEvent::setDeviceId);
+        readStrings(in, events, AuditEvent::setSessionId);
+        readNullableLongs(in, events, AuditEvent::setPatientId);
+        readNullableLongs(in, events, AuditEvent::setRecordId);
+        readNullableLongs(in, events, AuditEvent::setTargetUserId);
+        readStrings(in, events, AuditEvent::setRequestId);
+        readStrings(in, events, AuditEvent::setTraceId);
+        readStrings(in, events, AuditEvent::setSpanId);
+
+        boolean[] keep = new boolean[count];
+        List<AuditEvent> kept = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keep[i] = filter.test(events.get(i));
+            if (keep[i]) {
+                kept.add(events.get(i));
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (keep[i]) {
+                String json = readString(in);
+                events.get(i).setDetailsJson(json != null ? objectMapper.readValue(json, DETAILS_TYPE) : null);
+            } else {
+                skipString(in);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int chainId = in.readInt();
+            if (keep[i]) {
+                events.get(i).setChainId(chainId);
+            }
+        }
+        readKeptStrings(in, events, keep, AuditEvent::setPrevHash);
+        readKeptStrings(in, events, keep, AuditEvent::setEventHash);
+        for (int i = 0; i < count; i++) {
+            int hashVersion = version >= 2 ? in.readUnsignedByte() : 1;
+            if (keep[i]) {
+                events.get(i).setHashVersion(hashVersion);
+            }
+        }
+        return kept;
+    }
+
+    private static void writeDeltas(DataOutputStream out, List<AuditEvent> events,
+                                    Function<AuditEvent, Long> column) throws IOException {
+        long previous = 0;
+        for (AuditEvent event : events) {
+            long value = column.apply(event);
+            out.writeLong(value - previous);
+            previous = value;
+        }
+    }
+
+    private static void readDeltas(DataInputStream in, List<AuditEvent> events,
+                                   BiConsumer<AuditEvent, Long> setter) throws IOException {
+        long previous = 0;
+        for (AuditEvent event : events) {
+            previous += in.readLong();
+            setter.accept(event, previous);
+        }
+    }
+
+    private static void writeNullableLongs(DataOutputStream out, List<AuditEvent> events,
+                                           Function<AuditEvent, Long> column) throws IOException {
+        for (AuditEvent event : events) {
+            Long value = column.apply(event);
+            out.writeBoolean(value != null);
+            if (value != null) {
+                out.writeLong(value);
+            }
+        }
+    }
+
+    private static void readNullableLongs(DataInputStream in, List<AuditEvent> events,
+                                          BiConsumer<AuditEvent, Long> setter) throws IOException {
+        for (AuditEvent event : events) {
+            setter.accept(event, in.readBoolean() ? in.readLong() : null);
+        }
+    }
+
+    private static <T> void writeStrings(DataOutputStream out, List<T> rows,
+                                         Function<T, String> column) throws IOException {
+        for (T row : rows) {
+            String value = column.apply(row);
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static void readStrings(DataInputStream in, List<AuditEvent> events,
+                                    BiConsumer<AuditEvent, String> setter) throws IOException {
+        for (AuditEvent event : events) {
+            setter.accept(event, readString(in));
+        }
+    }
+
+    private static void readKeptStrings(DataInputStream in, List<AuditEvent> events, boolean[] keep,
+                                        BiConsumer<AuditEvent, String> setter) throws IOException {
+        for (int i = 0; i < keep.length; i++) {
+            if (keep[i]) {
+                setter.accept(events.get(i), readString(in));
+            } else {
+                skipString(in);
+            }
+        }
+    }
+
+    private static void skipString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length > 0) {
+            in.skipNBytes(length);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,108 @@
+package com.ehrplatform.audit.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-key event counts over a sliding time window.
+ *
+ * Each key owns a ring buffer of fixed-width time buckets; a bucket is reused
+ * (and reset) once its slot comes round again, so memory per key is constant and
+ * counting is O(buckets). The window is approximated to bucket granularity.
+ */
+public final class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    public SlidingWindowCounter(Duration window, Duration bucket) {
+        if (bucket.isZero() || bucket.isNegative() || window.compareTo(bucket) < 0) {
+            throw new IllegalArgumentException("Window must span at least one positive bucket");
+        }
+        this.bucketMillis = bucket.toMillis();
+        this.bucketCount = (int) Math.ceil((double) window.toMillis() / bucketMillis);
+    }
+
+    /**
+     * Count one occurrence for a key.
+     *
+     * @param key The grouping key
+     * @param at When the event occurred; future times count as now
+     * @param now The end of the window
+     * @return Occurrences of the key inside the window, including this one if it falls inside
+     */
+    public long increment(String key, Instant at, Instant now) {
+        long nowBucket = now.toEpochMilli() / bucketMillis;
+        long bucket = Math.min(at.toEpochMilli() / bucketMillis, nowBucket);
+        Ring ring = rings.computeIfAbsent(key, k -> new Ring(bucketCount));
+        synchronized (ring) {
+            if (bucket > nowBucket - bucketCount) {
+                ring.add(bucket);
+            }
+            return ring.sum(nowBucket);
+        }
+    }
+
+    /**
+     * Drop keys with no occurrences inside the window.
+     */
+    public void evictIdle(Instant now) {
+        long nowBucket = now.toEpochMilli() / bucketMillis;
+        rings.entrySet().removeIf(entry -> {
+            Ring ring = entry.getValue();
+            synchronized (ring) {
+                return ring.latest <= nowBucket - bucketCount;
+            }
+        });
+    }
+
+    /**
+     * Drop all keys.
+     */
+    public void clear() {
+        rings.clear();
+    }
+
+    public int size() {
+        return rings.size();
+    }
+
+    private static final class Ring {
+        private final long[] buckets;
+        private final int[] counts;
+        private long latest = Long.MIN_VALUE;
+
+        Ring(int size) {
+            buckets = new long[size];
+            counts = new int[size];
+            Arrays.fill(buckets, Long.MIN_VALUE);
+        }
+
+        void add(long bucket) {
+            int slot = (int) Math.floorMod(bucket, (long) buckets.length);
+            if (buckets[slot] != bucket) {
+                if (buckets[slot] > bucket) {
+                    return; // slot already reused by a newer bucket, event is outside the window
+                }
+                buckets[slot] = bucket;
+                counts[slot] = 0;
+            }
+            counts[slot]++;
+            latest = Math.max(latest, bucket);
+        }
+
+        long sum(long nowBucket) {
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                if (buckets[i] > nowBucket - buckets.length && buckets[i] <= nowBucket) {
+                    total += counts[i];
+                }
+            }
+            return total;
+        }
+    }
+}
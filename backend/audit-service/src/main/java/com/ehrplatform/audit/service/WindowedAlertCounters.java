@@ -0,0 +1,230 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.entity.AuditEvent;
+import com.ehrplatform.audit.repository.AuditEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory windowed counters behind the threshold alerts, fed as events are stored.
+ * A threshold fires the moment an event pushes its key's count past it, instead of
+ * waiting for the next scheduled GROUP BY scan.
+ *
+ * Keys: REPEATED_FAILED_LOGIN by email+IP, DENIED_ACCESS_BURST by user+IP,
+ * EXPORT_SPIKE by user. BULK_ACCESS keeps a HyperLogLog of patient IDs per actor
+ * and time bucket; only when the estimate nears the threshold is the exact
+ * COUNT(DISTINCT) run for that actor.
+ *
+ * State is rebuilt from the last window of stored events whenever this instance
+ * is elected chain writer, before its Kafka listener starts. Only the leader
+ * ingests, and a new leader misses events stored after its rebuild by the old
+ * one, so the scheduled SQL detection stays on as a slower reconciliation.
+ */
+@Component
+@Slf4j
+public class WindowedAlertCounters {
+
+    private static final String UNKNOWN = "unknown";
+
+    // Must match the event types counted by AuditEventRepository.findBulkPatientAccess
+    private static final Set<String> PATIENT_ACCESS_EVENTS = Set.of(
+            "RECORD_VIEWED", "PATIENT_ACCESSED", "ASSIGNMENT_CREATED");
+
+    private final AuditEventRepository auditEventRepository;
+    private final boolean streamingEnabled;
+    private final int failedLoginThreshold;
+    private final int deniedAccessThreshold;
+    private final int exportSpikeThreshold;
+    private final int bulkAccessThreshold;
+    private final double exactCheckRatio;
+    private final Duration bulkAccessWindow;
+    private final Duration rebuildWindow;
+    private final SlidingWindowCounter failedLogins;
+    private final SlidingWindowCounter deniedAccess;
+    private final SlidingWindowCounter exports;
+    private final DistinctCountWindow patientAccess;
+    // Actors already found over the bulk threshold; no exact re-check until the window has passed
+    private final Map<Long, Instant> bulkAccessReportedUntil = new ConcurrentHashMap<>();
+
+    /**
+     * A threshold crossed by the event just recorded.
+     */
+    public record Crossing(String alertType, String email, String ip, Long userId, long count) {
+    }
+
+    public WindowedAlertCounters(AuditEventRepository auditEventRepository,
+                                 @Value("${audit.alerts.streaming.enabled:true}") boolean streamingEnabled,
+                                 @Value("${audit.alerts.streaming.bucket-seconds:10}") int bucketSeconds,
+                                 @Value("${audit.alerts.thresholds.failed-login-count:5}") int failedLoginThreshold,
+                                 @Value("${audit.alerts.thresholds.failed-login-window-minutes:5}") int failedLoginWindowMinutes,
+                                 @Value("${audit.alerts.thresholds.denied-access-count:20}") int deniedAccessThreshold,
+                                 @Value("${audit.alerts.thresholds.denied-access-window-minutes:5}") int deniedAccessWindowMinutes,
+                                 @Value("${audit.alerts.thresholds.export-spike-count:10}") int exportSpikeThreshold,
+                                 @Value("${audit.alerts.thresholds.export-spike-window-minutes:10}") int exportSpikeWindowMinutes,
+                                 @Value("${audit.alerts.thresholds.bulk-access-patient-count:50}") int bulkAccessThreshold,
+                                 @Value("${audit.alerts.thresholds.bulk-access-window-minutes:10}") int bulkAccessWindowMinutes,
+                                 @Value("${audit.alerts.streaming.bulk-access.precision:10}") int sketchPrecision,
+                                 @Value("${audit.alerts.streaming.bulk-access.bucket-seconds:60}") int sketchBucketSeconds,
+                                 @Value("${audit.alerts.streaming.bulk-access.exact-check-ratio:0.9}") double exactCheckRatio) {
+        this.auditEventRepository = auditEventRepository;
+        this.streamingEnabled = streamingEnabled;
+        this.failedLoginThreshold = failedLoginThreshold;
+        this.deniedAccessThreshold = deniedAccessThreshold;
+        this.exportSpikeThreshold = exportSpikeThreshold;
+        this.bulkAccessThreshold = bulkAccessThreshold;
+        this.exactCheckRatio = exactCheckRatio;
+        this.bulkAccessWindow = Duration.ofMinutes(bulkAccessWindowMinutes);
+
+        Duration bucket = Duration.ofSeconds(bucketSeconds);
+        this.failedLogins = new SlidingWindowCounter(Duration.ofMinutes(failedLoginWindowMinutes), bucket);
+        this.deniedAccess = new SlidingWindowCounter(Duration.ofMinutes(deniedAccessWindowMinutes), bucket);
+        this.exports = new SlidingWindowCounter(Duration.ofMinutes(exportSpikeWindowMinutes), bucket);
+        this.patientAccess = new DistinctCountWindow(bulkAccessWindow,
+                Duration.ofSeconds(sketchBucketSeconds), sketchPrecision);
+        this.rebuildWindow = Duration.ofMinutes(Math.max(failedLoginWindowMinutes,
+                Math.max(deniedAccessWindowMinutes, exportSpikeWindowMinutes)));
+    }
+
+    public boolean isEnabled() {
+        return streamingEnabled;
+    }
+
+    /**
+     * Replay the last window of stored events into empty counters without raising alerts.
+     */
+    @EventListener(ChainWriterElectedEvent.class)
+    public void rebuild() {
+        if (!streamingEnabled) {
+            return;
+        }
+
+        failedLogins.clear();
+        deniedAccess.clear();
+        exports.clear();
+        patientAccess.clear();
+        bulkAccessReportedUntil.clear();
+
+        Instant now = Instant.now();
+        List<AuditEvent> events = auditEventRepository.findWindowedAlertCandidatesSince(now.minus(rebuildWindow));
+        for (AuditEvent event : events) {
+            record(event, now);
+        }
+        log.info("Rebuilt windowed alert counters from {} events in the last {} minutes",
+                events.size(), rebuildWindow.toMinutes());
+
+        List<Object[]> accesses = auditEventRepository.findPatientAccessesSince(now.minus(bulkAccessWindow));
+        for (Object[] row : accesses) {
+            patientAccess.add(String.valueOf(row[0]), (Long) row[1], (Instant) row[2], now);
+        }
+        log.info("Rebuilt distinct-patient sketches from {} accesses in the last {} minutes",
+                accesses.size(), bulkAccessWindow.toMinutes());
+    }
+
+    /**
+     * Count a newly stored event.
+     *
+     * @return The thresholds this event pushed past, usually none
+     */
+    public List<Crossing> record(AuditEvent event) {
+        if (!streamingEnabled) {
+            return List.of();
+        }
+        Instant now = Instant.now();
+        List<Crossing> crossings = record(event, now);
+        checkBulkAccess(event, now).ifPresent(crossings::add);
+        return crossings;
+    }
+
+    /**
+     * Update the actor's distinct-patient sketch. Runs the exact count only when the
+     * sketch changed and its estimate is within exact-check-ratio of the threshold.
+     */
+    private Optional<Crossing> checkBulkAccess(AuditEvent event, Instant now) {
+        Long userId = event.getActorUserId();
+        if (!PATIENT_ACCESS_EVENTS.contains(event.getEventType())
+                || userId == null || event.getPatientId() == null) {
+            return Optional.empty();
+        }
+
+        Instant at = event.getOccurredAt() != null ? event.getOccurredAt() : now;
+        OptionalLong estimate = patientAccess.add(String.valueOf(userId), event.getPatientId(), at, now);
+        if (estimate.isEmpty() || estimate.getAsLong() < bulkAccessThreshold * exactCheckRatio) {
+            return Optional.empty();
+        }
+
+        Instant reportedUntil = bulkAccessReportedUntil.get(userId);
+        if (reportedUntil != null && reportedUntil.isAfter(now)) {
+            return Optional.empty();
+        }
+
+        long exact = auditEventRepository.countDistinctPatientsAccessedSince(userId, now.minus(bulkAccessWindow));
+        if (exact <= bulkAccessThreshold) {
+            return Optional.empty();
+        }
+        bulkAccessReportedUntil.put(userId, now.plus(bulkAccessWindow));
+        return Optional.of(new Crossing("BULK_ACCESS", null, null, userId, exact));
+    }
+
+    private List<Crossing> record(AuditEvent event, Instant now) {
+        List<Crossing> crossings = new ArrayList<>(1);
+        Instant at = event.getOccurredAt() != null ? event.getOccurredAt() : now;
+
+        if ("LOGIN_FAILURE".equals(event.getEventType())) {
+            String key = keyPart(event.getActorEmail()) + "|" + keyPart(event.getIp());
+            long count = failedLogins.increment(key, at, now);
+            if (count == failedLoginThreshold + 1L) {
+                crossings.add(new Crossing("REPEATED_FAILED_LOGIN",
+                        event.getActorEmail(), event.getIp(), null, count));
+            }
+        }
+
+        if ("DENIED".equals(event.getOutcome()) && event.getActorUserId() != null) {
+            String key = event.getActorUserId() + "|" + keyPart(event.getIp());
+            long count = deniedAccess.increment(key, at, now);
+            if (count == deniedAccessThreshold + 1L) {
+                crossings.add(new Crossing("DENIED_ACCESS_BURST",
+                        null, event.getIp(), event.getActorUserId(), count));
+            }
+        }
+
+        if ("EXPORT_REQUESTED".equals(event.getEventType()) && event.getActorUserId() != null) {
+            long count = exports.increment(String.valueOf(event.getActorUserId()), at, now);
+            if (count == exportSpikeThreshold + 1L) {
+                crossings.add(new Crossing("EXPORT_SPIKE",
+                        null, null, event.getActorUserId(), count));
+            }
+        }
+
+        return crossings;
+    }
+
+    /**
+     * Scheduled job to drop keys that have gone quiet
+     */
+    @Scheduled(fixedRateString = "${audit.alerts.streaming.evict-fixed-rate:60000}")
+    public void evictIdleKeys() {
+        Instant now = Instant.now();
+        failedLogins.evictIdle(now);
+        deniedAccess.evictIdle(now);
+        exports.evictIdle(now);
+        patientAccess.evictIdle(now);
+        bulkAccessReportedUntil.values().removeIf(until -> until.isBefore(now));
+    }
+
+    private String keyPart(String value) {
+        return value != null ? value : UNKNOWN;
+    }
+}
@@ -0,0 +1,13 @@
+-- Alerts saved but not yet acknowledged by Kafka. A row is written in the alert's
+-- transaction and deleted once the alerts topic has it; the relay re-sends rows
+-- whose next_attempt_at has passed.
+CREATE TABLE IF NOT EXISTS alert_outbox (
+                                            alert_id BIGINT NOT NULL,
+                                            created_at DATETIME(3) NOT NULL,
+                                            next_attempt_at DATETIME(3) NOT NULL,
+                                            attempts INT NOT NULL DEFAULT 0,
+
+                                            PRIMARY KEY (alert_id),
+                                            KEY idx_outbox_due (next_attempt_at),
+                                            CONSTRAINT fk_outbox_alert FOREIGN KEY (alert_id) REFERENCES alert(id)
+) ENGINE=InnoDB;
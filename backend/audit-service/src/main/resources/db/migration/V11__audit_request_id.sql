@@ -0,0 +1,17 @@
+-- Request IDs of stored events, one row each. audit_event is partitioned, so its
+-- uq_audit_request must include occurred_at and no longer guarantees a request ID
+-- is stored once; this unpartitioned table does. Rows are inserted in the same
+-- transaction as the events, and outlive archived partitions.
+CREATE TABLE IF NOT EXISTS audit_request_id (
+                                                request_id VARCHAR(64) NOT NULL,
+                                                occurred_at DATETIME(3) NOT NULL,
+
+                                                PRIMARY KEY (request_id),
+                                                KEY idx_request_id_occurred (occurred_at)
+) ENGINE=InnoDB;
+
+INSERT IGNORE INTO audit_request_id (request_id, occurred_at)
+SELECT request_id, MIN(occurred_at)
+FROM audit_event
+WHERE request_id IS NOT NULL
+GROUP BY request_id;
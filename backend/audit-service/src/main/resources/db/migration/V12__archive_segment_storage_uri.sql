@@ -0,0 +1,6 @@
+-- Where each segment file was written, as a URI. audit.archive.directory must be
+-- storage shared by every replica (a shared volume); a replica that cannot find a
+-- segment under its own directory falls back to this location. NULL for segments
+-- written before this column, which are only looked up under the directory.
+ALTER TABLE audit_archive_segment
+    ADD COLUMN storage_uri VARCHAR(512) NULL AFTER file_name;
@@ -0,0 +1,18 @@
+-- Independent hash chains keyed by partition or source service.
+-- Existing events all belong to chain 0, whose genesis is the original chain's.
+ALTER TABLE audit_event
+    ADD COLUMN chain_id INT NOT NULL DEFAULT 0 AFTER details_json,
+    ADD KEY idx_chain_id (chain_id, id);
+
+-- Periodic combined root over all chain heads (ties independent chains together)
+CREATE TABLE IF NOT EXISTS audit_chain_root (
+                                                id BIGINT NOT NULL AUTO_INCREMENT,
+                                                created_at DATETIME(3) NOT NULL,
+                                                last_event_id BIGINT NOT NULL,            -- highest audit_event.id covered
+                                                chain_heads_json JSON NOT NULL,           -- {"<chainId>": "<head event_hash>"}
+                                                prev_root_hash VARCHAR(64) NOT NULL,
+                                                root_hash VARCHAR(64) NOT NULL,
+
+                                                PRIMARY KEY (id),
+                                                KEY idx_root_time (created_at)
+) ENGINE=InnoDB;
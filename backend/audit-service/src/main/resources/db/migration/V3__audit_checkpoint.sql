@@ -0,0 +1,15 @@
+-- Merkle checkpoint: one sealed block of K consecutive events of a chain
+CREATE TABLE IF NOT EXISTS audit_checkpoint (
+                                                id BIGINT NOT NULL AUTO_INCREMENT,
+                                                created_at DATETIME(3) NOT NULL,
+                                                chain_id INT NOT NULL,
+                                                from_event_id BIGINT NOT NULL,
+                                                to_event_id BIGINT NOT NULL,
+                                                event_count INT NOT NULL,
+                                                merkle_root VARCHAR(64) NOT NULL,         -- root over the block's event hashes
+                                                last_event_hash VARCHAR(64) NOT NULL,     -- chain anchor at the end of the block
+
+                                                PRIMARY KEY (id),
+                                                UNIQUE KEY uq_checkpoint_chain_to (chain_id, to_event_id),
+                                                KEY idx_checkpoint_chain_from (chain_id, from_event_id)
+) ENGINE=InnoDB;
@@ -0,0 +1,6 @@
+-- Incremental verification runs resume from the last verified event and hash of
+-- the previous successful run; earlier runs are all manual.
+ALTER TABLE integrity_check_run
+    ADD COLUMN run_type VARCHAR(16) NOT NULL DEFAULT 'MANUAL' AFTER to_event_id,   -- MANUAL | INCREMENTAL
+    ADD COLUMN last_verified_hash VARCHAR(64) NULL AFTER last_verified_event_id,
+    ADD KEY idx_type_status (run_type, status, last_verified_event_id);
@@ -0,0 +1,46 @@
+-- Monthly RANGE partitioning of audit_event on occurred_at.
+-- Expired months are removed with DROP PARTITION instead of row deletes, and
+-- time-bounded queries prune to the months they touch.
+-- AuditPartitionMaintenanceService adds future months by splitting pmax.
+
+-- Hash of pruned events that later retained events chain from, so verification
+-- can still link across a dropped partition.
+CREATE TABLE IF NOT EXISTS audit_chain_anchor (
+                                                  id BIGINT NOT NULL AUTO_INCREMENT,
+                                                  chain_id INT NOT NULL,
+                                                  event_id BIGINT NOT NULL,
+                                                  event_hash VARCHAR(64) NOT NULL,
+                                                  occurred_at DATETIME(3) NOT NULL,
+                                                  pruned_at DATETIME(3) NOT NULL,
+                                                  partition_name VARCHAR(64) NOT NULL,
+
+                                                  PRIMARY KEY (id),
+                                                  UNIQUE KEY uq_anchor_chain_event (chain_id, event_id)
+) ENGINE=InnoDB;
+
+-- Every unique key of a partitioned table must include the partitioning column.
+-- request_id uniqueness is enforced by the ingest path's bulk lookup; the key still
+-- rejects exact redeliveries, which carry the same occurred_at.
+ALTER TABLE audit_event
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id, occurred_at),
+    DROP INDEX uq_audit_request,
+    ADD UNIQUE KEY uq_audit_request (request_id, occurred_at);
+
+ALTER TABLE audit_event
+    PARTITION BY RANGE COLUMNS (occurred_at) (
+        PARTITION p_history VALUES LESS THAN ('2026-01-01 00:00:00'),
+        PARTITION p202601 VALUES LESS THAN ('2026-02-01 00:00:00'),
+        PARTITION p202602 VALUES LESS THAN ('2026-03-01 00:00:00'),
+        PARTITION p202603 VALUES LESS THAN ('2026-04-01 00:00:00'),
+        PARTITION p202604 VALUES LESS THAN ('2026-05-01 00:00:00'),
+        PARTITION p202605 VALUES LESS THAN ('2026-06-01 00:00:00'),
+        PARTITION p202606 VALUES LESS THAN ('2026-07-01 00:00:00'),
+        PARTITION p202607 VALUES LESS THAN ('2026-08-01 00:00:00'),
+        PARTITION p202608 VALUES LESS THAN ('2026-09-01 00:00:00'),
+        PARTITION p202609 VALUES LESS THAN ('2026-10-01 00:00:00'),
+        PARTITION p202610 VALUES LESS THAN ('2026-11-01 00:00:00'),
+        PARTITION p202611 VALUES LESS THAN ('2026-12-01 00:00:00'),
+        PARTITION p202612 VALUES LESS THAN ('2027-01-01 00:00:00'),
+        PARTITION pmax VALUES LESS THAN (MAXVALUE)
+    );
@@ -0,0 +1,32 @@
+-- Index of immutable compressed segment files holding archived audit_event rows.
+-- One segment covers consecutive events of one chain from one archived partition;
+-- the min/max columns let queries skip segments without opening them.
+CREATE TABLE IF NOT EXISTS audit_archive_segment (
+                                                     id BIGINT NOT NULL AUTO_INCREMENT,
+                                                     created_at DATETIME(3) NOT NULL,
+                                                     partition_name VARCHAR(64) NOT NULL,
+                                                     chain_id INT NOT NULL,
+                                                     file_name VARCHAR(255) NOT NULL,
+                                                     file_sha256 VARCHAR(64) NOT NULL,
+                                                     event_count INT NOT NULL,
+
+                                                     from_event_id BIGINT NOT NULL,
+                                                     to_event_id BIGINT NOT NULL,
+                                                     min_occurred_at DATETIME(3) NOT NULL,
+                                                     max_occurred_at DATETIME(3) NOT NULL,
+                                                     min_actor_user_id BIGINT NULL,
+                                                     max_actor_user_id BIGINT NULL,
+                                                     min_patient_id BIGINT NULL,
+                                                     max_patient_id BIGINT NULL,
+
+                                                     first_prev_hash VARCHAR(64) NOT NULL,
+                                                     last_event_hash VARCHAR(64) NOT NULL,
+
+                                                     sealed TINYINT(1) NOT NULL DEFAULT 0,  -- 1 once the source partition is dropped
+
+                                                     PRIMARY KEY (id),
+                                                     UNIQUE KEY uq_segment_chain_from (chain_id, from_event_id),
+                                                     KEY idx_segment_time (sealed, min_occurred_at, max_occurred_at),
+                                                     KEY idx_segment_ids (from_event_id, to_event_id),
+                                                     KEY idx_segment_partition (partition_name)
+) ENGINE=InnoDB;
@@ -0,0 +1,48 @@
+-- Pre-aggregated event counts per MINUTE, HOUR and DAY bucket (UTC, bucket start),
+-- maintained incrementally by the ingest transaction and read by /admin/audit/stats.
+CREATE TABLE IF NOT EXISTS audit_rollup (
+                                            granularity VARCHAR(8) NOT NULL,          -- MINUTE | HOUR | DAY
+                                            bucket_start DATETIME NOT NULL,
+                                            event_type VARCHAR(64) NOT NULL,
+                                            outcome VARCHAR(16) NOT NULL,
+                                            source_service VARCHAR(64) NOT NULL,
+                                            severity VARCHAR(16) NOT NULL,
+                                            event_count BIGINT NOT NULL,
+
+                                            PRIMARY KEY (granularity, bucket_start, event_type, outcome, source_service, severity)
+) ENGINE=InnoDB;
+
+-- Per-actor activity counts; events without an actor are not counted here.
+CREATE TABLE IF NOT EXISTS audit_actor_rollup (
+                                                  granularity VARCHAR(8) NOT NULL,
+                                                  bucket_start DATETIME NOT NULL,
+                                                  actor_user_id BIGINT NOT NULL,
+                                                  event_count BIGINT NOT NULL,
+
+                                                  PRIMARY KEY (granularity, bucket_start, actor_user_id)
+) ENGINE=InnoDB;
+
+-- Backfill from the events already stored
+INSERT INTO audit_rollup (granularity, bucket_start, event_type, outcome, source_service, severity, event_count)
+SELECT 'MINUTE', DATE_FORMAT(occurred_at, '%Y-%m-%d %H:%i:00'), event_type, outcome, source_service, severity, COUNT(*)
+FROM audit_event GROUP BY 2, event_type, outcome, source_service, severity;
+
+INSERT INTO audit_rollup (granularity, bucket_start, event_type, outcome, source_service, severity, event_count)
+SELECT 'HOUR', DATE_FORMAT(occurred_at, '%Y-%m-%d %H:00:00'), event_type, outcome, source_service, severity, COUNT(*)
+FROM audit_event GROUP BY 2, event_type, outcome, source_service, severity;
+
+INSERT INTO audit_rollup (granularity, bucket_start, event_type, outcome, source_service, severity, event_count)
+SELECT 'DAY', DATE(occurred_at), event_type, outcome, source_service, severity, COUNT(*)
+FROM audit_event GROUP BY 2, event_type, outcome, source_service, severity;
+
+INSERT INTO audit_actor_rollup (granularity, bucket_start, actor_user_id, event_count)
+SELECT 'MINUTE', DATE_FORMAT(occurred_at, '%Y-%m-%d %H:%i:00'), actor_user_id, COUNT(*)
+FROM audit_event WHERE actor_user_id IS NOT NULL GROUP BY 2, actor_user_id;
+
+INSERT INTO audit_actor_rollup (granularity, bucket_start, actor_user_id, event_count)
+SELECT 'HOUR', DATE_FORMAT(occurred_at, '%Y-%m-%d %H:00:00'), actor_user_id, COUNT(*)
+FROM audit_event WHERE actor_user_id IS NOT NULL GROUP BY 2, actor_user_id;
+
+INSERT INTO audit_actor_rollup (granularity, bucket_start, actor_user_id, event_count)
+SELECT 'DAY', DATE(occurred_at), actor_user_id, COUNT(*)
+FROM audit_event WHERE actor_user_id IS NOT NULL GROUP BY 2, actor_user_id;
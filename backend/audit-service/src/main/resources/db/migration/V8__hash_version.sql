@@ -0,0 +1,4 @@
+-- Hash format each event was chained with: 1 = delimited canonical string,
+-- 2 = length-prefixed binary canonical form. Existing rows are version 1.
+ALTER TABLE audit_event
+    ADD COLUMN hash_version TINYINT NOT NULL DEFAULT 1 AFTER event_hash;
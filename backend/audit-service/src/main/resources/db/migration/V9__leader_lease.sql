@@ -0,0 +1,16 @@
+-- Named leases for leader election between audit-service replicas. The holder
+-- renews lease_until on a heartbeat; any replica may take an expired lease.
+-- fencing_token increases with every change of owner.
+CREATE TABLE IF NOT EXISTS audit_leader_lease (
+                                                  name VARCHAR(64) NOT NULL,
+                                                  owner_id VARCHAR(128) NULL,
+                                                  lease_until DATETIME(3) NOT NULL,
+                                                  acquired_at DATETIME(3) NULL,
+                                                  fencing_token BIGINT NOT NULL DEFAULT 0,
+
+                                                  PRIMARY KEY (name)
+) ENGINE=InnoDB;
+
+-- Only the chain-writer lease holder consumes Kafka and appends to the hash chains
+INSERT IGNORE INTO audit_leader_lease (name, owner_id, lease_until, acquired_at, fencing_token)
+VALUES ('chain-writer', NULL, '1970-01-01 00:00:01', NULL, 0);
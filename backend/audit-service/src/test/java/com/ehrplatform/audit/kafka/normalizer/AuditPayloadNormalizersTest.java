@@ -0,0 +1,71 @@
+package com.ehrplatform.audit.kafka.normalizer;
+
+import com.ehrplatform.audit.dto.AuditEventMessage;
+import com.ehrplatform.audit.service.RequestIdFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuditPayloadNormalizersTest {
+
+    private final AuditPayloadNormalizers normalizers = new AuditPayloadNormalizers(
+            List.of(new AuditEventsNormalizer(), new UserRegisteredNormalizer(), new PatientAssignNormalizer()),
+            new ObjectMapper());
+
+    @Test
+    void decodesTopicFieldsAndDefaults() throws IOException {
+        AuditEventMessage event = normalizers.normalize(new ConsumerRecord<>("audit-events", 3, 1882L, null,
+                "{\"eventType\":\"RECORD_VIEWED\",\"patientId\":\"42\",\"doctorUserId\":7,\"ip\":null," +
+                "\"details\":{\"ignored\":[1,2]},\"occurredAt\":\"2026-02-07T23:20:00Z\",\"severity\":\"WARN\"}"));
+
+        assertEquals("RECORD_VIEWED", event.getEventType());
+        assertEquals(42L, event.getPatientId());
+        assertEquals(7L, event.getDoctorUserId());
+        assertNull(event.getIp());
+        assertNull(event.getDetails());
+        assertEquals(Instant.parse("2026-02-07T23:20:00Z"), event.getOccurredAt());
+        assertEquals("WARN", event.getSeverity());
+        assertEquals("SUCCESS", event.getOutcome());
+        assertEquals("care-service", event.getSourceService());
+        assertEquals("audit-events:3:1882", event.getRequestId());
+        assertEquals(3, event.getKafkaPartition());
+
+        AuditEventMessage assigned = normalizers.normalize(new ConsumerRecord<>("patient-assign", 0, 5L, null,
+                "{\"requestId\":\"r-1\",\"patientId\":9,\"doctorId\":4,\"doctorEmail\":\"dr@example.org\"}"));
+
+        assertEquals("PATIENT_ASSIGNED", assigned.getEventType());
+        assertEquals("r-1", assigned.getRequestId());
+        assertEquals("dr@example.org", assigned.getActorEmail());
+        assertEquals(4, assigned.getDetails().size());
+        assertNull(assigned.getDetails().get("patientName"));
+        assertEquals(9L, assigned.getDetails().get("patientId"));
+    }
+
+    @Test
+    void eventsWithoutOccurredAtAlwaysGetTheRequestIdLookup() throws IOException {
+        RequestIdFilter filter = new RequestIdFilter(null, true, 24, 5, 1000, 0.001, 5);
+
+        AuditEventMessage undated = normalizers.normalize(new ConsumerRecord<>("audit-events", 0, 1L, null,
+                "{\"requestId\":\"r-1\",\"eventType\":\"LOGIN_SUCCESS\"}"));
+        AuditEventMessage dated = normalizers.normalize(new ConsumerRecord<>("audit-events", 0, 2L, null,
+                "{\"requestId\":\"r-2\",\"eventType\":\"LOGIN_SUCCESS\",\"occurredAt\":\"" + Instant.now() + "\"}"));
+
+        assertNull(undated.getOccurredAt());
+        assertTrue(filter.mightBeStored(undated.getEffectiveRequestId(), undated.getOccurredAt()));
+        assertFalse(filter.mightBeStored(dated.getEffectiveRequestId(), dated.getOccurredAt()));
+    }
+
+    @Test
+    void skipsUnknownTopics() throws IOException {
+        assertNull(normalizers.normalize(new ConsumerRecord<>("other", 0, 0L, null, "{}")));
+    }
+}
@@ -0,0 +1,68 @@
+package com.ehrplatform.audit.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class ChainHeadCacheTest {
+
+    private final ChainHeadCache cache = new ChainHeadCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private String loadFromDatabase(int chainId) {
+        loads.incrementAndGet();
+        return "stored-head";
+    }
+
+    @Test
+    void committedAppendKeepsItsHead() {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.lock(1);
+        cache.get(1, this::loadFromDatabase);
+        cache.advance(1, "new-head");
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals("new-head", cache.get(1, this::loadFromDatabase));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void rolledBackAppendDropsItsHeadBeforeTheNextWriterLocks() throws Exception {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.lock(1);
+        cache.get(1, this::loadFromDatabase);
+        cache.advance(1, "never-stored");
+
+        // Next writer blocks on the chain lock, then reads the head
+        CompletableFuture<String> nextWriter = CompletableFuture.supplyAsync(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                cache.lock(1);
+                return cache.get(1, this::loadFromDatabase);
+            } finally {
+                complete(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(nextWriter.isDone());
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals("stored-head", nextWriter.get(5, TimeUnit.SECONDS));
+        assertEquals(2, loads.get());
+    }
+
+    private static void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(status));
+    }
+}
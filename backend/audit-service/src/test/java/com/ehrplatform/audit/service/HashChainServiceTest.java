@@ -0,0 +1,81 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.entity.AuditEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HashChainServiceTest {
+
+    private final HashChainService hashChainService = new HashChainService("GENESIS", 2);
+
+    @Test
+    void eachVersionVerifiesWithItsOwnFormat() {
+        String prevHash = hashChainService.getGenesisHash(0);
+        AuditEvent v1 = event(1);
+        AuditEvent v2 = event(2);
+
+        v1.setEventHash(hashChainService.computeEventHash(prevHash, v1));
+        v2.setEventHash(hashChainService.computeEventHash(prevHash, v2));
+
+        assertNotEquals(v1.getEventHash(), v2.getEventHash());
+        assertTrue(hashChainService.verifyEventHash(prevHash, v1));
+        assertTrue(hashChainService.verifyEventHash(prevHash, v2));
+
+        v2.setActorUserId(8L);
+        assertFalse(hashChainService.verifyEventHash(prevHash, v2));
+    }
+
+    @Test
+    void binaryFormatIgnoresDetailsKeyOrderButNotValueBoundaries() {
+        AuditEvent first = event(2);
+        AuditEvent second = event(2);
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("nested", Map.of("b", 2, "a", List.of("x", true)));
+        reordered.put("fields", "diagnosis");
+        second.setDetailsJson(reordered);
+
+        assertEquals(hashChainService.computeEventHash("prev", first),
+                hashChainService.computeEventHash("prev", second));
+
+        // One details value that embeds the v1 delimiters, and two separate values
+        for (int version : new int[]{1, 2}) {
+            AuditEvent embedded = event(version);
+            embedded.setDetailsJson(Map.of("a", "1\",\"b\":\"2"));
+            AuditEvent separate = event(version);
+            separate.setDetailsJson(Map.of("a", "1", "b", "2"));
+
+            boolean collides = hashChainService.computeEventHash("prev", embedded)
+                    .equals(hashChainService.computeEventHash("prev", separate));
+            assertEquals(version == 1, collides);
+        }
+    }
+
+    private AuditEvent event(int hashVersion) {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("fields", "diagnosis");
+        details.put("nested", Map.of("a", List.of("x", true), "b", 2));
+        return AuditEvent.builder()
+                .occurredAt(Instant.parse("2026-03-01T10:15:30.123Z"))
+                .sourceService("ehr-service")
+                .eventType("RECORD_VIEWED")
+                .outcome("SUCCESS")
+                .severity("INFO")
+                .actorUserId(7L)
+                .actorRole("DOCTOR")
+                .actorEmail("dr@example.org")
+                .patientId(42L)
+                .requestId("req-1")
+                .detailsJson(details)
+                .hashVersion(hashVersion)
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package com.ehrplatform.audit.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HyperLogLogTest {
+
+    @Test
+    void estimatesSmallAndLargeCardinalities() {
+        for (int distinct : new int[]{1, 10, 50, 1_000, 100_000}) {
+            HyperLogLog sketch = new HyperLogLog(10);
+            for (long patientId = 1; patientId <= distinct; patientId++) {
+                sketch.add(patientId);
+                sketch.add(patientId); // repeats never count twice
+            }
+
+            double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+            assertTrue(error < 0.1, "estimate " + sketch.estimate() + " for " + distinct);
+        }
+    }
+
+    @Test
+    void mergeEstimatesUnion() {
+        HyperLogLog first = new HyperLogLog(10);
+        HyperLogLog second = new HyperLogLog(10);
+        for (long id = 0; id < 300; id++) {
+            first.add(id);
+        }
+        for (long id = 200; id < 500; id++) {
+            second.add(id);
+        }
+
+        first.merge(second);
+        assertEquals(500, first.estimate(), 25);
+
+        assertFalse(first.add(42));
+        first.clear();
+        assertEquals(0, first.estimate());
+    }
+}
@@ -0,0 +1,51 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.dto.InclusionProofResponse.ProofStep;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MerkleTreeTest {
+
+    @Test
+    void proofOfEveryLeafRebuildsRoot() throws Exception {
+        for (int size : new int[]{1, 2, 3, 7, 8, 1024, 1025}) {
+            List<String> hashes = eventHashes(size);
+            String root = MerkleTree.root(hashes);
+
+            for (int i = 0; i < size; i++) {
+                List<ProofStep> proof = MerkleTree.proof(hashes, i);
+                assertEquals(root, MerkleTree.rootFromProof(hashes.get(i), proof));
+                assertTrue(proof.size() <= 32 - Integer.numberOfLeadingZeros(size));
+            }
+        }
+    }
+
+    @Test
+    void tamperedLeafDoesNotMatchRoot() throws Exception {
+        List<String> hashes = eventHashes(100);
+        String root = MerkleTree.root(hashes);
+        List<ProofStep> proof = MerkleTree.proof(hashes, 42);
+
+        String tampered = eventHashes(101).get(100);
+        assertNotEquals(root, MerkleTree.rootFromProof(tampered, proof));
+    }
+
+    private List<String> eventHashes(int count) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        List<String> hashes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] hash = digest.digest(("event-" + i).getBytes(StandardCharsets.UTF_8));
+            hashes.add(HexFormat.of().formatHex(hash));
+        }
+        return hashes;
+    }
+}
@@ -0,0 +1,41 @@
+package com.ehrplatform.audit.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RotatingBloomFilterTest {
+
+    @Test
+    void hasNoFalseNegativesAndFewFalsePositives() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(10_000, 0.001, 3);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("audit-events:0:" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("audit-events:0:" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("audit-events:1:" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, falsePositives + " false positives");
+    }
+
+    @Test
+    void entriesAgeOutAfterAllGenerationsRotate() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(100, 0.001, 3);
+        filter.put("req-1");
+
+        filter.rotate();
+        filter.rotate();
+        assertTrue(filter.mightContain("req-1"));
+
+        filter.rotate();
+        assertFalse(filter.mightContain("req-1"));
+    }
+}
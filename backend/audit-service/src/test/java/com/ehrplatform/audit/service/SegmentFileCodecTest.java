@@ -0,0 +1,83 @@
+package com.ehrplatform.audit.service;
+
+import com.ehrplatform.audit.entity.AuditEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SegmentFileCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void roundTripsEveryColumnIncludingNulls() throws IOException {
+        Instant t = Instant.parse("2025-03-01T10:15:30.123Z");
+        List<AuditEvent> events = List.of(
+                AuditEvent.builder()
+                        .id(100L).occurredAt(t).receivedAt(t.plusMillis(7))
+                        .sourceService("ehr-service").sourceInstance("ehr-1").eventType("RECORD_VIEWED")
+                        .outcome("SUCCESS").severity("INFO")
+                        .actorUserId(5L).actorRole("DOCTOR").actorEmail("dr@example.org")
+                        .ip("10.0.0.1").userAgent("Mozilla/5.0 ünïcode").deviceId("d-1").sessionId("s-1")
+                        .patientId(42L).recordId(7L).targetUserId(null)
+                        .requestId("req-1").traceId("trace").spanId("span")
+                        .detailsJson(Map.of("fields", "diagnosis"))
+                        .chainId(0).prevHash("a".repeat(64)).eventHash("b".repeat(64))
+                        .build(),
+                AuditEvent.builder()
+                        .id(103L).occurredAt(t.minusSeconds(1)).receivedAt(t)
+                        .sourceService("auth-service").eventType("LOGIN_FAILED")
+                        .outcome("FAILURE").severity("WARN")
+                        .requestId("req-2")
+                        .chainId(0).prevHash("b".repeat(64)).eventHash("c".repeat(64))
+                        .build());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SegmentFileCodec.write(events, new DataOutputStream(bytes), objectMapper);
+        List<AuditEvent> read = SegmentFileCodec.read(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), objectMapper);
+
+        assertEquals(events, read);
+    }
+
+    @Test
+    void readsOnlyRowsAcceptedByFilter() throws IOException {
+        Instant t = Instant.parse("2025-03-01T10:15:30.123Z");
+        List<AuditEvent> events = List.of(
+                AuditEvent.builder()
+                        .id(1L).occurredAt(t).receivedAt(t).eventType("RECORD_VIEWED").patientId(42L)
+                        .detailsJson(Map.of("n", 1)).chainId(3).prevHash("a").eventHash("b").build(),
+                AuditEvent.builder()
+                        .id(2L).occurredAt(t).receivedAt(t).eventType("LOGIN_FAILED")
+                        .detailsJson(Map.of("n", 2)).chainId(3).prevHash("b").eventHash("c").build(),
+                AuditEvent.builder()
+                        .id(3L).occurredAt(t).receivedAt(t).eventType("RECORD_VIEWED").patientId(42L)
+                        .chainId(3).prevHash("c").eventHash("d").hashVersion(2).build());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SegmentFileCodec.write(events, new DataOutputStream(bytes), objectMapper);
+        List<AuditEvent> read = SegmentFileCodec.read(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), objectMapper,
+                e -> Long.valueOf(42L).equals(e.getPatientId()));
+
+        assertEquals(List.of(events.get(0), events.get(2)), read);
+    }
+
+    @Test
+    void rejectsForeignData() {
+        byte[] garbage = {1, 2, 3, 4, 0, 0, 0, 1};
+        assertThrows(IOException.class, () -> SegmentFileCodec.read(
+                new DataInputStream(new ByteArrayInputStream(garbage)), objectMapper));
+    }
+}
@@ -0,0 +1,43 @@
+package com.ehrplatform.audit.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SlidingWindowCounterTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+
+    @Test
+    void countsOnlyOccurrencesInsideWindow() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofMinutes(5), Duration.ofSeconds(10));
+
+        for (int i = 0; i < 5; i++) {
+            counter.increment("a|1.2.3.4", T0.plusSeconds(i * 30), T0.plusSeconds(i * 30));
+        }
+        assertEquals(6, counter.increment("a|1.2.3.4", T0.plusSeconds(150), T0.plusSeconds(150)));
+        assertEquals(1, counter.increment("b|1.2.3.4", T0.plusSeconds(150), T0.plusSeconds(150)));
+
+        // Six minutes on, the first three occurrences have left the window
+        Instant later = T0.plusSeconds(360);
+        assertEquals(4, counter.increment("a|1.2.3.4", later, later));
+    }
+
+    @Test
+    void ignoresEventsOlderThanWindowAndEvictsIdleKeys() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(Duration.ofMinutes(1), Duration.ofSeconds(10));
+        Instant now = T0.plusSeconds(600);
+
+        assertEquals(0, counter.increment("old", T0, now));
+        assertEquals(1, counter.increment("fresh", now, now));
+        assertEquals(2, counter.size());
+
+        counter.evictIdle(now);
+        assertEquals(1, counter.size());
+        counter.evictIdle(now.plusSeconds(120));
+        assertEquals(0, counter.size());
+    }
+}
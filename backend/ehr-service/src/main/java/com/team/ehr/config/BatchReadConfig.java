@@ -0,0 +1,32 @@
+package com.team.ehr.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class BatchReadConfig {
+
+    /**
+     * Pool that decrypts and parses records for batch reads. When the queue is full the
+     * request thread decrypts its own records instead of queueing more work.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService recordDecryptExecutor(@Value("${ehr.batchRead.decryptThreads:4}") int threads,
+                                                 @Value("${ehr.batchRead.queueCapacity:256}") int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ehr-decrypt-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -1,17 +1,22 @@
 package com.team.ehr.controller;
 
+import com.team.ehr.dto.EhrBatchReadRequest;
+import com.team.ehr.dto.EhrBatchReadResponse;
 import com.team.ehr.dto.EhrPatientResponse;
 import com.team.ehr.dto.EhrUpdateRequest;
 import com.team.ehr.dto.EhrUpdateResponse;
 import com.team.ehr.dto.EhrVersionDto;
+import com.team.ehr.dto.EhrVersionPage;
 import com.team.ehr.dto.EhrExportResponse;
 import com.team.ehr.dto.EhrCreateRequest;
 import com.team.ehr.dto.EhrCreateResponse;
 import com.team.ehr.entity.EhrCategory;
+import com.team.ehr.service.EhrBatchReadService;
 import com.team.ehr.service.EhrRecordService;
 import com.team.ehr.service.ExportService;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Set;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -29,12 +34,17 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/ehr/patients")
 public class EhrController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final EhrRecordService ehrRecordService;
     private final ExportService exportService;
+    private final EhrBatchReadService ehrBatchReadService;
 
-    public EhrController(EhrRecordService ehrRecordService, ExportService exportService) {
+    public EhrController(EhrRecordService ehrRecordService, ExportService exportService,
+                         EhrBatchReadService ehrBatchReadService) {
         this.ehrRecordService = ehrRecordService;
         this.exportService = exportService;
+        this.ehrBatchReadService = ehrBatchReadService;
     }
 
     @GetMapping("/{patientId}")
@@ -42,9 +52,16 @@ public class EhrController {
     public EhrPatientResponse readPatient(
             @PathVariable Long patientId,
             @RequestParam(required = false) EhrCategory category,
-            @RequestParam(required = false) Integer version
+            @RequestParam(required = false) Integer version,
+            @RequestParam(required = false) Set<String> fields
     ) {
-        return ehrRecordService.readPatient(patientId, category, version);
+        return ehrRecordService.readPatientView(patientId, category, version, fields);
+    }
+
+    @PostMapping("/batch")
+    @PreAuthorize("isAuthenticated()")
+    public EhrBatchReadResponse readPatients(@Valid @RequestBody EhrBatchReadRequest request) {
+        return ehrBatchReadService.readPatients(request);
     }
 
     @PatchMapping("/{patientId}")
@@ -67,11 +84,18 @@ public class EhrController {
 
     @GetMapping("/{patientId}/versions")
     @PreAuthorize("isAuthenticated()")
-    public List<EhrVersionDto> versions(
+    public ResponseEntity<List<EhrVersionDto>> versions(
             @PathVariable Long patientId,
-            @RequestParam(required = false) EhrCategory category
+            @RequestParam(required = false) EhrCategory category,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
     ) {
-        return ehrRecordService.listVersions(patientId, category);
+        EhrVersionPage page = ehrRecordService.listVersions(patientId, category, cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getVersions());
     }
 
     @PostMapping("/{patientId}/export")
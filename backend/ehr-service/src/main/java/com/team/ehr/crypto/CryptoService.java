@@ -55,13 +55,17 @@ public class CryptoService {
     }
 
     public String decryptJson(byte[] ciphertext) {
+        return new String(decryptJsonBytes(ciphertext), java.nio.charset.StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decrypt to the UTF-8 plaintext, reading the IV and payload in place.
+     */
+    public byte[] decryptJsonBytes(byte[] ciphertext) {
         try {
-            byte[] iv = slice(ciphertext, 0, IV_BYTES);
-            byte[] payload = slice(ciphertext, IV_BYTES, ciphertext.length - IV_BYTES);
             Cipher cipher = Cipher.getInstance(AES_GCM);
-            cipher.init(Cipher.DECRYPT_MODE, masterKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
-            byte[] plaintext = cipher.doFinal(payload);
-            return new String(plaintext, java.nio.charset.StandardCharsets.UTF_8);
+            cipher.init(Cipher.DECRYPT_MODE, masterKey, new GCMParameterSpec(GCM_TAG_BITS, ciphertext, 0, IV_BYTES));
+            return cipher.doFinal(ciphertext, IV_BYTES, ciphertext.length - IV_BYTES);
         } catch (Exception ex) {
             throw new BadRequestException("Decryption failed");
         }
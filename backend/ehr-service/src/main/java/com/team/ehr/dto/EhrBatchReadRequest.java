@@ -0,0 +1,41 @@
+package com.team.ehr.dto;
+
+import com.team.ehr.entity.EhrCategory;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class EhrBatchReadRequest {
+
+    @NotEmpty
+    @Size(max = 100)
+    private List<Long> patientIds;
+
+    private EhrCategory category;
+
+    private List<String> fields;
+
+    public List<Long> getPatientIds() {
+        return patientIds;
+    }
+
+    public void setPatientIds(List<Long> patientIds) {
+        this.patientIds = patientIds;
+    }
+
+    public EhrCategory getCategory() {
+        return category;
+    }
+
+    public void setCategory(EhrCategory category) {
+        this.category = category;
+    }
+
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public void setFields(List<String> fields) {
+        this.fields = fields;
+    }
+}
@@ -0,0 +1,25 @@
+package com.team.ehr.dto;
+
+import java.util.List;
+
+public class EhrBatchReadResponse {
+
+    private List<EhrPatientResponse> patients;
+    private List<Long> deniedPatientIds;
+
+    public List<EhrPatientResponse> getPatients() {
+        return patients;
+    }
+
+    public void setPatients(List<EhrPatientResponse> patients) {
+        this.patients = patients;
+    }
+
+    public List<Long> getDeniedPatientIds() {
+        return deniedPatientIds;
+    }
+
+    public void setDeniedPatientIds(List<Long> deniedPatientIds) {
+        this.deniedPatientIds = deniedPatientIds;
+    }
+}
@@ -0,0 +1,22 @@
+package com.team.ehr.dto;
+
+import java.util.List;
+
+public class EhrVersionPage {
+
+    private final List<EhrVersionDto> versions;
+    private final String nextCursor;
+
+    public EhrVersionPage(List<EhrVersionDto> versions, String nextCursor) {
+        this.versions = versions;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<EhrVersionDto> getVersions() {
+        return versions;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
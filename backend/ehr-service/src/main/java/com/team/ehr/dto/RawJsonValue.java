@@ -0,0 +1,169 @@
+package com.team.ehr.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * A JSON document kept as the UTF-8 bytes it was decrypted to. Serializing it writes the
+ * bytes straight into the output; with fields, only those top-level members are copied,
+ * token by token, without building a tree. Wrap in a POJONode to use as a JsonNode.
+ */
+public final class RawJsonValue extends JsonSerializable.Base {
+
+    private static final JsonFactory PARSER_FACTORY = new JsonFactory();
+
+    private final byte[] utf8;
+    private final Set<String> fields;
+
+    /**
+     * @param fields top-level members to keep, or null for the whole document
+     */
+    public RawJsonValue(byte[] utf8, Set<String> fields) {
+        this.utf8 = utf8;
+        this.fields = fields;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (fields == null) {
+            gen.writeRawValue(new Utf8Bytes(utf8));
+            return;
+        }
+        try (JsonParser parser = PARSER_FACTORY.createParser(utf8)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                gen.copyCurrentStructure(parser);
+                return;
+            }
+            gen.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if (fields.contains(name)) {
+                    gen.writeFieldName(name);
+                    gen.copyCurrentStructure(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Raw UTF-8 for writeRawValue. The byte generator only asks for the unquoted bytes;
+     * the quoted and char forms, used by other generators, go through a String.
+     */
+    private static final class Utf8Bytes implements SerializableString {
+
+        private final byte[] bytes;
+        private SerializedString text;
+
+        private Utf8Bytes(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private SerializedString text() {
+            if (text == null) {
+                text = new SerializedString(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return text;
+        }
+
+        @Override
+        public String getValue() {
+            return text().getValue();
+        }
+
+        @Override
+        public int charLength() {
+            return text().charLength();
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            return text().asQuotedChars();
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return bytes;
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            return text().asQuotedUTF8();
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            return text().appendQuotedUTF8(buffer, offset);
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            return text().appendQuoted(buffer, offset);
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            if (offset + bytes.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+            return bytes.length;
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            return text().appendUnquoted(buffer, offset);
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            return text().writeQuotedUTF8(out);
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(bytes);
+            return bytes.length;
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) throws IOException {
+            return text().putQuotedUTF8(buffer);
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) throws IOException {
+            if (bytes.length > buffer.remaining()) {
+                return -1;
+            }
+            buffer.put(bytes);
+            return bytes.length;
+        }
+    }
+}
@@ -17,7 +17,8 @@ import org.hibernate.annotations.CreationTimestamp;
         name = "ehr_record_version",
         indexes = {
                 @Index(name = "idx_ehr_version_patient", columnList = "patient_id"),
-                @Index(name = "idx_ehr_version_category", columnList = "category")
+                @Index(name = "idx_ehr_version_category", columnList = "category"),
+                @Index(name = "idx_ehr_version_patient_category_version", columnList = "patient_id, category, version")
         }
 )
 public class EhrRecordVersion {
@@ -39,6 +40,10 @@ public class EhrRecordVersion {
     @Column(name = "version", nullable = false)
     private Integer version;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "storage_kind", nullable = false, length = 10)
+    private VersionStorageKind storageKind = VersionStorageKind.SNAPSHOT;
+
     @Column(name = "ciphertext", nullable = false)
     private byte[] ciphertext;
 
@@ -94,6 +99,14 @@ public class EhrRecordVersion {
         this.version = version;
     }
 
+    public VersionStorageKind getStorageKind() {
+        return storageKind;
+    }
+
+    public void setStorageKind(VersionStorageKind storageKind) {
+        this.storageKind = storageKind;
+    }
+
     public byte[] getCiphertext() {
         return ciphertext;
     }
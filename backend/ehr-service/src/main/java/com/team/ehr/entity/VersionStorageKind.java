@@ -0,0 +1,6 @@
+package com.team.ehr.entity;
+
+public enum VersionStorageKind {
+    SNAPSHOT,
+    DELTA
+}
@@ -2,10 +2,13 @@ package com.team.ehr.repository;
 
 import com.team.ehr.entity.EhrCategory;
 import com.team.ehr.entity.EhrRecordCurrent;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface EhrRecordCurrentRepository extends JpaRepository<EhrRecordCurrent, Long> {
     Optional<EhrRecordCurrent> findByPatientIdAndCategory(Long patientId, EhrCategory category);
     boolean existsByPatientIdAndCategory(Long patientId, EhrCategory category);
+    List<EhrRecordCurrent> findByPatientIdInAndCategoryIn(Collection<Long> patientIds, Collection<EhrCategory> categories);
 }
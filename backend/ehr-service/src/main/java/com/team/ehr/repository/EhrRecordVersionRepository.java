@@ -2,12 +2,19 @@ package com.team.ehr.repository;
 
 import com.team.ehr.entity.EhrCategory;
 import com.team.ehr.entity.EhrRecordVersion;
+import com.team.ehr.entity.VersionStorageKind;
 import java.util.List;
 import java.util.Optional;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface EhrRecordVersionRepository extends JpaRepository<EhrRecordVersion, Long> {
-    List<EhrRecordVersion> findByPatientIdAndCategoryOrderByVersionDesc(Long patientId, EhrCategory category);
     Optional<EhrRecordVersion> findByPatientIdAndCategoryAndVersion(Long patientId, EhrCategory category, Integer version);
-    List<EhrRecordVersion> findByPatientIdOrderByCreatedAtDesc(Long patientId);
+    List<EhrVersionSummary> findByPatientIdAndCategoryAndVersionLessThanOrderByVersionDesc(
+            Long patientId, EhrCategory category, Integer beforeVersion, Limit limit);
+    List<EhrVersionSummary> findByPatientIdAndIdLessThanOrderByIdDesc(Long patientId, Long beforeId, Limit limit);
+    Optional<EhrRecordVersion> findFirstByPatientIdAndCategoryAndStorageKindAndVersionLessThanOrderByVersionDesc(
+            Long patientId, EhrCategory category, VersionStorageKind storageKind, Integer version);
+    List<EhrRecordVersion> findByPatientIdAndCategoryAndVersionBetweenOrderByVersionAsc(
+            Long patientId, EhrCategory category, Integer fromVersion, Integer toVersion);
 }
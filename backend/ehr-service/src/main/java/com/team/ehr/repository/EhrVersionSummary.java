@@ -0,0 +1,15 @@
+package com.team.ehr.repository;
+
+import com.team.ehr.entity.EhrCategory;
+import java.time.Instant;
+
+/**
+ * Metadata-only view of an ehr_record_version row; selecting it never loads the ciphertext.
+ */
+public interface EhrVersionSummary {
+    Long getId();
+    Integer getVersion();
+    EhrCategory getCategory();
+    Instant getCreatedAt();
+    String getCreatedByRole();
+}
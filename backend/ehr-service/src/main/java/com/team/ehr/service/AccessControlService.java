@@ -1,10 +1,15 @@
 package com.team.ehr.service;
 
+import com.team.ehr.entity.EhrAssignment;
 import com.team.ehr.entity.EhrCategory;
 import com.team.ehr.exception.ForbiddenException;
 import com.team.ehr.repository.EhrAssignmentRepository;
 import com.team.ehr.security.SecurityUtil;
 import com.team.ehr.security.UserRole;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -54,6 +59,27 @@ public class AccessControlService {
         return false;
     }
 
+    /**
+     * The patients among patientIds whose records the current user may read,
+     * with at most one assignment query.
+     */
+    public Set<Long> readablePatients(Collection<Long> patientIds) {
+        UserRole role = SecurityUtil.getRole();
+        Long userId = SecurityUtil.getUserId();
+        if (role == UserRole.ADMIN) {
+            return new HashSet<>(patientIds);
+        }
+        if (role == UserRole.PATIENT) {
+            return patientIds.contains(userId) ? Set.of(userId) : Set.of();
+        }
+        if (role == UserRole.DOCTOR) {
+            return assignmentRepository.findByDoctorUserIdAndEndedAtIsNullAndPatientIdIn(userId, patientIds).stream()
+                    .map(EhrAssignment::getPatientId)
+                    .collect(Collectors.toSet());
+        }
+        return Set.of();
+    }
+
     public boolean canAccessLabs(Long patientId) {
         UserRole role = SecurityUtil.getRole();
         Long userId = SecurityUtil.getUserId();
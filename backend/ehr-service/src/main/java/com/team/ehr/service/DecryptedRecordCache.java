@@ -0,0 +1,106 @@
+package com.team.ehr.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory LRU cache of decrypted, parsed EHR payloads, keyed by (ehrId, version, contentHash).
+ * Opt-in; entries expire after ttlSeconds and are never written anywhere. Cached trees are
+ * shared between readers and must not be modified.
+ */
+@Component
+public class DecryptedRecordCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    private record Key(Long ehrId, Integer version, String contentHash) {
+    }
+
+    private record Entry(JsonNode data, long expiresAt) {
+    }
+
+    public DecryptedRecordCache(@Value("${ehr.cache.decrypted.enabled:false}") boolean enabled,
+                                @Value("${ehr.cache.decrypted.maxEntries:2000}") int maxEntries,
+                                @Value("${ehr.cache.decrypted.ttlSeconds:300}") long ttlSeconds,
+                                MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.hits = cacheCounter(meterRegistry, "ehr.cache.decrypted.requests", "result", "hit");
+        this.misses = cacheCounter(meterRegistry, "ehr.cache.decrypted.requests", "result", "miss");
+        this.evictions = cacheCounter(meterRegistry, "ehr.cache.decrypted.evictions", "cause", "size_or_expiry");
+        Gauge.builder("ehr.cache.decrypted.size", this, DecryptedRecordCache::size)
+                .register(meterRegistry);
+    }
+
+    public JsonNode get(Long ehrId, Integer version, String contentHash, Supplier<JsonNode> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(ehrId, version, contentHash);
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() - now > 0) {
+                hits.increment();
+                return entry.data();
+            }
+        }
+
+        // Decrypt outside the lock; two concurrent misses for one key both decrypt
+        misses.increment();
+        JsonNode data = loader.get();
+        synchronized (entries) {
+            entries.put(key, new Entry(data, now + ttlNanos));
+            evictExpiredAndOverflow(now);
+        }
+        return data;
+    }
+
+    public void evictRecord(Long ehrId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (entries) {
+            entries.keySet().removeIf(key -> key.ehrId().equals(ehrId));
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private void evictExpiredAndOverflow(long now) {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> eldest = it.next();
+            if (entries.size() <= maxEntries && eldest.getValue().expiresAt() - now > 0) {
+                break;
+            }
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String name, String tag, String value) {
+        return Counter.builder(name).tag(tag, value).register(meterRegistry);
+    }
+}
@@ -0,0 +1,102 @@
+package com.team.ehr.service;
+
+import com.team.ehr.dto.EhrBatchReadRequest;
+import com.team.ehr.dto.EhrBatchReadResponse;
+import com.team.ehr.dto.EhrPatientResponse;
+import com.team.ehr.dto.EhrRecordDto;
+import com.team.ehr.entity.EhrCategory;
+import com.team.ehr.entity.EhrRecordCurrent;
+import com.team.ehr.repository.EhrRecordCurrentRepository;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import org.springframework.stereotype.Service;
+
+/**
+ * Reads the current records of many patients at once: one assignment query for access,
+ * one IN query for the records, and decryption spread over recordDecryptExecutor.
+ */
+@Service
+public class EhrBatchReadService {
+
+    private final EhrRecordCurrentRepository currentRepository;
+    private final AccessControlService accessControlService;
+    private final EhrRecordService ehrRecordService;
+    private final ExecutorService recordDecryptExecutor;
+
+    public EhrBatchReadService(EhrRecordCurrentRepository currentRepository,
+                               AccessControlService accessControlService,
+                               EhrRecordService ehrRecordService,
+                               ExecutorService recordDecryptExecutor) {
+        this.currentRepository = currentRepository;
+        this.accessControlService = accessControlService;
+        this.ehrRecordService = ehrRecordService;
+        this.recordDecryptExecutor = recordDecryptExecutor;
+    }
+
+    /**
+     * Patients the caller may not read are listed in deniedPatientIds instead of failing the
+     * whole request; a patient without a record in a category gets null for it.
+     */
+    public EhrBatchReadResponse readPatients(EhrBatchReadRequest request) {
+        Set<Long> requested = new LinkedHashSet<>(request.getPatientIds());
+        Set<Long> readable = accessControlService.readablePatients(requested);
+        Set<String> fields = request.getFields() != null ? new HashSet<>(request.getFields()) : null;
+        List<EhrCategory> categories = request.getCategory() != null
+                ? List.of(request.getCategory())
+                : List.of(EhrCategory.CLINICAL, EhrCategory.TREATMENTS);
+
+        Map<Long, EhrPatientResponse> patients = new LinkedHashMap<>();
+        List<Long> denied = new ArrayList<>();
+        for (Long patientId : requested) {
+            if (readable.contains(patientId)) {
+                EhrPatientResponse response = new EhrPatientResponse();
+                response.setPatientId(patientId);
+                patients.put(patientId, response);
+            } else {
+                denied.add(patientId);
+            }
+        }
+
+        if (!patients.isEmpty()) {
+            List<EhrRecordCurrent> records = currentRepository.findByPatientIdInAndCategoryIn(patients.keySet(), categories);
+            List<CompletableFuture<EhrRecordDto>> decrypted = records.stream()
+                    .map(record -> CompletableFuture.supplyAsync(
+                            () -> ehrRecordService.toResponseDto(record, fields),
+                            recordDecryptExecutor))
+                    .toList();
+            for (int i = 0; i < records.size(); i++) {
+                EhrPatientResponse response = patients.get(records.get(i).getPatientId());
+                EhrRecordDto dto = join(decrypted.get(i));
+                if (dto.getCategory() == EhrCategory.CLINICAL) {
+                    response.setClinical(dto);
+                } else {
+                    response.setTreatments(dto);
+                }
+            }
+        }
+
+        EhrBatchReadResponse response = new EhrBatchReadResponse();
+        response.setPatients(new ArrayList<>(patients.values()));
+        response.setDeniedPatientIds(denied);
+        return response;
+    }
+
+    private static EhrRecordDto join(CompletableFuture<EhrRecordDto> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
@@ -12,54 +12,92 @@ import com.team.ehr.dto.EhrRecordDto;
 import com.team.ehr.dto.EhrUpdateRequest;
 import com.team.ehr.dto.EhrUpdateResponse;
 import com.team.ehr.dto.EhrVersionDto;
+import com.team.ehr.dto.EhrVersionPage;
+import com.team.ehr.dto.RawJsonValue;
 import com.team.ehr.entity.EhrCategory;
 import com.team.ehr.entity.EhrRecordCurrent;
 import com.team.ehr.entity.EhrRecordVersion;
+import com.team.ehr.entity.VersionStorageKind;
 import com.team.ehr.exception.BadRequestException;
 import com.team.ehr.exception.ConflictException;
 import com.team.ehr.exception.ForbiddenException;
 import com.team.ehr.exception.NotFoundException;
 import com.team.ehr.repository.EhrRecordCurrentRepository;
 import com.team.ehr.repository.EhrRecordVersionRepository;
+import com.team.ehr.repository.EhrVersionSummary;
 import com.team.ehr.security.SecurityUtil;
 import com.team.ehr.security.UserRole;
 import jakarta.transaction.Transactional;
 import java.util.List;
 import java.util.Set;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 @Service
 public class EhrRecordService {
 
+    private static final int MAX_VERSION_PAGE_SIZE = 200;
+
     private final EhrRecordCurrentRepository currentRepository;
     private final EhrRecordVersionRepository versionRepository;
     private final CryptoService cryptoService;
     private final ObjectMapper objectMapper;
     private final AccessControlService accessControlService;
     private final AuditService auditService;
+    private final DecryptedRecordCache decryptedRecordCache;
+    private final boolean deltaVersions;
+    private final int snapshotEvery;
+    private final boolean rawPassthrough;
 
     public EhrRecordService(EhrRecordCurrentRepository currentRepository,
                             EhrRecordVersionRepository versionRepository,
                             CryptoService cryptoService,
                             ObjectMapper objectMapper,
                             AccessControlService accessControlService,
-                            AuditService auditService) {
+                            AuditService auditService,
+                            DecryptedRecordCache decryptedRecordCache,
+                            @Value("${ehr.versions.delta.enabled:false}") boolean deltaVersions,
+                            @Value("${ehr.versions.delta.snapshotEvery:20}") int snapshotEvery,
+                            @Value("${ehr.read.rawPassthrough:false}") boolean rawPassthrough) {
         this.currentRepository = currentRepository;
         this.versionRepository = versionRepository;
         this.cryptoService = cryptoService;
         this.objectMapper = objectMapper;
         this.accessControlService = accessControlService;
         this.auditService = auditService;
+        this.decryptedRecordCache = decryptedRecordCache;
+        this.deltaVersions = deltaVersions;
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+        this.rawPassthrough = rawPassthrough;
     }
 
     public EhrPatientResponse readPatient(Long patientId, EhrCategory category, Integer version) {
+        return readPatient(patientId, category, version, null, false);
+    }
+
+    /**
+     * Read for an HTTP response. With ehr.read.rawPassthrough the data is serialized straight
+     * from the decrypted bytes and is not a navigable tree. fields, when given, keeps only
+     * those top-level members.
+     */
+    public EhrPatientResponse readPatientView(Long patientId, EhrCategory category, Integer version,
+                                              Set<String> fields) {
+        return readPatient(patientId, category, version, fields, rawPassthrough);
+    }
+
+    private EhrPatientResponse readPatient(Long patientId, EhrCategory category, Integer version,
+                                           Set<String> fields, boolean raw) {
+        if (fields != null && fields.isEmpty()) {
+            fields = null;
+        }
         if (category == null && version != null) {
             throw new BadRequestException("category is required when requesting a version");
         }
         if (category != null) {
             accessControlService.assertCanRead(patientId, category);
-            EhrRecordDto record = readSingle(patientId, category, version);
+            EhrRecordDto record = readSingle(patientId, category, version, fields, raw);
             EhrPatientResponse response = new EhrPatientResponse();
             response.setPatientId(patientId);
             if (category == EhrCategory.CLINICAL) {
@@ -74,22 +112,42 @@ public class EhrRecordService {
         accessControlService.assertCanRead(patientId, EhrCategory.TREATMENTS);
         EhrPatientResponse response = new EhrPatientResponse();
         response.setPatientId(patientId);
-        response.setClinical(readSingle(patientId, EhrCategory.CLINICAL, null));
-        response.setTreatments(readSingle(patientId, EhrCategory.TREATMENTS, null));
+        response.setClinical(readSingle(patientId, EhrCategory.CLINICAL, null, fields, raw));
+        response.setTreatments(readSingle(patientId, EhrCategory.TREATMENTS, null, fields, raw));
         return response;
     }
 
-    public List<EhrVersionDto> listVersions(Long patientId, EhrCategory category) {
+    /**
+     * Version metadata, newest first. Without a limit the whole history is returned; with one,
+     * the page ends with a cursor to pass back for the next page (null on the last page).
+     * The cursor is the last version for one category, or the last row id across categories.
+     */
+    public EhrVersionPage listVersions(Long patientId, EhrCategory category, String cursor, Integer limit) {
         if (category == null) {
             accessControlService.assertCanRead(patientId, EhrCategory.CLINICAL);
             accessControlService.assertCanRead(patientId, EhrCategory.TREATMENTS);
         } else {
             accessControlService.assertCanRead(patientId, category);
         }
-        List<EhrRecordVersion> versions = category == null
-                ? versionRepository.findByPatientIdOrderByCreatedAtDesc(patientId)
-                : versionRepository.findByPatientIdAndCategoryOrderByVersionDesc(patientId, category);
-        return versions.stream().map(this::toVersionDto).toList();
+        if (limit != null && limit < 1) {
+            throw new BadRequestException("limit must be positive");
+        }
+        int pageSize = limit == null ? 0 : Math.min(limit, MAX_VERSION_PAGE_SIZE);
+        long before = parseCursor(cursor);
+        // One extra row tells whether another page follows
+        Limit fetch = limit == null ? Limit.unlimited() : Limit.of(pageSize + 1);
+        List<EhrVersionSummary> rows = category == null
+                ? versionRepository.findByPatientIdAndIdLessThanOrderByIdDesc(patientId, before, fetch)
+                : versionRepository.findByPatientIdAndCategoryAndVersionLessThanOrderByVersionDesc(
+                        patientId, category, (int) Math.min(before, Integer.MAX_VALUE), fetch);
+
+        String nextCursor = null;
+        if (limit != null && rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            EhrVersionSummary last = rows.get(pageSize - 1);
+            nextCursor = String.valueOf(category == null ? last.getId() : last.getVersion());
+        }
+        return new EhrVersionPage(rows.stream().map(this::toVersionDto).toList(), nextCursor);
     }
 
     @Transactional
@@ -150,10 +208,12 @@ public class EhrRecordService {
 
         try {
             ObjectNode existing = parseJsonObject(cryptoService.decryptJson(current.getCiphertext()));
+            int newVersion = current.getCurrentVersion() + 1;
+            // applyPatch updates existing in place, keep the predecessor for the delta
+            ObjectNode previous = storeAsDelta(newVersion) ? existing.deepCopy() : null;
             ObjectNode patched = applyPatch(existing, request.getPatch());
             String updatedJson = objectMapper.writeValueAsString(patched);
             CryptoResult encrypted = cryptoService.encryptJson(updatedJson);
-            int newVersion = current.getCurrentVersion() + 1;
 
             current.setCiphertext(encrypted.getCiphertext());
             current.setContentHash(encrypted.getHashHex());
@@ -166,12 +226,21 @@ public class EhrRecordService {
             version.setPatientId(patientId);
             version.setCategory(category);
             version.setVersion(newVersion);
-            version.setCiphertext(encrypted.getCiphertext());
-            version.setContentHash(encrypted.getHashHex());
+            ObjectNode delta = previous != null ? deltaOrNull(previous, patched) : null;
+            if (delta != null) {
+                CryptoResult encryptedDelta = cryptoService.encryptJson(objectMapper.writeValueAsString(delta));
+                version.setStorageKind(VersionStorageKind.DELTA);
+                version.setCiphertext(encryptedDelta.getCiphertext());
+                version.setContentHash(encryptedDelta.getHashHex());
+            } else {
+                version.setCiphertext(encrypted.getCiphertext());
+                version.setContentHash(encrypted.getHashHex());
+            }
             version.setKeyId(cryptoService.getKeyId());
             version.setCreatedByUserId(SecurityUtil.getUserId());
             version.setCreatedByRole(SecurityUtil.getRole().name());
             versionRepository.save(version);
+            decryptedRecordCache.evictRecord(current.getId());
 
             auditService.log("UPDATE", patientId, category, current.getId(), null, newVersion);
             return new EhrUpdateResponse(newVersion);
@@ -182,37 +251,124 @@ public class EhrRecordService {
         }
     }
 
-    private EhrRecordDto readSingle(Long patientId, EhrCategory category, Integer version) {
+    private EhrRecordDto readSingle(Long patientId, EhrCategory category, Integer version,
+                                    Set<String> fields, boolean raw) {
         if (version != null) {
             EhrRecordVersion versionEntity = versionRepository
                     .findByPatientIdAndCategoryAndVersion(patientId, category, version)
                     .orElseThrow(() -> new NotFoundException("Version not found"));
-            return toRecordDto(versionEntity);
+            return toRecordDto(versionEntity, fields, raw);
         }
         EhrRecordCurrent current = currentRepository.findByPatientIdAndCategory(patientId, category)
                 .orElseThrow(() -> new NotFoundException("EHR record not found"));
-        return toRecordDto(current);
+        return toRecordDto(current, fields, raw);
+    }
+
+    /**
+     * Record DTO for a response, in the configured read mode (see readPatientView).
+     */
+    EhrRecordDto toResponseDto(EhrRecordCurrent current, Set<String> fields) {
+        return toRecordDto(current, fields == null || fields.isEmpty() ? null : fields, rawPassthrough);
     }
 
-    private EhrRecordDto toRecordDto(EhrRecordCurrent current) {
+    private EhrRecordDto toRecordDto(EhrRecordCurrent current, Set<String> fields, boolean raw) {
         EhrRecordDto dto = new EhrRecordDto();
         dto.setCategory(current.getCategory());
         dto.setVersion(current.getCurrentVersion());
         dto.setUpdatedAt(current.getUpdatedAt());
-        dto.setData(parseJson(cryptoService.decryptJson(current.getCiphertext())));
+        if (raw) {
+            dto.setData(rawData(current.getCiphertext(), fields));
+        } else {
+            dto.setData(project(decryptedRecordCache.get(current.getId(), current.getCurrentVersion(),
+                    current.getContentHash(), () -> parseJson(cryptoService.decryptJson(current.getCiphertext()))), fields));
+        }
         return dto;
     }
 
-    private EhrRecordDto toRecordDto(EhrRecordVersion version) {
+    private EhrRecordDto toRecordDto(EhrRecordVersion version, Set<String> fields, boolean raw) {
         EhrRecordDto dto = new EhrRecordDto();
         dto.setCategory(version.getCategory());
         dto.setVersion(version.getVersion());
         dto.setUpdatedAt(version.getCreatedAt());
-        dto.setData(parseJson(cryptoService.decryptJson(version.getCiphertext())));
+        // Delta-stored versions are rebuilt as a tree, so only snapshots can pass through raw
+        if (raw && version.getStorageKind() == VersionStorageKind.SNAPSHOT) {
+            dto.setData(rawData(version.getCiphertext(), fields));
+        } else {
+            dto.setData(project(decryptedRecordCache.get(version.getEhrId(), version.getVersion(),
+                    version.getContentHash(), () -> version.getStorageKind() == VersionStorageKind.DELTA
+                            ? reconstruct(version)
+                            : parseJson(cryptoService.decryptJson(version.getCiphertext()))), fields));
+        }
         return dto;
     }
 
-    private EhrVersionDto toVersionDto(EhrRecordVersion version) {
+    private JsonNode rawData(byte[] ciphertext, Set<String> fields) {
+        return objectMapper.getNodeFactory().pojoNode(new RawJsonValue(cryptoService.decryptJsonBytes(ciphertext), fields));
+    }
+
+    /**
+     * Keep only the given top-level fields. Builds a new node: the data may be a shared
+     * cached tree.
+     */
+    private JsonNode project(JsonNode data, Set<String> fields) {
+        if (fields == null || !data.isObject()) {
+            return data;
+        }
+        ObjectNode projected = objectMapper.createObjectNode();
+        for (String field : fields) {
+            if (data.has(field)) {
+                projected.set(field, data.get(field));
+            }
+        }
+        return projected;
+    }
+
+    /**
+     * Rebuild a delta-stored version by applying the deltas after the nearest earlier snapshot.
+     */
+    private JsonNode reconstruct(EhrRecordVersion target) {
+        EhrRecordVersion snapshot = versionRepository
+                .findFirstByPatientIdAndCategoryAndStorageKindAndVersionLessThanOrderByVersionDesc(
+                        target.getPatientId(), target.getCategory(), VersionStorageKind.SNAPSHOT, target.getVersion())
+                .orElseThrow(() -> new IllegalStateException("No snapshot before version " + target.getVersion()));
+        List<EhrRecordVersion> deltas = versionRepository.findByPatientIdAndCategoryAndVersionBetweenOrderByVersionAsc(
+                target.getPatientId(), target.getCategory(), snapshot.getVersion() + 1, target.getVersion());
+        if (deltas.size() != target.getVersion() - snapshot.getVersion()) {
+            throw new IllegalStateException("Version history is incomplete before version " + target.getVersion());
+        }
+        JsonNode data = parseJson(cryptoService.decryptJson(snapshot.getCiphertext()));
+        for (EhrRecordVersion delta : deltas) {
+            data = JsonMergePatch.apply(data, parseJson(cryptoService.decryptJson(delta.getCiphertext())));
+        }
+        return data;
+    }
+
+    private boolean storeAsDelta(int version) {
+        return deltaVersions && (version - 1) % snapshotEvery != 0;
+    }
+
+    /**
+     * Merge patch from previous to next, or null when the patch cannot reproduce next
+     * (explicit null members), in which case the version is stored as a snapshot.
+     * Consumes previous.
+     */
+    private ObjectNode deltaOrNull(ObjectNode previous, ObjectNode next) {
+        ObjectNode delta = JsonMergePatch.diff(previous, next);
+        return JsonMergePatch.apply(previous, delta).equals(next) ? delta : null;
+    }
+
+    private long parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    private EhrVersionDto toVersionDto(EhrVersionSummary version) {
         EhrVersionDto dto = new EhrVersionDto();
         dto.setVersion(version.getVersion());
         dto.setCategory(version.getCategory());
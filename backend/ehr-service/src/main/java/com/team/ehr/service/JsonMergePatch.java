@@ -0,0 +1,71 @@
+package com.team.ehr.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * JSON merge patch (RFC 7386): objects merge member by member, null removes a member,
+ * anything else replaces. A merge patch cannot set a member to null, so callers should
+ * check that a diff applies back to its target before storing it.
+ */
+final class JsonMergePatch {
+
+    private JsonMergePatch() {
+    }
+
+    /**
+     * Patch that turns source into target.
+     */
+    static ObjectNode diff(ObjectNode source, ObjectNode target) {
+        ObjectNode patch = JsonNodeFactory.instance.objectNode();
+        Iterator<String> removed = source.fieldNames();
+        while (removed.hasNext()) {
+            String name = removed.next();
+            if (!target.has(name)) {
+                patch.putNull(name);
+            }
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = target.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode before = source.get(field.getKey());
+            JsonNode after = field.getValue();
+            if (after.equals(before)) {
+                continue;
+            }
+            if (before != null && before.isObject() && after.isObject()) {
+                patch.set(field.getKey(), diff((ObjectNode) before, (ObjectNode) after));
+            } else {
+                patch.set(field.getKey(), after.deepCopy());
+            }
+        }
+        return patch;
+    }
+
+    /**
+     * Apply a patch to target, modifying target when both are objects.
+     *
+     * @return the patched document
+     */
+    static JsonNode apply(JsonNode target, JsonNode patch) {
+        if (!patch.isObject()) {
+            return patch.deepCopy();
+        }
+        ObjectNode result = target != null && target.isObject()
+                ? (ObjectNode) target
+                : JsonNodeFactory.instance.objectNode();
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), apply(result.get(field.getKey()), field.getValue()));
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,8 @@
+USE ehr_db;
+
+-- Flyway is disabled for ehr-service: new databases get this column from
+-- infra/mysql-init/03-ehr.sql; run this script by hand on existing ones.
+-- SNAPSHOT rows hold the full document; DELTA rows hold a JSON merge patch (RFC 7386)
+-- against the previous version and are rebuilt from the nearest earlier snapshot.
+ALTER TABLE ehr_record_version
+    ADD COLUMN storage_kind VARCHAR(10) NOT NULL DEFAULT 'SNAPSHOT' AFTER version;
@@ -0,0 +1,7 @@
+USE ehr_db;
+
+-- Flyway is disabled for ehr-service: new databases get this index from
+-- infra/mysql-init/03-ehr.sql; run this script by hand on existing ones.
+-- Serves per-category history listing (keyset on version) and delta reconstruction
+ALTER TABLE ehr_record_version
+    ADD INDEX idx_ehr_version_patient_category_version (patient_id, category, version);
@@ -0,0 +1,41 @@
+package com.team.ehr.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RawJsonValueTest {
+
+    private static final byte[] DOCUMENT = "{\"vitals\":{\"hr\":[70,72]},\"allergies\":\"pollen\",\"notes\":\"é\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesDocumentUnchanged() throws Exception {
+        EhrRecordDto dto = recordWith(new RawJsonValue(DOCUMENT, null));
+
+        String fromBytes = new String(objectMapper.writeValueAsBytes(dto), StandardCharsets.UTF_8);
+
+        assertEquals(objectMapper.readTree(DOCUMENT), objectMapper.readTree(fromBytes).get("data"));
+        assertEquals(fromBytes, objectMapper.writeValueAsString(dto));
+    }
+
+    @Test
+    void keepsOnlyRequestedFields() throws Exception {
+        EhrRecordDto dto = recordWith(new RawJsonValue(DOCUMENT, Set.of("vitals", "notes", "missing")));
+
+        assertEquals(objectMapper.readTree("{\"vitals\":{\"hr\":[70,72]},\"notes\":\"é\"}"),
+                objectMapper.readTree(objectMapper.writeValueAsBytes(dto)).get("data"));
+    }
+
+    private EhrRecordDto recordWith(RawJsonValue value) {
+        EhrRecordDto dto = new EhrRecordDto();
+        dto.setVersion(1);
+        dto.setData(objectMapper.getNodeFactory().pojoNode(value));
+        return dto;
+    }
+}
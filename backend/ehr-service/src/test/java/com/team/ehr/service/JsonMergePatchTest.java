@@ -0,0 +1,46 @@
+package com.team.ehr.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class JsonMergePatchTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void diffAppliesBackToTarget() throws Exception {
+        ObjectNode source = object("{\"vitals\":{\"bp\":\"120/80\",\"hr\":70},\"allergies\":\"none\",\"notes\":[1,2]}");
+        ObjectNode target = object("{\"vitals\":{\"bp\":\"130/85\",\"hr\":70},\"notes\":[1,2,3],\"conditions\":\"asthma\"}");
+
+        ObjectNode patch = JsonMergePatch.diff(source, target);
+
+        assertEquals(object("{\"allergies\":null,\"vitals\":{\"bp\":\"130/85\"},\"notes\":[1,2,3],\"conditions\":\"asthma\"}"),
+                patch);
+        assertEquals(target, JsonMergePatch.apply(source.deepCopy(), patch));
+    }
+
+    @Test
+    void diffOfEqualDocumentsIsEmpty() throws Exception {
+        ObjectNode doc = object("{\"vitals\":{\"hr\":70}}");
+        assertEquals(0, JsonMergePatch.diff(doc, doc.deepCopy()).size());
+    }
+
+    @Test
+    void explicitNullIsNotReproduced() throws Exception {
+        ObjectNode source = object("{\"allergies\":\"none\"}");
+        ObjectNode target = object("{\"allergies\":null}");
+
+        JsonNode patched = JsonMergePatch.apply(source.deepCopy(), JsonMergePatch.diff(source, target));
+
+        assertNotEquals(target, patched);
+    }
+
+    private ObjectNode object(String json) throws Exception {
+        return (ObjectNode) objectMapper.readTree(json);
+    }
+}
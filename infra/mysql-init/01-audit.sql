@@ -1,3 +1,6 @@
+-- Baseline schema (Flyway V1). Later changes are Flyway migrations in
+-- backend/audit-service/src/main/resources/db/migration, applied on service startup.
+
 CREATE DATABASE IF NOT EXISTS audit_db
     DEFAULT CHARACTER SET utf8mb4
     DEFAULT COLLATE utf8mb4_0900_ai_ci;
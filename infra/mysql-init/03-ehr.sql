@@ -37,6 +37,7 @@ CREATE TABLE IF NOT EXISTS ehr_record_version (
     patient_id          BIGINT NOT NULL,
     category            VARCHAR(20) NOT NULL,
     version             INT NOT NULL,
+    storage_kind        VARCHAR(10) NOT NULL DEFAULT 'SNAPSHOT', -- SNAPSHOT (full document) or DELTA (merge patch)
     ciphertext          LONGBLOB NOT NULL,
     key_id              VARCHAR(50) NOT NULL,
     content_hash        VARCHAR(128) NOT NULL,
@@ -47,7 +48,8 @@ CREATE TABLE IF NOT EXISTS ehr_record_version (
     INDEX idx_ehr_version_ehr_id (ehr_id),
     INDEX idx_ehr_version_patient (patient_id),
     INDEX idx_ehr_version_category (category),
-    INDEX idx_ehr_version_created (created_at)
+    INDEX idx_ehr_version_created (created_at),
+    INDEX idx_ehr_version_patient_category_version (patient_id, category, version)
 ) ENGINE=InnoDB;
 
 -- ============================================================